@@ -0,0 +1,226 @@
+package sopaletras;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Árbol de recorrido de una búsqueda BFS, registrado por la misma búsqueda mientras
+ * corre (BuscadorPalabras.buscarPalabra(String, ArbolBFS)) en lugar de repetirla para
+ * dibujarla. Cada nodo es una entrada de la frontera: un camino que termina en una
+ * celda. Los nodos se numeran en el orden en que entran a la frontera, así que los
+ * hijos de un nodo quedan contiguos y siempre después de su padre. Se guardan en
+ * arreglos de enteros hasta un límite de nodos; pasado el límite la búsqueda sigue
+ * pero ya no se registra.
+ */
+public class ArbolBFS {
+    public static final int NINGUNO = -1;
+
+    private final String palabra;
+    private final int columnas;
+    private final int limite;
+    private int[] celdas = new int[64];
+    private int[] padres = new int[64];
+    private int[] niveles = new int[64];
+    // Hijos del nodo i: inicioHijos[i] .. finHijos[i] - 1, o NINGUNO si no se expandió
+    private int[] inicioHijos = new int[64];
+    private int[] finHijos = new int[64];
+    private int cantidad;
+    // Nodos que entraron a la frontera, registrados o no
+    private int total;
+    private int encontrado = NINGUNO;
+    private boolean incompleto;
+    // Representante de cada nodo entre los subárboles iguales, calculado al pedirlo
+    private int[] representantes;
+
+    /**
+     * @param palabra: palabra que se busca
+     * @param columnas: columnas del tablero, para convertir celdas en fila y columna
+     * @param limite: cantidad máxima de nodos a registrar
+     */
+    public ArbolBFS(String palabra, int columnas, int limite) {
+        if (limite < 1)
+            throw new IllegalArgumentException("El límite de nodos debe ser al menos 1");
+        this.palabra = palabra;
+        this.columnas = columnas;
+        this.limite = limite;
+    }
+
+    /**
+     * Registrar un nodo que entra a la frontera
+     * @param celda: celda donde termina el camino
+     * @param padre: nodo expandido, o NINGUNO para una celda inicial
+     * @return número del nodo, aunque no se haya registrado por el límite
+     */
+    int agregar(int celda, int padre) {
+        int nodo = total++;
+        if (nodo >= limite) {
+            incompleto = true;
+            return nodo;
+        }
+        if (nodo == celdas.length) {
+            int capacidad = (int) Math.min(limite, celdas.length * 2L);
+            celdas = Arrays.copyOf(celdas, capacidad);
+            padres = Arrays.copyOf(padres, capacidad);
+            niveles = Arrays.copyOf(niveles, capacidad);
+            inicioHijos = Arrays.copyOf(inicioHijos, capacidad);
+            finHijos = Arrays.copyOf(finHijos, capacidad);
+        }
+        celdas[nodo] = celda;
+        padres[nodo] = padre;
+        niveles[nodo] = padre == NINGUNO ? 0 : niveles[padre] + 1;
+        inicioHijos[nodo] = NINGUNO;
+        finHijos[nodo] = NINGUNO;
+        cantidad++;
+        return nodo;
+    }
+
+    /**
+     * Marcar el comienzo de la expansión de un nodo: los nodos que se agreguen hasta
+     * terminarExpansion son sus hijos
+     * @param nodo: nodo que sale de la frontera
+     */
+    void iniciarExpansion(int nodo) {
+        if (nodo < cantidad) {
+            inicioHijos[nodo] = total;
+            finHijos[nodo] = total;
+        }
+    }
+
+    void terminarExpansion(int nodo) {
+        if (nodo < cantidad)
+            finHijos[nodo] = Math.min(total, limite);
+    }
+
+    void marcarEncontrado(int nodo) {
+        if (nodo < cantidad)
+            encontrado = nodo;
+    }
+
+    /**
+     * Marcar que la búsqueda siguió sin registrar, por ejemplo al terminar con DFS
+     * porque la frontera llegó a su capacidad máxima
+     */
+    void marcarIncompleto() {
+        incompleto = true;
+    }
+
+    public String getPalabra() {
+        return palabra;
+    }
+
+    /**
+     * @return cantidad de nodos registrados
+     */
+    public int cantidad() {
+        return cantidad;
+    }
+
+    /**
+     * @return cantidad de nodos que entraron a la frontera, registrados o no
+     */
+    public int total() {
+        return total;
+    }
+
+    /**
+     * @return true si la búsqueda hizo más trabajo del que quedó registrado
+     */
+    public boolean isIncompleto() {
+        return incompleto;
+    }
+
+    /**
+     * @return nodo donde se completó la palabra, o NINGUNO si no se encontró o no se registró
+     */
+    public int encontrado() {
+        return encontrado;
+    }
+
+    public int fila(int nodo) {
+        return celdas[nodo] / columnas;
+    }
+
+    public int columna(int nodo) {
+        return celdas[nodo] % columnas;
+    }
+
+    public int nivel(int nodo) {
+        return niveles[nodo];
+    }
+
+    public char letra(int nodo) {
+        return palabra.charAt(niveles[nodo]);
+    }
+
+    public int padre(int nodo) {
+        return padres[nodo];
+    }
+
+    /**
+     * @param nodo: nodo registrado
+     * @return true si la búsqueda sacó el nodo de la frontera y revisó sus vecinos
+     */
+    public boolean fueExpandido(int nodo) {
+        return inicioHijos[nodo] != NINGUNO;
+    }
+
+    /**
+     * @param nodo: nodo registrado
+     * @return primer hijo registrado del nodo; si no fue expandido es igual a finHijos
+     */
+    public int inicioHijos(int nodo) {
+        return inicioHijos[nodo] == NINGUNO ? 0 : inicioHijos[nodo];
+    }
+
+    public int finHijos(int nodo) {
+        return finHijos[nodo] == NINGUNO ? 0 : finHijos[nodo];
+    }
+
+    /**
+     * Obtener el primer nodo que tiene un subárbol idéntico al de un nodo: misma celda,
+     * mismo nivel y los mismos hijos, recursivamente. Sirve para dibujar una sola vez los
+     * subárboles repetidos, que en tableros con letras repetidas son la mayoría.
+     * @param nodo: nodo registrado
+     * @return representante del nodo, el mismo nodo si es el primero de su forma
+     */
+    public int representante(int nodo) {
+        agruparSubarboles();
+        return representantes[nodo];
+    }
+
+    /**
+     * Agrupar los subárboles iguales, si no se hizo antes. Como los hijos siempre tienen
+     * un número mayor que su padre, basta un recorrido de atrás hacia adelante para
+     * calcular la huella y el tamaño de cada subárbol a partir de los de sus hijos.
+     * Conviene llamarlo fuera del hilo de la interfaz, porque recorre todo el árbol.
+     */
+    public synchronized void agruparSubarboles() {
+        if (representantes != null)
+            return;
+        long[] huellas = new long[cantidad];
+        int[] tamanos = new int[cantidad];
+        for (int nodo = cantidad - 1; nodo >= 0; nodo--) {
+            long h = CacheResultados.mezclar(((long) niveles[nodo] << 32) | celdas[nodo]);
+            h = CacheResultados.mezclar(h ^ (fueExpandido(nodo) ? 1 : 2));
+            int tamano = 1;
+            for (int hijo = inicioHijos(nodo); hijo < finHijos(nodo); hijo++) {
+                h = CacheResultados.mezclar(h ^ huellas[hijo]);
+                tamano += tamanos[hijo];
+            }
+            huellas[nodo] = h;
+            tamanos[nodo] = tamano;
+        }
+        representantes = new int[cantidad];
+        Map<Long, Integer> primeros = new HashMap<>();
+        for (int nodo = 0; nodo < cantidad; nodo++) {
+            representantes[nodo] = nodo;
+            // Las hojas no se agrupan: dibujarlas cuesta lo mismo que dibujar la referencia
+            if (tamanos[nodo] == 1)
+                continue;
+            Integer primero = primeros.putIfAbsent(huellas[nodo], nodo);
+            if (primero != null && tamanos[primero] == tamanos[nodo])
+                representantes[nodo] = primero;
+        }
+    }
+}
@@ -0,0 +1,181 @@
+package sopaletras;
+
+import java.util.Arrays;
+
+/**
+ * Autómata de Aho-Corasick con las palabras de un diccionario, para encontrar todas las
+ * que aparecen en una secuencia de letras recorriéndola una sola vez. Se arma sobre el
+ * alfabeto de un tablero (los códigos de IndiceTablero): cada estado tiene una transición
+ * por letra del tablero en una tabla plana, así que avanzar cuesta un acceso al arreglo y
+ * no hay que seguir enlaces de fallo durante la búsqueda. Solo se agregan las palabras
+ * que pueden aparecer: las que usan letras del tablero y no superan el largo máximo.
+ * Los estados se crean recorriendo el trie por niveles, así que el estado de fallo de
+ * cualquier estado ya está completo cuando se lo necesita.
+ */
+public class AutomataAhoCorasick {
+    public static final int RAIZ = 0;
+    private static final int SIN_PALABRA = -1;
+
+    private final IndiceTablero indice;
+    private final int letras;
+    private final int largoMaximo;
+    // transiciones[estado * letras + codigo]: estado siguiente al leer la letra con ese código
+    private int[] transiciones;
+    private int[] nodosTrie;
+    private int[] padres;
+    // Código de la letra de la arista que llega a cada estado
+    private int[] codigos;
+    private int[] profundidades;
+    private int[] fallos;
+    // Número de la palabra que termina en el estado, o SIN_PALABRA
+    private int[] palabras;
+    // Estado más cercano por los enlaces de fallo donde termina una palabra, o RAIZ
+    private int[] salidas;
+    private String[] textos = new String[16];
+    private int cantidadEstados;
+    private int cantidadPalabras;
+
+    /**
+     * @param trie: diccionario, en memoria o compilado
+     * @param indice: índice del tablero donde se va a buscar
+     * @param largoMaximo: largo de la palabra más larga que puede aparecer
+     */
+    public AutomataAhoCorasick(IndiceDiccionario trie, IndiceTablero indice, int largoMaximo) {
+        this.indice = indice;
+        this.letras = indice.cantidadLetras();
+        this.largoMaximo = largoMaximo;
+        int capacidad = 64;
+        transiciones = new int[capacidad * letras];
+        nodosTrie = new int[capacidad];
+        padres = new int[capacidad];
+        codigos = new int[capacidad];
+        profundidades = new int[capacidad];
+        fallos = new int[capacidad];
+        palabras = new int[capacidad];
+        salidas = new int[capacidad];
+        nuevoEstado(trie.raiz(), RAIZ, 0, 0, false);
+
+        for (int estado = 0; estado < cantidadEstados; estado++) {
+            int base = estado * letras;
+            boolean conHijos = profundidades[estado] < largoMaximo;
+            for (int codigo = 0; codigo < letras; codigo++) {
+                int nodo = conHijos ? trie.hijo(nodosTrie[estado], indice.letra(codigo)) : IndiceDiccionario.NINGUNO;
+                // Sin hijo, la transición es la misma que la del estado de fallo
+                int desdeFallo = estado == RAIZ ? RAIZ : transiciones[fallos[estado] * letras + codigo];
+                if (nodo == IndiceDiccionario.NINGUNO) {
+                    transiciones[base + codigo] = desdeFallo;
+                    continue;
+                }
+                int hijo = nuevoEstado(nodo, estado, codigo, profundidades[estado] + 1, trie.esTerminal(nodo));
+                transiciones[base + codigo] = hijo;
+                fallos[hijo] = desdeFallo;
+                salidas[hijo] = palabras[desdeFallo] != SIN_PALABRA ? desdeFallo : salidas[desdeFallo];
+            }
+        }
+        fallos = null;
+        nodosTrie = null;
+        padres = null;
+        codigos = null;
+    }
+
+    private int nuevoEstado(int nodo, int padre, int codigo, int profundidad, boolean terminal) {
+        if (cantidadEstados == nodosTrie.length) {
+            int capacidad = nodosTrie.length * 2;
+            if ((long) capacidad * letras > Integer.MAX_VALUE - 8)
+                throw new IllegalStateException("El diccionario es demasiado grande para el autómata");
+            transiciones = Arrays.copyOf(transiciones, capacidad * letras);
+            nodosTrie = Arrays.copyOf(nodosTrie, capacidad);
+            padres = Arrays.copyOf(padres, capacidad);
+            codigos = Arrays.copyOf(codigos, capacidad);
+            profundidades = Arrays.copyOf(profundidades, capacidad);
+            fallos = Arrays.copyOf(fallos, capacidad);
+            palabras = Arrays.copyOf(palabras, capacidad);
+            salidas = Arrays.copyOf(salidas, capacidad);
+        }
+        int estado = cantidadEstados++;
+        nodosTrie[estado] = nodo;
+        padres[estado] = padre;
+        codigos[estado] = codigo;
+        profundidades[estado] = profundidad;
+        salidas[estado] = RAIZ;
+        palabras[estado] = SIN_PALABRA;
+        if (terminal) {
+            if (cantidadPalabras == textos.length)
+                textos = Arrays.copyOf(textos, cantidadPalabras * 2);
+            // El texto se arma subiendo por los padres hasta la raíz
+            char[] letrasPalabra = new char[profundidad];
+            for (int e = estado, i = profundidad - 1; e != RAIZ; e = padres[e], i--) {
+                letrasPalabra[i] = indice.letra(codigos[e]);
+            }
+            textos[cantidadPalabras] = new String(letrasPalabra);
+            palabras[estado] = cantidadPalabras++;
+        }
+        return estado;
+    }
+
+    /**
+     * @param estado: estado actual
+     * @param codigo: código de IndiceTablero de la letra leída
+     * @return estado siguiente
+     */
+    public int siguiente(int estado, int codigo) {
+        return transiciones[estado * letras + codigo];
+    }
+
+    /**
+     * Primera de las palabras que terminan en la última letra leída: la del mismo estado,
+     * si tiene, y si no la más larga que sea sufijo. Las demás se recorren con siguientePalabra.
+     * @param estado: estado actual
+     * @return estado con la palabra, o RAIZ si no termina ninguna
+     */
+    public int primeraPalabra(int estado) {
+        return palabras[estado] != SIN_PALABRA ? estado : salidas[estado];
+    }
+
+    /**
+     * @param estado: estado con una palabra
+     * @return estado con la siguiente palabra más corta que termina en la misma letra, o RAIZ
+     */
+    public int siguientePalabra(int estado) {
+        return salidas[estado];
+    }
+
+    /**
+     * @param estado: estado con una palabra
+     * @return número de la palabra, entre 0 y cantidadPalabras() - 1
+     */
+    public int numeroPalabra(int estado) {
+        return palabras[estado];
+    }
+
+    /**
+     * @param estado: estado con una palabra
+     * @return largo de la palabra
+     */
+    public int largo(int estado) {
+        return profundidades[estado];
+    }
+
+    /**
+     * @param estado: estado con una palabra
+     * @return palabra
+     */
+    public String palabra(int estado) {
+        return textos[palabras[estado]];
+    }
+
+    /**
+     * @return cantidad de palabras del autómata, sin las que no pueden aparecer en el tablero
+     */
+    public int cantidadPalabras() {
+        return cantidadPalabras;
+    }
+
+    public int cantidadEstados() {
+        return cantidadEstados;
+    }
+
+    public int getLargoMaximo() {
+        return largoMaximo;
+    }
+}
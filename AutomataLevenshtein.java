@@ -0,0 +1,121 @@
+package sopaletras;
+
+/**
+ * Autómata de Levenshtein acotado para un patrón: reconoce las secuencias de letras a
+ * distancia de edición (inserciones, borrados y cambios de una letra) de a lo sumo
+ * distanciaMaxima del patrón. En el patrón, el comodín '?' coincide con cualquier letra.
+ *
+ * El estado es una fila de la tabla de programación dinámica de la distancia: fila[j]
+ * es la distancia entre las letras leídas y las primeras j letras del patrón. Los valores
+ * se cortan en distanciaMaxima + 1, porque por encima ya no importa cuánto valen. Cuando
+ * todos los valores de una fila pasan la distancia máxima, ninguna continuación puede
+ * coincidir y el recorrido se poda ahí. La fila la guarda quien recorre, así que un
+ * mismo autómata sirve para varios recorridos a la vez.
+ */
+public class AutomataLevenshtein {
+    public static final char COMODIN = '?';
+
+    private final char[] patron;
+    private final int distanciaMaxima;
+
+    /**
+     * @param patron: letras a buscar, con '?' para cualquier letra
+     * @param distanciaMaxima: distancia de edición máxima, 0 para solo comodines
+     */
+    public AutomataLevenshtein(String patron, int distanciaMaxima) {
+        if (patron == null || patron.isEmpty())
+            throw new IllegalArgumentException("El patrón no puede ser vacío");
+        if (distanciaMaxima < 0 || distanciaMaxima >= patron.length())
+            throw new IllegalArgumentException("La distancia máxima debe estar entre 0 y el largo del patrón menos 1");
+        this.patron = patron.toCharArray();
+        this.distanciaMaxima = distanciaMaxima;
+    }
+
+    public int getDistanciaMaxima() {
+        return distanciaMaxima;
+    }
+
+    /**
+     * @return largo de una fila de estado
+     */
+    public int largoFila() {
+        return patron.length + 1;
+    }
+
+    /**
+     * @return largo de la secuencia más larga que puede coincidir
+     */
+    public int largoMaximo() {
+        return patron.length + distanciaMaxima;
+    }
+
+    /**
+     * @param posicion: posición en el patrón
+     * @return la letra del patrón, o COMODIN
+     */
+    public char letra(int posicion) {
+        return patron[posicion];
+    }
+
+    /**
+     * Dejar en fila el estado inicial, sin letras leídas
+     * @param fila: arreglo de largoFila() valores
+     */
+    public void inicial(int[] fila) {
+        for (int j = 0; j < fila.length; j++) {
+            fila[j] = Math.min(j, distanciaMaxima + 1);
+        }
+    }
+
+    /**
+     * Leer una letra
+     * @param anterior: estado antes de leer la letra
+     * @param letra: letra leída
+     * @param siguiente: arreglo donde dejar el estado nuevo; no puede ser el mismo que anterior
+     * @return true si alguna continuación todavía puede coincidir; si no, conviene podar
+     */
+    public boolean avanzar(int[] anterior, char letra, int[] siguiente) {
+        int tope = distanciaMaxima + 1;
+        int minimo = siguiente[0] = Math.min(anterior[0] + 1, tope);
+        for (int j = 1; j < siguiente.length; j++) {
+            char esperada = patron[j - 1];
+            int cambio = anterior[j - 1] + (esperada == letra || esperada == COMODIN ? 0 : 1);
+            int valor = Math.min(cambio, Math.min(anterior[j], siguiente[j - 1]) + 1);
+            siguiente[j] = Math.min(valor, tope);
+            minimo = Math.min(minimo, siguiente[j]);
+        }
+        return minimo <= distanciaMaxima;
+    }
+
+    /**
+     * Calcular qué letras pueden seguir a un estado sin que haya que podar. Si algún valor
+     * de la fila es menor que la distancia máxima, sirve cualquier letra (cuesta a lo sumo
+     * una edición más); si no, solo las letras del patrón que siguen a una posición que ya
+     * está justo en la distancia máxima. Así se descartan vecinos sin calcular su fila.
+     * @param fila: estado actual
+     * @param letras: arreglo de al menos largoFila() - 1 letras donde dejarlas, con repetidas
+     * @return cantidad de letras que pueden seguir, o -1 si puede seguir cualquiera
+     */
+    public int letrasSiguientes(int[] fila, char[] letras) {
+        int cantidad = 0;
+        for (int j = 0; j < patron.length; j++) {
+            if (fila[j] < distanciaMaxima)
+                return -1;
+            if (fila[j] == distanciaMaxima) {
+                if (patron[j] == COMODIN)
+                    return -1;
+                letras[cantidad++] = patron[j];
+            }
+        }
+        return fila[patron.length] < distanciaMaxima ? -1 : cantidad;
+    }
+
+    /**
+     * @param fila: estado después de leer una secuencia
+     * @return distancia de la secuencia al patrón, o -1 si pasa la distancia máxima
+     */
+    public int distancia(int[] fila) {
+        int valor = fila[fila.length - 1];
+        return valor <= distanciaMaxima ? valor : -1;
+    }
+}
@@ -0,0 +1,186 @@
+package sopaletras;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Medición de rendimiento de BuscadorPalabras sobre tableros generados.
+ * Para cada combinación de tamaño de tablero, distribución de letras y tamaño de
+ * diccionario, generada con GeneradorSopas, mide buscarPalabra y buscarTodasLasPalabras
+ * con todos los métodos. Por defecto incluye los tableros REPETITIVA y ADVERSARIA, los
+ * casos difíciles para TRIE, DFS y BFS.
+ * Cada medición tiene una fase de calentamiento para que el JIT compile el código,
+ * usa System.nanoTime y reporta rendimiento (op/s), tiempo promedio y bytes
+ * asignados por operación.
+ *
+ * Es una medición rápida para usar sin Maven: corre en un solo proceso y no tiene las
+ * protecciones de JMH contra la eliminación de código, así que sus números solo sirven
+ * para comparar versiones entre sí. Las mediciones de referencia son las de
+ * jmh/BenchmarkBusquedaJMH.java (mvn -P jmh package).
+ *
+ * Uso: java sopaletras.BenchmarkBuscador [--tamanos 4,15,50] [--diccionarios 100,10000]
+ *      [--distribuciones UNIFORME,REPETITIVA,ADVERSARIA] [--aciertos 0.5] [--calentamiento 1]
+ *      [--medicion 2] [--semilla 42] [--metricas si|no] [--compacto si|no|auto]
+ */
+public class BenchmarkBuscador {
+    private static final long NANOS_POR_SEGUNDO = 1_000_000_000L;
+    // Acumula los resultados para que el JIT no elimine las búsquedas medidas
+    private static volatile int sumidero;
+
+    private final double segundosCalentamiento;
+    private final double segundosMedicion;
+    private final com.sun.management.ThreadMXBean hilos;
+
+    public BenchmarkBuscador(double segundosCalentamiento, double segundosMedicion) {
+        this.segundosCalentamiento = segundosCalentamiento;
+        this.segundosMedicion = segundosMedicion;
+        this.hilos = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+    }
+
+    /**
+     * Resultado de una medición
+     * @param operaciones: cantidad de operaciones medidas
+     * @param nanos: tiempo total de las operaciones
+     * @param bytes: bytes asignados durante las operaciones
+     */
+    public record Medicion(long operaciones, long nanos, long bytes) {
+        public double operacionesPorSegundo() {
+            return operaciones * (double) NANOS_POR_SEGUNDO / nanos;
+        }
+
+        public double promedioMicros() {
+            return nanos / 1000.0 / operaciones;
+        }
+
+        public double bytesPorOperacion() {
+            return (double) bytes / operaciones;
+        }
+    }
+
+    /**
+     * Medir una operación: primero se ejecuta durante el calentamiento y luego
+     * se cuentan las ejecuciones que caben en el tiempo de medición
+     * @param operacion: operación a medir
+     * @return Medicion
+     */
+    public Medicion medir(Runnable operacion) {
+        long limite = System.nanoTime() + (long) (segundosCalentamiento * NANOS_POR_SEGUNDO);
+        do {
+            operacion.run();
+        } while (System.nanoTime() < limite);
+
+        long hilo = Thread.currentThread().getId();
+        long operaciones = 0;
+        long bytesInicial = hilos.getThreadAllocatedBytes(hilo);
+        long inicio = System.nanoTime();
+        limite = inicio + (long) (segundosMedicion * NANOS_POR_SEGUNDO);
+        long ahora;
+        do {
+            operacion.run();
+            operaciones++;
+            ahora = System.nanoTime();
+        } while (ahora < limite);
+        long bytes = hilos.getThreadAllocatedBytes(hilo) - bytesInicial;
+        return new Medicion(operaciones, ahora - inicio, bytes);
+    }
+
+    private static void imprimir(String nombre, int lado, GeneradorSopas.Distribucion distribucion, int palabras,
+            Medicion m) {
+        System.out.printf(Locale.ROOT, "%-38s %5d %-10s %8d %14.1f %14.3f %14.1f%n",
+                nombre, lado, distribucion, palabras, m.operacionesPorSegundo(), m.promedioMicros(),
+                m.bytesPorOperacion());
+    }
+
+    private static int[] leerEnteros(String valor) {
+        String[] partes = valor.split(",");
+        int[] numeros = new int[partes.length];
+        for (int i = 0; i < partes.length; i++) {
+            numeros[i] = Integer.parseInt(partes[i].trim());
+        }
+        return numeros;
+    }
+
+    public static void main(String[] args) {
+        int[] tamanos = {4, 15, 50};
+        int[] diccionarios = {100, 10_000};
+        GeneradorSopas.Distribucion[] distribuciones = {
+            GeneradorSopas.Distribucion.UNIFORME, GeneradorSopas.Distribucion.REPETITIVA,
+            GeneradorSopas.Distribucion.ADVERSARIA};
+        double aciertos = 0.5;
+        double calentamiento = 1, medicion = 2;
+        long semilla = 42;
+        String compacto = "auto";
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            switch (args[i]) {
+                case "--tamanos":
+                    tamanos = leerEnteros(args[i + 1]);
+                    break;
+                case "--diccionarios":
+                    diccionarios = leerEnteros(args[i + 1]);
+                    break;
+                case "--distribuciones":
+                    distribuciones = GeneradorSopas.leerDistribuciones(args[i + 1]);
+                    break;
+                case "--aciertos":
+                    aciertos = Double.parseDouble(args[i + 1]);
+                    break;
+                case "--calentamiento":
+                    calentamiento = Double.parseDouble(args[i + 1]);
+                    break;
+                case "--medicion":
+                    medicion = Double.parseDouble(args[i + 1]);
+                    break;
+                case "--semilla":
+                    semilla = Long.parseLong(args[i + 1]);
+                    break;
+                case "--metricas":
+                    // Con "no" se mide sin el costo de registrar MetricasBusqueda
+                    MetricasBusqueda.global().setActivas(!args[i + 1].equals("no"));
+                    break;
+                case "--compacto":
+                    // Con "auto" cada buscador decide según el tamaño del tablero
+                    compacto = args[i + 1];
+                    break;
+                default:
+                    throw new IllegalArgumentException("Opción desconocida: " + args[i]);
+            }
+        }
+
+        BenchmarkBuscador benchmark = new BenchmarkBuscador(calentamiento, medicion);
+        System.out.printf(Locale.ROOT, "%-38s %5s %-10s %8s %14s %14s %14s%n",
+                "Prueba", "Lado", "Letras", "Dic", "op/s", "us/op", "bytes/op");
+        for (int lado : tamanos) {
+            for (GeneradorSopas.Distribucion distribucion : distribuciones) {
+                for (int cantidad : diccionarios) {
+                    GeneradorSopas.SopaGenerada sopa = new GeneradorSopas(semilla)
+                            .sopa(lado, lado, distribucion, cantidad, aciertos);
+                    char[][] tablero = sopa.tablero();
+                    Set<String> diccionario = sopa.diccionario();
+                    List<String> palabras = new ArrayList<>(diccionario);
+                    BuscadorPalabras buscador = new BuscadorPalabras(tablero);
+                    if (!compacto.equals("auto"))
+                        buscador.setTableroCompacto(compacto.equals("si"));
+
+                    for (boolean usarBFS : new boolean[]{false, true}) {
+                        String sufijo = usarBFS ? "BFS" : "DFS";
+                        int[] siguiente = {0};
+                        Medicion m = benchmark.medir(() -> {
+                            if (buscador.buscarPalabra(palabras.get(siguiente[0]), usarBFS))
+                                sumidero++;
+                            siguiente[0] = (siguiente[0] + 1) % palabras.size();
+                        });
+                        imprimir("buscarPalabra " + sufijo, lado, distribucion, diccionario.size(), m);
+                    }
+                    for (MetodoBusqueda metodo : MetodoBusqueda.values()) {
+                        Medicion m = benchmark.medir(
+                                () -> sumidero += buscador.buscarTodasLasPalabras(diccionario, metodo).size());
+                        imprimir("buscarTodasLasPalabras " + metodo, lado, distribucion, diccionario.size(), m);
+                    }
+                }
+            }
+        }
+    }
+}
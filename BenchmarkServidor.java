@@ -0,0 +1,183 @@
+package sopaletras;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Prueba de carga de ServidorSopas: varios clientes envían peticiones a /resolver a la
+ * vez y se mide la latencia de cada una desde que se envía hasta que llega la respuesta
+ * completa. Reporta peticiones por segundo y los percentiles 50 y 99 de la latencia.
+ * Sin --url inicia un servidor en un puerto libre de localhost dentro del mismo proceso.
+ * Las sopas se generan con GeneradorSopas.
+ *
+ * Uso: java sopaletras.BenchmarkServidor [--url http://localhost:8080] [--clientes 8]
+ *      [--peticiones 2000] [--calentamiento 200] [--lado 15] [--palabras 200]
+ *      [--distribucion UNIFORME] [--precargado si|no] [--sopas 16] [--semilla 42]
+ */
+public class BenchmarkServidor {
+    // Nombre del diccionario generado que se precarga en el servidor interno con --precargado si
+    private static final String DICCIONARIO_PRECARGADO = "generado";
+
+    /**
+     * Resultado de una prueba de carga
+     * @param peticiones: peticiones enviadas
+     * @param errores: peticiones que no respondieron 200
+     * @param nanos: duración total de la prueba
+     * @param latencias: latencia de cada petición en nanosegundos, ordenadas
+     */
+    public record Carga(int peticiones, int errores, long nanos, long[] latencias) {
+        public double peticionesPorSegundo() {
+            return peticiones * 1e9 / nanos;
+        }
+
+        /**
+         * @param percentil: percentil entre 0 y 100
+         * @return latencia en milisegundos
+         */
+        public double percentilMillis(double percentil) {
+            if (latencias.length == 0)
+                return 0;
+            int i = (int) Math.ceil(percentil / 100 * latencias.length) - 1;
+            return latencias[Math.max(0, Math.min(latencias.length - 1, i))] / 1e6;
+        }
+    }
+
+    /**
+     * Enviar peticiones con varios clientes a la vez
+     * @param cliente: cliente HTTP compartido
+     * @param url: URL de /resolver, con sus parámetros
+     * @param cuerpos: sopas a enviar, se usan por turno
+     * @param clientes: cantidad de peticiones en curso a la vez
+     * @param peticiones: cantidad total de peticiones
+     * @return Carga
+     */
+    static Carga cargar(HttpClient cliente, URI url, byte[][] cuerpos, int clientes, int peticiones)
+            throws InterruptedException {
+        long[] latencias = new long[peticiones];
+        AtomicInteger siguiente = new AtomicInteger();
+        AtomicInteger errores = new AtomicInteger();
+        ExecutorService hilos = Executors.newFixedThreadPool(clientes);
+        long inicio = System.nanoTime();
+        for (int c = 0; c < clientes; c++) {
+            hilos.execute(() -> {
+                for (int i = siguiente.getAndIncrement(); i < peticiones; i = siguiente.getAndIncrement()) {
+                    HttpRequest peticion = HttpRequest.newBuilder(url)
+                        .POST(HttpRequest.BodyPublishers.ofByteArray(cuerpos[i % cuerpos.length])).build();
+                    long antes = System.nanoTime();
+                    try {
+                        HttpResponse<byte[]> respuesta = cliente.send(peticion, HttpResponse.BodyHandlers.ofByteArray());
+                        if (respuesta.statusCode() != 200)
+                            errores.incrementAndGet();
+                    } catch (IOException ex) {
+                        errores.incrementAndGet();
+                    } catch (InterruptedException ex) {
+                        Thread.currentThread().interrupt();
+                        return;
+                    }
+                    latencias[i] = System.nanoTime() - antes;
+                }
+            });
+        }
+        hilos.shutdown();
+        hilos.awaitTermination(1, TimeUnit.DAYS);
+        long nanos = System.nanoTime() - inicio;
+        Arrays.sort(latencias);
+        return new Carga(peticiones, errores.get(), nanos, latencias);
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        String url = null;
+        int clientes = 8, peticiones = 2000, calentamiento = 200, lado = 15, palabras = 200, sopas = 16;
+        GeneradorSopas.Distribucion distribucion = GeneradorSopas.Distribucion.UNIFORME;
+        boolean precargado = false;
+        long semilla = 42;
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            switch (args[i]) {
+                case "--url":
+                    url = args[i + 1];
+                    break;
+                case "--clientes":
+                    clientes = Integer.parseInt(args[i + 1]);
+                    break;
+                case "--peticiones":
+                    peticiones = Integer.parseInt(args[i + 1]);
+                    break;
+                case "--calentamiento":
+                    calentamiento = Integer.parseInt(args[i + 1]);
+                    break;
+                case "--lado":
+                    lado = Integer.parseInt(args[i + 1]);
+                    break;
+                case "--palabras":
+                    palabras = Integer.parseInt(args[i + 1]);
+                    break;
+                case "--distribucion":
+                    distribucion = GeneradorSopas.Distribucion.valueOf(args[i + 1].toUpperCase(Locale.ROOT));
+                    break;
+                case "--sopas":
+                    sopas = Integer.parseInt(args[i + 1]);
+                    break;
+                case "--precargado":
+                    // Con "si" las peticiones solo llevan el tablero y usan el diccionario del servidor
+                    precargado = args[i + 1].equals("si");
+                    break;
+                case "--semilla":
+                    semilla = Long.parseLong(args[i + 1]);
+                    break;
+                default:
+                    throw new IllegalArgumentException("Opción desconocida: " + args[i]);
+            }
+        }
+
+        GeneradorSopas generador = new GeneradorSopas(semilla);
+        byte[][] cuerpos = new byte[sopas][];
+        TrieDiccionario compartido = new TrieDiccionario();
+        for (int i = 0; i < sopas; i++) {
+            GeneradorSopas.SopaGenerada sopa = generador.sopa(lado, lado, distribucion, palabras, 0.5);
+            sopa.diccionario().forEach(compartido::insertar);
+            cuerpos[i] = GeneradorSopas.escribirSopa(sopa.tablero(), precargado ? null : sopa.diccionario());
+        }
+
+        ServidorSopas servidor = null;
+        if (url == null) {
+            // Este programa es dueño del proceso, así que puede elegir la opción que a ServidorSopas
+            // se le pasa al lanzar la JVM; sin ella cada respuesta espera el ACK retrasado del cliente
+            if (System.getProperty("sun.net.httpserver.nodelay") == null)
+                System.setProperty("sun.net.httpserver.nodelay", "true");
+            IndiceDiccionario indice = DiccionarioInmutable.desde(compartido).indice();
+            servidor = new ServidorSopas(Map.of(DICCIONARIO_PRECARGADO, indice), ServidorSopas.MAX_BYTES_POR_DEFECTO,
+                2 * Runtime.getRuntime().availableProcessors());
+            servidor.iniciar(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+            url = "http://localhost:" + servidor.getPuerto();
+            System.out.println("Servidor interno en " + url
+                + (ServidorSopas.usaHilosVirtuales() ? " con hilos virtuales" : " con un grupo fijo de hilos"));
+        }
+        URI destino = URI.create(url + "/resolver" + (precargado ? "?diccionario=" + DICCIONARIO_PRECARGADO : ""));
+        HttpClient cliente = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+        try {
+            if (calentamiento > 0)
+                cargar(cliente, destino, cuerpos, clientes, calentamiento);
+            Carga carga = cargar(cliente, destino, cuerpos, clientes, peticiones);
+            System.out.printf(Locale.ROOT, "%-10s %8s %8s %12s %10s %10s %10s%n",
+                "Clientes", "Pet", "Errores", "pet/s", "p50 ms", "p99 ms", "max ms");
+            System.out.printf(Locale.ROOT, "%-10d %8d %8d %12.1f %10.3f %10.3f %10.3f%n",
+                clientes, carga.peticiones(), carga.errores(), carga.peticionesPorSegundo(),
+                carga.percentilMillis(50), carga.percentilMillis(99), carga.percentilMillis(100));
+        } finally {
+            if (servidor != null)
+                servidor.detener();
+        }
+    }
+}
@@ -1,20 +1,139 @@
 package sopaletras;
 
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.HashSet;
-import java.util.LinkedList;
-import java.util.Queue;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicIntegerArray;
 
 /**
- * Clase que contiene la lógica para buscar palabras en el tablero usando DFS o BFS
+ * Clase que contiene la lógica para buscar palabras en el tablero usando DFS, BFS
+ * o un recorrido único guiado por un trie con todo el diccionario. También busca
+ * palabras en línea recta en las 8 direcciones, con o sin vuelta por los bordes,
+ * recorriendo cada fila, columna y diagonal con un autómata de Aho-Corasick, y
+ * patrones con comodines o a distancia de edición acotada con un autómata de Levenshtein.
+ * El tablero puede tener cualquier tamaño N×M; internamente se guarda en un
+ * arreglo plano por filas (celda = fila * columnas + col) junto con una tabla
+ * precalculada de vecinos, así las búsquedas no hacen revisiones de bordes.
+ * Los caminos de las palabras encontradas se devuelven con ese mismo número de celda.
  */
 public class BuscadorPalabras {
-    private char[][] tablero;
+    // Cantidad máxima de caminos en la frontera BFS antes de terminar con DFS
+    public static final int CAPACIDAD_BFS_POR_DEFECTO = 1 << 16;
+    // Desde esta cantidad de celdas DFS usa el tablero compacto con mapas de bits
+    public static final int MIN_CELDAS_COMPACTO = 32 * 32;
+    // Máximo de palabras de 64 bits en los mapas de celdas posibles de una consulta (8 MB)
+    private static final long MAX_PALABRAS_MAPAS = 1 << 20;
+    private static final Direccion[] DIRECCIONES = Direccion.values();
+
+    private final int filas;
+    private final int columnas;
+    private final char[] celdas;
+    private final TablaVecinos tabla;
+    // Vecinos de la celda i: vecinos[inicioVecinos[i]] .. vecinos[inicioVecinos[i + 1] - 1]
+    private final int[] inicioVecinos;
+    private final int[] vecinos;
+    private final IndiceTablero indice;
+    private final long huella;
+    private TableroCompacto compacto;
+    private int capacidadMaximaBFS = CAPACIDAD_BFS_POR_DEFECTO;
+    private MetricasBusqueda metricas = MetricasBusqueda.global();
 
     public BuscadorPalabras(char[][] tablero) {
-        this.tablero = tablero;
-    } 
-    
+        this.filas = tablero.length;
+        this.columnas = filas == 0 ? 0 : tablero[0].length;
+        this.celdas = new char[filas * columnas];
+        for (int row = 0; row < filas; row++) {
+            if (tablero[row].length != columnas)
+                throw new IllegalArgumentException("Todas las filas del tablero deben tener el mismo tamaño");
+            System.arraycopy(tablero[row], 0, celdas, row * columnas, columnas);
+        }
+        this.tabla = new TablaVecinos(filas, columnas);
+        this.inicioVecinos = tabla.inicio;
+        this.vecinos = tabla.vecinos;
+        this.indice = new IndiceTablero(celdas, inicioVecinos, vecinos);
+        this.huella = CacheResultados.huellaTablero(filas, columnas, celdas);
+        setTableroCompacto(celdas.length >= MIN_CELDAS_COMPACTO);
+    }
+
+    public int getFilas() {
+        return filas;
+    }
+
+    public int getColumnas() {
+        return columnas;
+    }
+
+    /**
+     * @return huella de 64 bits del tablero, usada como clave en CacheResultados
+     */
+    public long huella() {
+        return huella;
+    }
+
+    /**
+     * @return índice de letras, posiciones y pares vecinos del tablero
+     */
+    public IndiceTablero getIndice() {
+        return indice;
+    }
+
+    public MetricasBusqueda getMetricas() {
+        return metricas;
+    }
+
+    /**
+     * Cambiar dónde se registran las métricas de este buscador
+     * @param metricas: métricas a usar; por defecto MetricasBusqueda.global()
+     */
+    public void setMetricas(MetricasBusqueda metricas) {
+        this.metricas = metricas;
+    }
+
+    public int getCapacidadMaximaBFS() {
+        return capacidadMaximaBFS;
+    }
+
+    /**
+     * Cambiar la cantidad máxima de caminos que puede tener la frontera BFS.
+     * Si una búsqueda la alcanza, termina esa celda inicial con DFS, que da la misma respuesta.
+     * @param capacidadMaximaBFS: cantidad máxima de caminos, al menos 1
+     */
+    public void setCapacidadMaximaBFS(int capacidadMaximaBFS) {
+        if (capacidadMaximaBFS < 1)
+            throw new IllegalArgumentException("La capacidad de la frontera BFS debe ser al menos 1");
+        this.capacidadMaximaBFS = capacidadMaximaBFS;
+    }
+
+    /**
+     * @return true si las búsquedas DFS de una palabra usan el tablero compacto
+     */
+    public boolean usaTableroCompacto() {
+        return compacto != null;
+    }
+
+    /**
+     * Elegir si las búsquedas DFS de una palabra usan el tablero compacto (TableroCompacto).
+     * Por defecto se usa en tableros de al menos MIN_CELDAS_COMPACTO celdas, donde calcular
+     * con mapas de bits las celdas posibles de cada letra evita recorrer ramas sin salida.
+     * Con más de TableroCompacto.MAX_LETRAS letras distintas no se puede usar.
+     * @param usar: bool
+     */
+    public void setTableroCompacto(boolean usar) {
+        if (!usar || indice.cantidadLetras() > TableroCompacto.MAX_LETRAS) {
+            compacto = null;
+        } else if (compacto == null) {
+            compacto = new TableroCompacto(celdas, filas, columnas, indice);
+        }
+    }
+
     /**
      * Método para buscar una palabra dado un método (BFS o DFS)
      * @param palabra: palabra a buscar
@@ -22,91 +141,691 @@ public class BuscadorPalabras {
      * @return bool
      */
     public boolean buscarPalabra(String palabra, boolean usarBFS) {
-        if (palabra == null || palabra.isEmpty())
-            return false;
-            
-        char primeraLetra = palabra.charAt(0);
-        for (int row = 0; row < 4; row++) {
-            for (int col = 0; col < 4; col++) {
-                if (tablero[row][col] == primeraLetra) {
-                    if (usarBFS) {
-                        if (busquedaBFS(palabra, row, col)) {
-                            return true;
-                        }
-                    } else {
-                        boolean[][] visitados = new boolean[4][4];
-                        if (busquedaDFS(palabra, row, col, 0, visitados)) {
-                            return true;
-                        }
+        return buscarPalabra(palabra, usarBFS ? MetodoBusqueda.BFS : MetodoBusqueda.DFS);
+    }
+
+    /**
+     * Método para buscar una palabra dado un método de búsqueda.
+     * Para una sola palabra el recorrido con trie equivale a DFS, así que se usa DFS.
+     * Antes de recorrer se descartan con el índice del tablero las palabras que no pueden
+     * estar, y el recorrido solo comienza en las celdas que tienen la primera letra.
+     * La consulta trabaja sobre arreglos auxiliares del hilo y no reserva memoria.
+     * @param palabra: palabra a buscar
+     * @param metodo: método de búsqueda a usar
+     * @return bool
+     */
+    public boolean buscarPalabra(String palabra, MetodoBusqueda metodo) {
+        return consultar(palabra, metodo, null);
+    }
+
+    /**
+     * Buscar una palabra con BFS registrando el árbol de recorrido en el mismo recorrido,
+     * para poder mostrarlo después sin repetir la búsqueda
+     * @param palabra: palabra a buscar
+     * @param arbol: árbol donde registrar los nodos de la frontera
+     * @return bool
+     */
+    public boolean buscarPalabra(String palabra, ArbolBFS arbol) {
+        return consultar(palabra, MetodoBusqueda.BFS, arbol);
+    }
+
+    /**
+     * Buscar una palabra y devolver las celdas de la aparición encontrada, tomadas del
+     * mismo recorrido que la encontró. El camino solo se copia cuando la palabra está,
+     * así que cuesta lo mismo que buscarPalabra.
+     * @param palabra: palabra a buscar
+     * @param metodo: método de búsqueda a usar
+     * @return celdas de la palabra en orden (celda = fila * columnas + col), o null si no está
+     */
+    public int[] buscarCamino(String palabra, MetodoBusqueda metodo) {
+        return consultarCamino(palabra, metodo, null);
+    }
+
+    /**
+     * Buscar una palabra con BFS registrando el árbol de recorrido y devolver las celdas
+     * de la aparición encontrada
+     * @param palabra: palabra a buscar
+     * @param arbol: árbol donde registrar los nodos de la frontera
+     * @return celdas de la palabra en orden (celda = fila * columnas + col), o null si no está
+     */
+    public int[] buscarCamino(String palabra, ArbolBFS arbol) {
+        return consultarCamino(palabra, MetodoBusqueda.BFS, arbol);
+    }
+
+    private int[] consultarCamino(String palabra, MetodoBusqueda metodo, ArbolBFS arbol) {
+        EstadoBusqueda estado = ESTADO.get();
+        estado.guardarCamino = true;
+        try {
+            return consultar(palabra, metodo, arbol) ? Arrays.copyOf(estado.camino, palabra.length()) : null;
+        } finally {
+            estado.guardarCamino = false;
+        }
+    }
+
+    /**
+     * Buscar todas las apariciones de una palabra como caminos entre celdas vecinas sin
+     * repetir celdas (como DFS, BFS y TRIE). Dos apariciones son distintas si difieren en
+     * alguna celda o en el orden; un palíndromo aparece también al revés.
+     * @param palabra: palabra a buscar
+     * @param maximo: cantidad máxima de caminos a devolver
+     * @return caminos de la palabra (celda = fila * columnas + col), en el orden del recorrido
+     */
+    public List<int[]> buscarCaminos(String palabra, int maximo) {
+        List<int[]> caminos = new ArrayList<>();
+        if (palabra == null || palabra.isEmpty() || maximo < 1 || !indice.puedeExistir(palabra))
+            return caminos;
+        int largo = palabra.length();
+        int[] pilaCeldas = new int[largo];
+        int[] pilaVecinos = new int[largo];
+        boolean[] usadas = new boolean[celdas.length];
+        int primeraLetra = indice.codigo(palabra.charAt(0));
+        for (int i = indice.inicio(primeraLetra); i < indice.fin(primeraLetra) && caminos.size() < maximo; i++) {
+            tabla.caminosDesde(celdas, palabra, indice.posicion(i), maximo - caminos.size(), caminos,
+                pilaCeldas, pilaVecinos, usadas);
+        }
+        return caminos;
+    }
+
+    /**
+     * Buscar un patrón con comodines: cada '?' coincide con cualquier letra. Todas las
+     * variantes del patrón se prueban en el mismo recorrido del tablero.
+     * @param patron: letras a buscar, con '?' para cualquier letra
+     * @param metodo: con un método en línea recta se busca en línea recta; con los demás,
+     *                caminos entre celdas vecinas sin repetir celdas
+     * @return secuencias del tablero que coinciden, en orden alfabético
+     */
+    public List<CoincidenciaAproximada> buscarPatron(String patron, MetodoBusqueda metodo) {
+        return buscarAproximadas(patron, 0, metodo);
+    }
+
+    /**
+     * Buscar las secuencias del tablero a distancia de edición acotada de un patrón, que
+     * puede tener comodines '?'. En lugar de buscar cada variante por separado, el tablero
+     * se recorre una sola vez desde cada celda llevando el estado de un AutomataLevenshtein,
+     * y cada camino se poda apenas ninguna continuación puede quedar dentro de la distancia.
+     * @param patron: letras a buscar, con '?' para cualquier letra
+     * @param distanciaMaxima: distancia de edición máxima, entre 0 y el largo del patrón menos 1
+     * @param metodo: con un método en línea recta se busca en línea recta; con los demás,
+     *                caminos entre celdas vecinas sin repetir celdas
+     * @return una coincidencia por secuencia distinta con una de sus apariciones, ordenadas
+     *         por distancia y después alfabéticamente
+     */
+    public List<CoincidenciaAproximada> buscarAproximadas(String patron, int distanciaMaxima, MetodoBusqueda metodo) {
+        long inicio = System.nanoTime();
+        AutomataLevenshtein automata = new AutomataLevenshtein(patron, distanciaMaxima);
+        Map<String, CoincidenciaAproximada> encontradas = new HashMap<>();
+        ContadoresRecorrido contadores = new ContadoresRecorrido();
+        int largo = Math.min(automata.largoMaximo(), celdas.length);
+        if (largo > 0 && (distanciaMaxima > 0 || letrasEnTablero(patron))) {
+            int[][] estados = new int[largo + 1][automata.largoFila()];
+            automata.inicial(estados[0]);
+            char[][] siguientes = new char[largo + 1][automata.largoFila() - 1];
+            char[] letras = new char[largo];
+            int[] camino = new int[largo];
+            boolean[] visitados = metodo.esLineal() ? null : new boolean[celdas.length];
+            // Sin ediciones la primera celda tiene que coincidir con la primera letra del patrón
+            boolean todas = distanciaMaxima > 0 || patron.charAt(0) == AutomataLevenshtein.COMODIN;
+            int primeraLetra = todas ? IndiceTablero.NINGUNA : indice.codigo(patron.charAt(0));
+            int desde = todas ? 0 : indice.inicio(primeraLetra);
+            int hasta = todas ? celdas.length : indice.fin(primeraLetra);
+            for (int i = desde; i < hasta && !Thread.currentThread().isInterrupted(); i++) {
+                int celda = todas ? i : indice.posicion(i);
+                if (visitados != null) {
+                    recorrerAproximadas(automata, celda, 0, visitados, estados, siguientes, letras, camino,
+                        encontradas, contadores);
+                } else {
+                    for (Direccion direccion : DIRECCIONES) {
+                        recorrerLineaAproximada(automata, celda, direccion, metodo == MetodoBusqueda.LINEAL_TOROIDAL,
+                            estados, letras, camino, encontradas, contadores);
                     }
                 }
             }
         }
+        List<CoincidenciaAproximada> resultado = new ArrayList<>(encontradas.values());
+        resultado.sort(Comparator.comparingInt(CoincidenciaAproximada::distancia)
+            .thenComparing(CoincidenciaAproximada::palabra));
+        if (metricas.isActivas()) {
+            metricas.registrarConsulta(metodo, System.nanoTime() - inicio);
+            metricas.registrarTrabajo(metodo, 1, resultado.isEmpty() ? 0 : 1, 0, contadores.nodos, contadores.podadas,
+                contadores.profundidadMaxima, 0);
+        }
+        return resultado;
+    }
+
+    /**
+     * @param patron: patrón con comodines
+     * @return true si todas las letras del patrón que no son comodines están en el tablero
+     */
+    private boolean letrasEnTablero(String patron) {
+        for (int i = 0; i < patron.length(); i++) {
+            char letra = patron.charAt(i);
+            if (letra != AutomataLevenshtein.COMODIN && indice.codigo(letra) == IndiceTablero.NINGUNA)
+                return false;
+        }
+        return true;
+    }
+
+    /**
+     * Recorrido en profundidad de los caminos entre celdas vecinas llevando el estado del
+     * autómata; como recorrerTrie, pero la poda la decide el autómata en lugar del trie
+     * @param automata: autómata del patrón
+     * @param celda: celda actual
+     * @param profundidad: posición de la celda actual en el camino
+     * @param visitados: celdas usadas por el camino actual
+     * @param estados: estados[i] es el estado después de leer las primeras i celdas del camino
+     * @param siguientes: siguientes[i] guarda las letras que pueden seguir a estados[i]
+     * @param letras: letras del camino actual
+     * @param camino: celdas del camino actual
+     * @param encontradas: coincidencias por secuencia
+     * @param contadores: contadores del recorrido para las métricas
+     */
+    private void recorrerAproximadas(AutomataLevenshtein automata, int celda, int profundidad, boolean[] visitados,
+                                     int[][] estados, char[][] siguientes, char[] letras, int[] camino,
+                                     Map<String, CoincidenciaAproximada> encontradas, ContadoresRecorrido contadores) {
+        contadores.nodos++;
+        if (!automata.avanzar(estados[profundidad], celdas[celda], estados[profundidad + 1])) {
+            contadores.podadas++;
+            return;
+        }
+        contadores.profundidadMaxima = Math.max(contadores.profundidadMaxima, profundidad + 1);
+        letras[profundidad] = celdas[celda];
+        camino[profundidad] = celda;
+        guardarAproximada(automata.distancia(estados[profundidad + 1]), profundidad + 1, letras, camino, encontradas);
+        if (profundidad + 1 == letras.length)
+            return;
+        char[] permitidas = siguientes[profundidad + 1];
+        int cantidad = automata.letrasSiguientes(estados[profundidad + 1], permitidas);
+        visitados[celda] = true;
+        for (int v = inicioVecinos[celda]; v < inicioVecinos[celda + 1]; v++) {
+            int vecino = vecinos[v];
+            if (visitados[vecino])
+                continue;
+            if (cantidad >= 0 && !contiene(permitidas, cantidad, celdas[vecino])) {
+                contadores.podadas++;
+                continue;
+            }
+            recorrerAproximadas(automata, vecino, profundidad + 1, visitados, estados, siguientes, letras, camino,
+                encontradas, contadores);
+        }
+        visitados[celda] = false;
+    }
+
+    private static boolean contiene(char[] letras, int cantidad, char letra) {
+        for (int i = 0; i < cantidad; i++) {
+            if (letras[i] == letra)
+                return true;
+        }
         return false;
     }
-    
+
     /**
-     * Método para búsqueda en profundidad de un grafo (DFS)
-     * @param palabra: es la palabra específica a buscar
-     * @param fila: fila del tablero en la que buscar
-     * @param col: columna del tablero en la que buscar
-     * @param index: índice del nodo actual
-     * @param visitados: nodos que han sido visitados
-     * @return true si se encontró la palabra, false de lo contrario
+     * Recorrer una línea recta desde una celda llevando el estado del autómata, hasta
+     * que se poda, se sale del tablero o se llega al largo máximo
+     * @param automata: autómata del patrón
+     * @param inicial: celda inicial
+     * @param direccion: dirección de la línea
+     * @param toroidal: si la línea sigue del otro lado al llegar a un borde
+     * @param estados: estados[i] es el estado después de leer las primeras i celdas
+     * @param letras: letras de la línea
+     * @param camino: celdas de la línea
+     * @param encontradas: coincidencias por secuencia
+     * @param contadores: contadores del recorrido para las métricas
      */
-    private boolean busquedaDFS(String palabra, int fila, int col, int index, boolean[][] visitados) {
-        if (index == palabra.length()) {
-            return true;
+    private void recorrerLineaAproximada(AutomataLevenshtein automata, int inicial, Direccion direccion, boolean toroidal,
+                                         int[][] estados, char[] letras, int[] camino,
+                                         Map<String, CoincidenciaAproximada> encontradas,
+                                         ContadoresRecorrido contadores) {
+        int largo = toroidal ? Math.min(letras.length, largoCiclo(direccion)) : letras.length;
+        int r = inicial / columnas;
+        int c = inicial % columnas;
+        for (int i = 0; i < largo; i++) {
+            if (i > 0) {
+                r = toroidal ? Math.floorMod(r + direccion.getPasoFila(), filas) : r + direccion.getPasoFila();
+                c = toroidal ? Math.floorMod(c + direccion.getPasoColumna(), columnas) : c + direccion.getPasoColumna();
+                if (!dentro(r, c))
+                    return;
+            }
+            int celda = r * columnas + c;
+            contadores.nodos++;
+            if (!automata.avanzar(estados[i], celdas[celda], estados[i + 1])) {
+                contadores.podadas++;
+                return;
+            }
+            contadores.profundidadMaxima = Math.max(contadores.profundidadMaxima, i + 1);
+            letras[i] = celdas[celda];
+            camino[i] = celda;
+            guardarAproximada(automata.distancia(estados[i + 1]), i + 1, letras, camino, encontradas);
         }
-        if (fila < 0 || fila >= 4 || col < 0 || col >= 4 || visitados[fila][col] || 
-            tablero[fila][col] != palabra.charAt(index)) {
+    }
+
+    /**
+     * Guardar una secuencia que coincide, si todavía no estaba; la distancia depende solo
+     * de las letras, así que otra aparición de la misma secuencia no cambia nada
+     * @param distancia: distancia al patrón, o -1 si no coincide
+     * @param largo: largo de la secuencia
+     * @param letras: letras de la secuencia
+     * @param camino: celdas de la secuencia
+     * @param encontradas: coincidencias por secuencia
+     */
+    private static void guardarAproximada(int distancia, int largo, char[] letras, int[] camino,
+                                          Map<String, CoincidenciaAproximada> encontradas) {
+        if (distancia < 0)
+            return;
+        String palabra = new String(letras, 0, largo);
+        if (!encontradas.containsKey(palabra))
+            encontradas.put(palabra, new CoincidenciaAproximada(palabra, distancia, Arrays.copyOf(camino, largo)));
+    }
+
+    private boolean consultar(String palabra, MetodoBusqueda metodo, ArbolBFS arbol) {
+        if (palabra == null || palabra.isEmpty())
+            return false;
+        // Estado auxiliar del hilo: la consulta no reserva memoria salvo la primera vez o si
+        // la palabra o el tablero son más grandes que los anteriores
+        EstadoBusqueda estado = ESTADO.get();
+        if (!metricas.isActivas())
+            return buscarPalabra(palabra, metodo, estado, arbol);
+        long inicio = System.nanoTime();
+        estado.reiniciarContadores();
+        boolean encontrada = buscarPalabra(palabra, metodo, estado, arbol);
+        metricas.registrarConsulta(metodo, System.nanoTime() - inicio);
+        registrarTrabajo(metodo, estado);
+        return encontrada;
+    }
+
+    /**
+     * Buscar una palabra sumando el trabajo hecho a los contadores del estado
+     * @param palabra: palabra a buscar, no vacía
+     * @param metodo: método de búsqueda a usar
+     * @param estado: estado auxiliar del hilo
+     * @param arbol: árbol donde registrar el recorrido BFS, o null
+     * @return bool
+     */
+    private boolean buscarPalabra(String palabra, MetodoBusqueda metodo, EstadoBusqueda estado, ArbolBFS arbol) {
+        estado.probadas++;
+        int largo = palabra.length();
+        TableroCompacto tablero = metodo != MetodoBusqueda.BFS && !metodo.esLineal() ? compacto : null;
+        estado.preparar(largo, tablero != null ? tablero.cantidadCeldas() : celdas.length, indice.cantidadLetras());
+        palabra.getChars(0, largo, estado.palabra, 0);
+        if (metodo.esLineal()) {
+            boolean encontrada = busquedaLineal(estado, largo, metodo == MetodoBusqueda.LINEAL_TOROIDAL);
+            if (encontrada)
+                estado.encontradas++;
+            return encontrada;
+        }
+        if (!indice.puedeExistir(estado.palabra, largo, estado.codigos, estado.usadas)) {
+            estado.descartadas++;
             return false;
         }
-        visitados[fila][col] = true;
-        
-        for (int r = fila - 1; r <= fila + 1; r++) {
-            for (int c = col - 1; c <= col + 1; c++) {
-                if (r == fila && c == col) continue;
-                if (busquedaDFS(palabra, r, c, index + 1, visitados)) {
+
+        int primeraLetra = estado.codigos[0];
+        int epoca = estado.nuevaEpoca();
+        // Con el tablero compacto, DFS recorre hasta lo que costaría calcular los mapas de
+        // celdas posibles; si se pasa, la palabra se ramifica mucho y se sigue con los mapas
+        long palabrasMapas = tablero != null ? (long) largo * tablero.longitudMapa() : Long.MAX_VALUE;
+        estado.presupuesto = palabrasMapas <= MAX_PALABRAS_MAPAS
+                ? palabrasMapas / TableroCompacto.palabrasPorNodo() : Long.MAX_VALUE;
+        ColaBFS cola = null;
+        for (int i = indice.inicio(primeraLetra); i < indice.fin(primeraLetra); i++) {
+            int celda = indice.posicion(i);
+            if (metodo == MetodoBusqueda.BFS) {
+                if (cola == null) {
+                    cola = new ColaBFS(largo, capacidadMaximaBFS);
+                }
+                if (busquedaBFS(estado, largo, celda, epoca, cola, arbol)) {
+                    estado.encontradas++;
                     return true;
                 }
+            } else if (busquedaDFS(estado, largo, celda, epoca)) {
+                estado.encontradas++;
+                return true;
+            } else if (estado.presupuesto < 0) {
+                boolean encontrada = busquedaCompacta(tablero, estado, largo, estado.nuevaEpoca());
+                if (encontrada)
+                    estado.encontradas++;
+                return encontrada;
             }
         }
-        visitados[fila][col] = false;
         return false;
     }
-    
+
     /**
-     * Búsqueda en anchura (BFS) de una palabra específica
-     * @param palabra: palabra a buscar
-     * @param filaInicial: fila donde comenzar la búsqueda
-     * @param columnaInicial: columna donde empezar la búsqueda
+     * Estado auxiliar de las búsquedas de una palabra, uno por hilo.
+     * Las celdas visitadas se marcan con el número de la consulta (época), así que
+     * no hay que limpiar el arreglo entre consultas ni entre tableros distintos.
+     */
+    private static final class EstadoBusqueda {
+        char[] palabra = new char[16];
+        int[] codigos = new int[16];
+        // Pila del DFS: celda de cada nivel y próximo vecino a revisar
+        int[] pilaCeldas = new int[16];
+        int[] pilaVecinos = new int[16];
+        int[] usadas = new int[32];
+        int[] marcas = new int[16];
+        int epoca;
+        // Si guardarCamino está activo, las búsquedas dejan en camino las celdas de la palabra encontrada
+        boolean guardarCamino;
+        int[] camino = new int[16];
+        // Nodos que DFS puede expandir antes de pasar al tablero compacto
+        long presupuesto = Long.MAX_VALUE;
+        // Celdas posibles de cada letra en el tablero compacto
+        long[][] niveles = new long[0][];
+        // Contadores de la consulta o búsqueda completa actual para las métricas
+        long probadas;
+        long encontradas;
+        long descartadas;
+        long nodos;
+        long podadas;
+        int profundidadMaxima;
+        int fronteraMaxima;
+
+        void reiniciarContadores() {
+            probadas = 0;
+            encontradas = 0;
+            descartadas = 0;
+            nodos = 0;
+            podadas = 0;
+            profundidadMaxima = 0;
+            fronteraMaxima = 0;
+        }
+
+        void preparar(int largo, int cantidadCeldas, int cantidadLetras) {
+            if (palabra.length < largo) {
+                int capacidad = Math.max(largo, palabra.length * 2);
+                palabra = new char[capacidad];
+                codigos = new int[capacidad];
+                pilaCeldas = new int[capacidad];
+                pilaVecinos = new int[capacidad];
+                camino = new int[capacidad];
+            }
+            if (usadas.length < cantidadLetras)
+                usadas = new int[Math.max(cantidadLetras, usadas.length * 2)];
+            if (marcas.length < cantidadCeldas)
+                marcas = new int[Math.max(cantidadCeldas, marcas.length * 2)];
+        }
+
+        /**
+         * Reservar los mapas de celdas posibles para una palabra
+         * @param largo: largo de la palabra
+         * @param longitudMapa: largo de un mapa del tablero compacto
+         * @return al menos largo mapas de longitudMapa
+         */
+        long[][] prepararNiveles(int largo, int longitudMapa) {
+            if (niveles.length < largo || (niveles.length > 0 && niveles[0].length != longitudMapa)) {
+                int cantidad = niveles.length > 0 && niveles[0].length == longitudMapa
+                        ? Math.max(largo, niveles.length * 2) : largo;
+                long[][] nuevos = Arrays.copyOf(niveles, cantidad);
+                for (int i = 0; i < cantidad; i++) {
+                    if (nuevos[i] == null || nuevos[i].length != longitudMapa)
+                        nuevos[i] = new long[longitudMapa];
+                }
+                niveles = nuevos;
+            }
+            return niveles;
+        }
+
+        int nuevaEpoca() {
+            if (++epoca == Integer.MAX_VALUE) {
+                Arrays.fill(marcas, 0);
+                epoca = 1;
+            }
+            return epoca;
+        }
+
+        /**
+         * Guardar el camino de la palabra encontrada, si se pidió
+         * @param celdas: celdas del camino salvo la última
+         * @param cantidad: cantidad de celdas en celdas
+         * @param ultima: última celda del camino
+         */
+        void guardarCamino(int[] celdas, int cantidad, int ultima) {
+            if (!guardarCamino)
+                return;
+            System.arraycopy(celdas, 0, camino, 0, cantidad);
+            camino[cantidad] = ultima;
+        }
+    }
+
+    /**
+     * Búsqueda DFS sobre el tablero compacto. Primero calcula con mapas de bits las celdas
+     * posibles de cada letra (las que pueden seguir hasta el final de la palabra) y después
+     * recorre como busquedaDFS, pero comenzando solo en las celdas posibles de la primera
+     * letra y entrando solo a celdas posibles de la letra siguiente.
+     * @param tablero: tablero compacto de este buscador
+     * @param estado: estado del hilo con la palabra y los códigos de IndiceTablero ya calculados
+     * @param largo: largo de la palabra
+     * @param epoca: marca de las celdas visitadas en esta consulta
      * @return bool
      */
-    private boolean busquedaBFS(String palabra, int filaInicial, int columnaInicial) {
-        Queue<NodoBFS> cola = new LinkedList<>();
-        cola.add(new NodoBFS(filaInicial, columnaInicial, 0, null));
+    private static boolean busquedaCompacta(TableroCompacto tablero, EstadoBusqueda estado, int largo, int epoca) {
+        int[] codigos = estado.codigos;
+        for (int i = 0; i < largo; i++) {
+            codigos[i]++;
+        }
+        long[][] niveles = estado.prepararNiveles(largo, tablero.longitudMapa());
+        if (!tablero.celdasPosibles(codigos, largo, niveles)) {
+            estado.podadas++;
+            return false;
+        }
+        if (largo == 1) {
+            estado.guardarCamino(estado.pilaCeldas, 0, celdaDe(tablero, tablero.siguiente(niveles[0], 0)));
+            return true;
+        }
+        int[] desplazamientos = tablero.desplazamientos();
+        int[] marcas = estado.marcas;
+        int[] pilaCeldas = estado.pilaCeldas;
+        int[] pilaVecinos = estado.pilaVecinos;
+        long nodos = 0;
+        long podadas = 0;
+        int profundidad = 1;
+        boolean encontrada = false;
+        for (int inicial = tablero.siguiente(niveles[0], 0); inicial >= 0 && !encontrada;
+             inicial = tablero.siguiente(niveles[0], inicial + 1)) {
+            nodos++;
+            int nivel = 0;
+            pilaCeldas[0] = inicial;
+            pilaVecinos[0] = 0;
+            marcas[inicial] = epoca;
+            while (nivel >= 0) {
+                int celda = pilaCeldas[nivel];
+                long[] posibles = niveles[nivel + 1];
+                int k = pilaVecinos[nivel];
+                int vecino = 0;
+                for (; k < desplazamientos.length; k++) {
+                    vecino = celda + desplazamientos[k];
+                    if (tablero.contiene(posibles, vecino) && marcas[vecino] != epoca)
+                        break;
+                }
+                if (k == desplazamientos.length) {
+                    // No quedan vecinos: retroceder
+                    if (pilaVecinos[nivel] == 0)
+                        podadas++;
+                    marcas[celda] = 0;
+                    nivel--;
+                    continue;
+                }
+                pilaVecinos[nivel] = k + 1;
+                nodos++;
+                if (nivel + 2 == largo) {
+                    profundidad = largo;
+                    encontrada = true;
+                    if (estado.guardarCamino) {
+                        for (int i = 0; i <= nivel; i++) {
+                            pilaCeldas[i] = celdaDe(tablero, pilaCeldas[i]);
+                        }
+                        estado.guardarCamino(pilaCeldas, nivel + 1, celdaDe(tablero, vecino));
+                    }
+                    break;
+                }
+                nivel++;
+                profundidad = Math.max(profundidad, nivel + 1);
+                pilaCeldas[nivel] = vecino;
+                pilaVecinos[nivel] = 0;
+                marcas[vecino] = epoca;
+            }
+        }
+        estado.nodos += nodos;
+        estado.podadas += podadas;
+        estado.profundidadMaxima = Math.max(estado.profundidadMaxima, profundidad);
+        return encontrada;
+    }
+
+    /**
+     * @param tablero: tablero compacto
+     * @param posicion: posición en el arreglo con borde
+     * @return celda del tablero (fila * columnas + col)
+     */
+    private static int celdaDe(TableroCompacto tablero, int posicion) {
+        return tablero.fila(posicion) * tablero.getColumnas() + tablero.columna(posicion);
+    }
 
-        while (!cola.isEmpty()) {
-            NodoBFS nodoActual = cola.poll();
+    private static final ThreadLocal<EstadoBusqueda> ESTADO = ThreadLocal.withInitial(EstadoBusqueda::new);
 
-            if (nodoActual.indice == palabra.length() - 1) {
-                return true;
+    /**
+     * Búsqueda en profundidad (DFS) de una palabra con una pila explícita en lugar de
+     * recursión, así que el largo de la palabra no está limitado por la pila del hilo.
+     * Al retroceder se desmarcan las celdas, de modo que la misma época sirve para
+     * todas las celdas iniciales de una consulta.
+     * @param estado: estado del hilo con la palabra ya copiada
+     * @param largo: largo de la palabra
+     * @param celdaInicial: celda donde comenzar, ya coincide con la primera letra
+     * @param epoca: marca de las celdas visitadas en esta consulta
+     * @return true si se encontró la palabra, false de lo contrario o si se agotó el
+     *         presupuesto de nodos del estado (queda en -1 y las marcas quedan puestas)
+     */
+    private boolean busquedaDFS(EstadoBusqueda estado, int largo, int celdaInicial, int epoca) {
+        if (largo == 1) {
+            estado.guardarCamino(estado.pilaCeldas, 0, celdaInicial);
+            return true;
+        }
+        char[] palabra = estado.palabra;
+        int[] marcas = estado.marcas;
+        int[] pilaCeldas = estado.pilaCeldas;
+        int[] pilaVecinos = estado.pilaVecinos;
+        long presupuesto = estado.presupuesto;
+        long nodos = 1;
+        long podadas = 0;
+        int profundidad = 1;
+        boolean encontrada = false;
+        int nivel = 0;
+        pilaCeldas[0] = celdaInicial;
+        pilaVecinos[0] = inicioVecinos[celdaInicial];
+        marcas[celdaInicial] = epoca;
+        while (nivel >= 0) {
+            int celda = pilaCeldas[nivel];
+            int fin = inicioVecinos[celda + 1];
+            char siguiente = palabra[nivel + 1];
+            int v = pilaVecinos[nivel];
+            while (v < fin && (celdas[vecinos[v]] != siguiente || marcas[vecinos[v]] == epoca)) {
+                v++;
+            }
+            if (v == fin) {
+                // No quedan vecinos: retroceder
+                if (pilaVecinos[nivel] == inicioVecinos[celda])
+                    podadas++;
+                marcas[celda] = 0;
+                nivel--;
+                continue;
+            }
+            pilaVecinos[nivel] = v + 1;
+            int vecino = vecinos[v];
+            if (++nodos > presupuesto)
+                break;
+            if (nivel + 2 == largo) {
+                profundidad = largo;
+                encontrada = true;
+                estado.guardarCamino(pilaCeldas, nivel + 1, vecino);
+                break;
             }
+            nivel++;
+            profundidad = Math.max(profundidad, nivel + 1);
+            pilaCeldas[nivel] = vecino;
+            pilaVecinos[nivel] = inicioVecinos[vecino];
+            marcas[vecino] = epoca;
+        }
+        estado.presupuesto = nodos > presupuesto ? -1 : presupuesto - nodos;
+        estado.nodos += nodos;
+        estado.podadas += podadas;
+        estado.profundidadMaxima = Math.max(estado.profundidadMaxima, profundidad);
+        return encontrada;
+    }
+
+    /**
+     * Búsqueda en anchura (BFS) de una palabra específica.
+     * Cada entrada de la frontera lleva su propio camino, así que un camino nunca
+     * repite una celda y la respuesta coincide con la de DFS. Si la frontera llega a
+     * su capacidad máxima, se termina la búsqueda desde esta celda con DFS.
+     * @param estado: estado del hilo con la palabra ya copiada
+     * @param largo: largo de la palabra
+     * @param celdaInicial: celda donde comenzar la búsqueda
+     * @param epoca: marca de las celdas visitadas, por si se termina con DFS
+     * @param cola: cola reutilizable para la frontera
+     * @param arbol: árbol donde registrar el recorrido, o null
+     * @return bool
+     */
+    private boolean busquedaBFS(EstadoBusqueda estado, int largo, int celdaInicial, int epoca, ColaBFS cola,
+                                ArbolBFS arbol) {
+        // Los nodos del árbol se numeran al entrar a la cola, así que el que sale es siempre el siguiente
+        int nodo = arbol != null ? arbol.agregar(celdaInicial, ArbolBFS.NINGUNO) : 0;
+        if (largo == 1) {
+            if (arbol != null)
+                arbol.marcarEncontrado(nodo);
+            estado.guardarCamino(estado.pilaCeldas, 0, celdaInicial);
+            return true;
+        }
+        char[] palabra = estado.palabra;
+        // La pila del DFS no se usa durante el BFS, así que sirve para guardar el camino
+        int[] camino = estado.pilaCeldas;
+        cola.vaciar();
+        camino[0] = celdaInicial;
+        cola.agregar(camino, 1, 1L << (celdaInicial & 63));
 
-            for (int r = Math.max(0, nodoActual.fila - 1); r <= Math.min(3, nodoActual.fila + 1); r++) {
-                for (int c = Math.max(0, nodoActual.col - 1); c <= Math.min(3, nodoActual.col + 1); c++) {
-                    if (r == nodoActual.fila && c == nodoActual.col) continue;
+        for (; !cola.estaVacia(); nodo++) {
+            long mascara = cola.mascaraFrente();
+            int cantidad = cola.copiarFrente(camino);
+            cola.quitarFrente();
+            estado.nodos++;
 
-                    if (tablero[r][c] == palabra.charAt(nodoActual.indice + 1)) {
-                        cola.add(new NodoBFS(r, c, nodoActual.indice + 1, nodoActual));
+            int celda = camino[cantidad - 1];
+            char siguiente = palabra[cantidad];
+            boolean sinSalida = true;
+            if (arbol != null)
+                arbol.iniciarExpansion(nodo);
+            for (int v = inicioVecinos[celda]; v < inicioVecinos[celda + 1]; v++) {
+                int vecino = vecinos[v];
+                if (celdas[vecino] != siguiente || ColaBFS.usaCelda(vecino, camino, cantidad, mascara))
+                    continue;
+                if (cantidad + 1 == largo) {
+                    estado.profundidadMaxima = largo;
+                    estado.guardarCamino(camino, cantidad, vecino);
+                    if (arbol != null) {
+                        arbol.marcarEncontrado(arbol.agregar(vecino, nodo));
+                        arbol.terminarExpansion(nodo);
+                    }
+                    return true;
+                }
+                sinSalida = false;
+                camino[cantidad] = vecino;
+                if (!cola.agregar(camino, cantidad + 1, mascara | (1L << (vecino & 63)))) {
+                    estado.fronteraMaxima = Math.max(estado.fronteraMaxima, cola.tamano());
+                    if (arbol != null) {
+                        arbol.terminarExpansion(nodo);
+                        arbol.marcarIncompleto();
                     }
+                    return busquedaDFS(estado, largo, celdaInicial, epoca);
                 }
+                if (arbol != null)
+                    arbol.agregar(vecino, nodo);
             }
+            if (arbol != null)
+                arbol.terminarExpansion(nodo);
+            if (sinSalida)
+                estado.podadas++;
+            estado.fronteraMaxima = Math.max(estado.fronteraMaxima, cola.tamano());
+            estado.profundidadMaxima = Math.max(estado.profundidadMaxima, cantidad);
         }
         return false;
     }
-    
+
     /**
      * Método para buscar todas las palabras del diccionario dado
      * @param diccionario: Set string contiene las palabras a buscar
@@ -114,12 +833,762 @@ public class BuscadorPalabras {
      * @return Set string de palabras encontradas
      */
     public Set<String> buscarTodasLasPalabras(Set<String> diccionario, boolean usarBFS) {
+        return buscarTodasLasPalabras(diccionario, usarBFS ? MetodoBusqueda.BFS : MetodoBusqueda.DFS);
+    }
+
+    /**
+     * Obtener un trie para recorrer con las palabras de un diccionario. Un
+     * DiccionarioInmutable ya tiene su trie y se usa directo; con otro Set se arma uno.
+     * @param diccionario: Set string contiene las palabras
+     * @return IndiceDiccionario
+     */
+    static IndiceDiccionario indiceDe(Set<String> diccionario) {
+        if (diccionario instanceof DiccionarioInmutable)
+            return ((DiccionarioInmutable) diccionario).indice();
+        return TrieDiccionario.desde(diccionario);
+    }
+
+    /**
+     * Método para buscar todas las palabras del diccionario dado un método de búsqueda
+     * @param diccionario: Set string contiene las palabras a buscar
+     * @param metodo: método de búsqueda a usar
+     * @return Set string de palabras encontradas
+     */
+    public Set<String> buscarTodasLasPalabras(Set<String> diccionario, MetodoBusqueda metodo) {
+        if (metodo == MetodoBusqueda.TRIE) {
+            return buscarTodasLasPalabras(indiceDe(diccionario));
+        }
+        if (metodo.esLineal()) {
+            return buscarTodasLasPalabras(indiceDe(diccionario), metodo);
+        }
+        long inicio = System.nanoTime();
+        // Las palabras se buscan sin medir cada una; el trabajo se registra una vez al final
+        EstadoBusqueda estado = ESTADO.get();
+        estado.reiniciarContadores();
         Set<String> palabrasEncontradas = new HashSet<>();
         for (String palabra : diccionario) {
-            if (buscarPalabra(palabra, usarBFS)) {
+            if (palabra != null && !palabra.isEmpty() && buscarPalabra(palabra, metodo, estado, null)) {
                 palabrasEncontradas.add(palabra);
             }
         }
+        registrarTrabajo(metodo, estado);
+        registrarCompleta(metodo, inicio, 0, 0);
+        return palabrasEncontradas;
+    }
+
+    /**
+     * Buscar todas las palabras del diccionario avisando cada palabra encontrada y el
+     * progreso a un oyente. La búsqueda se detiene si se interrumpe el hilo que la
+     * ejecuta; en ese caso devuelve las palabras encontradas hasta el momento.
+     * @param diccionario: Set string contiene las palabras a buscar
+     * @param metodo: método de búsqueda a usar
+     * @param oyente: recibe las palabras encontradas y el progreso
+     * @return Set string de palabras encontradas
+     */
+    public Set<String> buscarTodasLasPalabras(Set<String> diccionario, MetodoBusqueda metodo, OyenteBusqueda oyente) {
+        if (metodo == MetodoBusqueda.TRIE) {
+            return buscarTodasLasPalabras(indiceDe(diccionario), oyente);
+        }
+        long inicio = System.nanoTime();
+        Set<String> palabrasEncontradas = new HashSet<>();
+        if (metodo.esLineal()) {
+            IndiceDiccionario trie = indiceDe(diccionario);
+            boolean toroidal = metodo == MetodoBusqueda.LINEAL_TOROIDAL;
+            AutomataAhoCorasick automata = automataLineas(trie, toroidal);
+            Set<String> avisar = new ConjuntoConAviso(palabrasEncontradas, oyente);
+            for (int i = 0; i < DIRECCIONES.length && !Thread.currentThread().isInterrupted(); i++) {
+                buscarEnLineas(automata, DIRECCIONES[i], toroidal, avisar);
+                oyente.progreso(i + 1, DIRECCIONES.length);
+            }
+            registrarCompleta(metodo, inicio, trie.cantidadPalabras(), palabrasEncontradas.size());
+            return palabrasEncontradas;
+        }
+        int total = diccionario.size();
+        int paso = pasoProgreso(total);
+        int hechas = 0;
+        EstadoBusqueda estado = ESTADO.get();
+        estado.reiniciarContadores();
+        for (String palabra : diccionario) {
+            if (Thread.currentThread().isInterrupted())
+                break;
+            if (palabra != null && !palabra.isEmpty() && buscarPalabra(palabra, metodo, estado, null)
+                    && palabrasEncontradas.add(palabra)) {
+                oyente.encontrada(palabra);
+            }
+            if (++hechas % paso == 0 || hechas == total) {
+                oyente.progreso(hechas, total);
+            }
+        }
+        registrarTrabajo(metodo, estado);
+        registrarCompleta(metodo, inicio, 0, 0);
+        return palabrasEncontradas;
+    }
+
+    /**
+     * Registrar en las métricas una búsqueda de todo el diccionario
+     * @param metodo: método de búsqueda
+     * @param inicio: System.nanoTime al comenzar
+     * @param probadas: palabras probadas que no pasaron por buscarPalabra
+     * @param encontradas: palabras encontradas que no pasaron por buscarPalabra
+     */
+    private void registrarCompleta(MetodoBusqueda metodo, long inicio, long probadas, long encontradas) {
+        if (!metricas.isActivas())
+            return;
+        metricas.registrarCompleta(metodo, System.nanoTime() - inicio);
+        if (probadas > 0)
+            metricas.registrarTrabajo(metodo, probadas, encontradas, 0, 0, 0, 0, 0);
+    }
+
+    /**
+     * Registrar en las métricas el trabajo acumulado en los contadores del estado
+     * @param metodo: método de búsqueda
+     * @param estado: estado auxiliar del hilo
+     */
+    private void registrarTrabajo(MetodoBusqueda metodo, EstadoBusqueda estado) {
+        if (metricas.isActivas())
+            metricas.registrarTrabajo(metodo, estado.probadas, estado.encontradas, estado.descartadas,
+                estado.nodos, estado.podadas, estado.profundidadMaxima, estado.fronteraMaxima);
+    }
+
+    /**
+     * Buscar un bloque de palabras, registrando el trabajo una sola vez al final.
+     * Lo usan las tareas de BusquedaParalela.
+     * @param palabras: palabras del diccionario
+     * @param desde: primera palabra del bloque (incluida)
+     * @param hasta: última palabra del bloque (excluida)
+     * @param metodo: método de búsqueda a usar
+     * @param encontradas: Set donde se agregan las palabras encontradas
+     */
+    void buscarBloque(String[] palabras, int desde, int hasta, MetodoBusqueda metodo, Set<String> encontradas) {
+        EstadoBusqueda estado = ESTADO.get();
+        estado.reiniciarContadores();
+        for (int i = desde; i < hasta; i++) {
+            String palabra = palabras[i];
+            if (palabra != null && !palabra.isEmpty() && buscarPalabra(palabra, metodo, estado, null)) {
+                encontradas.add(palabra);
+            }
+        }
+        registrarTrabajo(metodo, estado);
+    }
+
+    // Avisar el progreso unas 100 veces por búsqueda
+    private static int pasoProgreso(int total) {
+        return Math.max(1, total / 100);
+    }
+
+    /**
+     * Set que avisa al oyente cada vez que se agrega una palabra nueva
+     */
+    static class ConjuntoConAviso extends AbstractSet<String> {
+        private final Set<String> destino;
+        private final OyenteBusqueda oyente;
+
+        ConjuntoConAviso(Set<String> destino, OyenteBusqueda oyente) {
+            this.destino = destino;
+            this.oyente = oyente;
+        }
+
+        @Override
+        public boolean add(String palabra) {
+            if (!destino.add(palabra))
+                return false;
+            oyente.encontrada(palabra);
+            return true;
+        }
+
+        @Override
+        public Iterator<String> iterator() {
+            return destino.iterator();
+        }
+
+        @Override
+        public int size() {
+            return destino.size();
+        }
+    }
+
+    /**
+     * Buscar todas las palabras de un trie recorriendo el tablero una sola vez.
+     * Desde cada casilla se avanza en profundidad mientras el prefijo formado
+     * exista en el trie y le queden palabras sin encontrar, y se descarta cualquier
+     * camino que no lleve a una palabra nueva.
+     * @param trie: trie con las palabras del diccionario, en memoria o compilado
+     * @return Set string de palabras encontradas
+     */
+    public Set<String> buscarTodasLasPalabras(IndiceDiccionario trie) {
+        long inicio = System.nanoTime();
+        Set<String> palabrasEncontradas = new HashSet<>();
+        buscarEnTrieDesde(trie, 0, celdas.length, palabrasEncontradas, new AtomicIntegerArray(trie.cantidadNodos()));
+        registrarCompleta(MetodoBusqueda.TRIE, inicio, trie.cantidadPalabras(), palabrasEncontradas.size());
+        return palabrasEncontradas;
+    }
+
+    /**
+     * Buscar todas las palabras de un trie recorriendo las celdas iniciales por bloques y
+     * avisando cada palabra encontrada y el progreso a un oyente. La búsqueda se detiene
+     * entre bloques si se interrumpe el hilo que la ejecuta; en ese caso devuelve las
+     * palabras encontradas hasta el momento.
+     * @param trie: trie con las palabras del diccionario, en memoria o compilado
+     * @param oyente: recibe las palabras encontradas y el progreso
+     * @return Set string de palabras encontradas
+     */
+    public Set<String> buscarTodasLasPalabras(IndiceDiccionario trie, OyenteBusqueda oyente) {
+        long inicio = System.nanoTime();
+        Set<String> palabrasEncontradas = new HashSet<>();
+        Set<String> avisar = new ConjuntoConAviso(palabrasEncontradas, oyente);
+        AtomicIntegerArray halladas = new AtomicIntegerArray(trie.cantidadNodos());
+        int total = celdas.length;
+        int paso = pasoProgreso(total);
+        for (int desde = 0; desde < total && !Thread.currentThread().isInterrupted(); desde += paso) {
+            int hasta = Math.min(total, desde + paso);
+            buscarEnTrieDesde(trie, desde, hasta, avisar, halladas);
+            oyente.progreso(hasta, total);
+        }
+        registrarCompleta(MetodoBusqueda.TRIE, inicio, trie.cantidadPalabras(), palabrasEncontradas.size());
         return palabrasEncontradas;
     }
+
+    /**
+     * Recorrer el tablero con el trie comenzando solo en un rango de celdas iniciales
+     * @param trie: trie con las palabras del diccionario, en memoria o compilado
+     * @param desde: primera celda inicial (incluida)
+     * @param hasta: última celda inicial (excluida)
+     * @param encontradas: Set donde se agregan las palabras encontradas
+     * @param halladas: palabras ya encontradas bajo cada nodo del trie, compartidas por
+     *                  todos los bloques de la misma búsqueda
+     */
+    void buscarEnTrieDesde(IndiceDiccionario trie, int desde, int hasta, Set<String> encontradas,
+                           AtomicIntegerArray halladas) {
+        buscarEnTrieDesde(trie, desde, hasta, encontradas, halladas, null);
+    }
+
+    /**
+     * Recorrer el tablero con el trie comenzando solo en un rango de celdas iniciales y
+     * guardar, si se pide, el camino de la primera aparición de cada palabra
+     * @param trie: trie con las palabras del diccionario, en memoria o compilado
+     * @param desde: primera celda inicial (incluida)
+     * @param hasta: última celda inicial (excluida)
+     * @param encontradas: Set donde se agregan las palabras encontradas
+     * @param halladas: palabras ya encontradas bajo cada nodo del trie
+     * @param caminos: Map donde se guarda el camino de cada palabra, o null para no guardarlos
+     */
+    private void buscarEnTrieDesde(IndiceDiccionario trie, int desde, int hasta, Set<String> encontradas,
+                                   AtomicIntegerArray halladas, Map<String, int[]> caminos) {
+        boolean[] visitados = new boolean[celdas.length];
+        char[] prefijo = new char[celdas.length];
+        int[] nodos = new int[celdas.length];
+        int[] camino = caminos != null ? new int[celdas.length] : null;
+        ContadoresRecorrido contadores = new ContadoresRecorrido();
+        // Si ya se encontraron todas las palabras no hace falta seguir
+        for (int celda = desde; celda < hasta && !agotado(trie, trie.raiz(), halladas); celda++) {
+            int nodo = trie.hijo(trie.raiz(), celdas[celda]);
+            if (nodo != IndiceDiccionario.NINGUNO && !agotado(trie, nodo, halladas)) {
+                recorrerTrie(trie, nodo, celda, 0, visitados, prefijo, nodos, camino, encontradas, halladas, caminos,
+                    contadores);
+            } else {
+                contadores.podadas++;
+            }
+        }
+        if (metricas.isActivas())
+            metricas.registrarTrabajo(MetodoBusqueda.TRIE, 0, 0, 0, contadores.nodos, contadores.podadas,
+                contadores.profundidadMaxima, 0);
+    }
+
+    /**
+     * Buscar todas las palabras del diccionario con un recorrido único guiado por un trie
+     * y devolver el camino de una aparición de cada una
+     * @param diccionario: Set string contiene las palabras a buscar
+     * @return camino de cada palabra encontrada (celda = fila * columnas + col)
+     */
+    public Map<String, int[]> buscarTodosLosCaminos(Set<String> diccionario) {
+        return buscarTodosLosCaminos(indiceDe(diccionario));
+    }
+
+    /**
+     * Buscar todas las palabras de un trie recorriendo el tablero una sola vez, como
+     * buscarTodasLasPalabras(IndiceDiccionario), guardando el camino de la primera
+     * aparición de cada palabra en el mismo recorrido
+     * @param trie: trie con las palabras del diccionario, en memoria o compilado
+     * @return camino de cada palabra encontrada (celda = fila * columnas + col)
+     */
+    public Map<String, int[]> buscarTodosLosCaminos(IndiceDiccionario trie) {
+        long inicio = System.nanoTime();
+        Map<String, int[]> caminos = new HashMap<>();
+        buscarEnTrieDesde(trie, 0, celdas.length, new HashSet<>(), new AtomicIntegerArray(trie.cantidadNodos()),
+            caminos);
+        registrarCompleta(MetodoBusqueda.TRIE, inicio, trie.cantidadPalabras(), caminos.size());
+        return caminos;
+    }
+
+    /**
+     * Contadores de un recorrido con trie para las métricas
+     */
+    private static final class ContadoresRecorrido {
+        long nodos;
+        long podadas;
+        int profundidadMaxima;
+    }
+
+    /**
+     * Buscar todas las palabras del diccionario repartiendo el trabajo en varios hilos.
+     * DFS y BFS reparten el diccionario en bloques de palabras; TRIE reparte las celdas
+     * iniciales del tablero y los métodos en línea recta, las direcciones. El resultado es
+     * el mismo que el de la búsqueda secuencial.
+     * Crea un pool de hilos solo para esta búsqueda; para varias búsquedas conviene crear
+     * un ForkJoinPool una vez y usar buscarTodasLasPalabras(diccionario, metodo, pool).
+     * @param diccionario: Set string contiene las palabras a buscar
+     * @param metodo: método de búsqueda a usar
+     * @param paralelismo: cantidad de hilos a usar
+     * @return Set string de palabras encontradas
+     */
+    public Set<String> buscarTodasLasPalabras(Set<String> diccionario, MetodoBusqueda metodo, int paralelismo) {
+        if (paralelismo <= 1) {
+            return buscarTodasLasPalabras(diccionario, metodo);
+        }
+        ForkJoinPool pool = new ForkJoinPool(paralelismo);
+        try {
+            return buscarTodasLasPalabras(diccionario, metodo, pool, null);
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Buscar todas las palabras del diccionario repartiendo el trabajo en los hilos de un pool
+     * @param diccionario: Set string contiene las palabras a buscar
+     * @param metodo: método de búsqueda a usar
+     * @param pool: pool de hilos a usar, no se cierra al terminar
+     * @return Set string de palabras encontradas
+     */
+    public Set<String> buscarTodasLasPalabras(Set<String> diccionario, MetodoBusqueda metodo, ForkJoinPool pool) {
+        return buscarTodasLasPalabras(diccionario, metodo, pool, null);
+    }
+
+    /**
+     * Buscar todas las palabras del diccionario repartiendo el trabajo en los hilos de un
+     * pool y avisando a un oyente. El oyente se llama desde los hilos del pool, y el
+     * progreso se avisa por bloque terminado. Si se interrumpe el hilo que llama, los
+     * bloques que no empezaron no se buscan.
+     * @param diccionario: Set string contiene las palabras a buscar
+     * @param metodo: método de búsqueda a usar
+     * @param pool: pool de hilos a usar, no se cierra al terminar
+     * @param oyente: recibe las palabras encontradas y el progreso, o null
+     * @return Set string de palabras encontradas
+     */
+    public Set<String> buscarTodasLasPalabras(Set<String> diccionario, MetodoBusqueda metodo, ForkJoinPool pool,
+                                              OyenteBusqueda oyente) {
+        long inicio = System.nanoTime();
+        BusquedaParalela paralela = new BusquedaParalela(this, pool);
+        if (metodo == MetodoBusqueda.TRIE || metodo.esLineal()) {
+            // Los recorridos con el trie no prueban palabra por palabra; se cuentan las del
+            // índice, como en la búsqueda secuencial
+            IndiceDiccionario trie = indiceDe(diccionario);
+            Set<String> encontradas = metodo == MetodoBusqueda.TRIE
+                ? paralela.buscar(trie, oyente)
+                : paralela.buscarEnLineas(trie, metodo == MetodoBusqueda.LINEAL_TOROIDAL, oyente);
+            registrarCompleta(metodo, inicio, trie.cantidadPalabras(), encontradas.size());
+            return encontradas;
+        }
+        Set<String> encontradas = paralela.buscar(diccionario, metodo, oyente);
+        // Con DFS y BFS cada bloque ya registró sus palabras probadas y encontradas en
+        // buscarBloque; acá solo falta registrar la búsqueda completa
+        registrarCompleta(metodo, inicio, 0, 0);
+        return encontradas;
+    }
+
+    /**
+     * Buscar todas las palabras de un trie repartiendo las celdas iniciales en varios hilos.
+     * Crea un pool de hilos solo para esta búsqueda; para varias búsquedas conviene crear
+     * un ForkJoinPool una vez y usar buscarTodasLasPalabras(trie, pool).
+     * @param trie: trie con las palabras del diccionario, en memoria o compilado
+     * @param paralelismo: cantidad de hilos a usar
+     * @return Set string de palabras encontradas
+     */
+    public Set<String> buscarTodasLasPalabras(IndiceDiccionario trie, int paralelismo) {
+        if (paralelismo <= 1) {
+            return buscarTodasLasPalabras(trie);
+        }
+        ForkJoinPool pool = new ForkJoinPool(paralelismo);
+        try {
+            return buscarTodasLasPalabras(trie, pool);
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Buscar todas las palabras de un trie repartiendo las celdas iniciales en los hilos de un pool
+     * @param trie: trie con las palabras del diccionario, en memoria o compilado
+     * @param pool: pool de hilos a usar, no se cierra al terminar
+     * @return Set string de palabras encontradas
+     */
+    public Set<String> buscarTodasLasPalabras(IndiceDiccionario trie, ForkJoinPool pool) {
+        return buscarTodasLasPalabras(trie, pool, null);
+    }
+
+    /**
+     * Buscar todas las palabras de un trie repartiendo las celdas iniciales en los hilos de
+     * un pool y avisando a un oyente desde esos hilos. Si se interrumpe el hilo que llama,
+     * los bloques de celdas que no empezaron no se recorren.
+     * @param trie: trie con las palabras del diccionario, en memoria o compilado
+     * @param pool: pool de hilos a usar, no se cierra al terminar
+     * @param oyente: recibe las palabras encontradas y el progreso, o null
+     * @return Set string de palabras encontradas
+     */
+    public Set<String> buscarTodasLasPalabras(IndiceDiccionario trie, ForkJoinPool pool, OyenteBusqueda oyente) {
+        long inicio = System.nanoTime();
+        Set<String> encontradas = new BusquedaParalela(this, pool).buscar(trie, oyente);
+        registrarCompleta(MetodoBusqueda.TRIE, inicio, trie.cantidadPalabras(), encontradas.size());
+        return encontradas;
+    }
+
+    int cantidadCeldas() {
+        return celdas.length;
+    }
+
+    /**
+     * Buscar todas las palabras de un trie con un método que recorre el trie entero:
+     * TRIE, o uno de los métodos en línea recta
+     * @param trie: trie con las palabras del diccionario, en memoria o compilado
+     * @param metodo: TRIE, LINEAL o LINEAL_TOROIDAL
+     * @return Set string de palabras encontradas
+     */
+    public Set<String> buscarTodasLasPalabras(IndiceDiccionario trie, MetodoBusqueda metodo) {
+        if (!metodo.esLineal()) {
+            return buscarTodasLasPalabras(trie);
+        }
+        long inicio = System.nanoTime();
+        boolean toroidal = metodo == MetodoBusqueda.LINEAL_TOROIDAL;
+        AutomataAhoCorasick automata = automataLineas(trie, toroidal);
+        Set<String> palabrasEncontradas = new HashSet<>();
+        for (Direccion direccion : DIRECCIONES) {
+            buscarEnLineas(automata, direccion, toroidal, palabrasEncontradas);
+        }
+        registrarCompleta(metodo, inicio, trie.cantidadPalabras(), palabrasEncontradas.size());
+        return palabrasEncontradas;
+    }
+
+    /**
+     * Buscar todas las palabras del diccionario en línea recta e informar cada aparición
+     * @param diccionario: Set string contiene las palabras a buscar
+     * @param toroidal: si las líneas siguen del otro lado al llegar a un borde
+     * @return apariciones de las palabras, por dirección y en el orden en que se recorren las líneas
+     */
+    public List<Coincidencia> buscarCoincidencias(Set<String> diccionario, boolean toroidal) {
+        return buscarCoincidencias(indiceDe(diccionario), toroidal);
+    }
+
+    /**
+     * Buscar todas las palabras de un trie en línea recta e informar cada aparición con su
+     * celda inicial y su dirección. Una palabra puede aparecer varias veces, y un palíndromo
+     * aparece también en la dirección contraria desde su última letra.
+     * @param trie: trie con las palabras del diccionario, en memoria o compilado
+     * @param toroidal: si las líneas siguen del otro lado al llegar a un borde
+     * @return apariciones de las palabras, por dirección y en el orden en que se recorren las líneas
+     */
+    public List<Coincidencia> buscarCoincidencias(IndiceDiccionario trie, boolean toroidal) {
+        long inicio = System.nanoTime();
+        MetodoBusqueda metodo = toroidal ? MetodoBusqueda.LINEAL_TOROIDAL : MetodoBusqueda.LINEAL;
+        AutomataAhoCorasick automata = automataLineas(trie, toroidal);
+        List<Coincidencia> coincidencias = new ArrayList<>();
+        boolean[] encontradas = new boolean[automata.cantidadPalabras()];
+        int[] distintas = new int[1];
+        long recorridas = 0;
+        for (Direccion direccion : DIRECCIONES) {
+            recorridas += recorrerLineas(automata, direccion, toroidal, (estado, fila, col) -> {
+                coincidencias.add(new Coincidencia(automata.palabra(estado), fila, col, direccion));
+                if (!encontradas[automata.numeroPalabra(estado)]) {
+                    encontradas[automata.numeroPalabra(estado)] = true;
+                    distintas[0]++;
+                }
+            });
+        }
+        if (metricas.isActivas())
+            metricas.registrarTrabajo(metodo, 0, 0, 0, recorridas, 0, 0, 0);
+        registrarCompleta(metodo, inicio, trie.cantidadPalabras(), distintas[0]);
+        return coincidencias;
+    }
+
+    /**
+     * Armar el autómata para buscar las palabras de un trie en las líneas del tablero;
+     * no se agregan las palabras más largas que la línea más larga
+     * @param trie: trie con las palabras del diccionario
+     * @param toroidal: si las líneas siguen del otro lado al llegar a un borde
+     * @return AutomataAhoCorasick
+     */
+    AutomataAhoCorasick automataLineas(IndiceDiccionario trie, boolean toroidal) {
+        int largoMaximo = 0;
+        for (Direccion direccion : DIRECCIONES) {
+            largoMaximo = Math.max(largoMaximo, toroidal ? largoCiclo(direccion) : Math.max(filas, columnas));
+        }
+        return new AutomataAhoCorasick(trie, indice, largoMaximo);
+    }
+
+    /**
+     * Buscar las palabras del autómata en todas las líneas de una dirección.
+     * Lo usan buscarTodasLasPalabras y las tareas de BusquedaParalela.
+     * @param automata: autómata armado con automataLineas
+     * @param direccion: dirección de las líneas
+     * @param toroidal: si las líneas siguen del otro lado al llegar a un borde
+     * @param encontradas: Set donde se agregan las palabras encontradas
+     */
+    void buscarEnLineas(AutomataAhoCorasick automata, Direccion direccion, boolean toroidal, Set<String> encontradas) {
+        // Cada palabra se agrega una sola vez aunque aparezca muchas veces
+        boolean[] vistas = new boolean[automata.cantidadPalabras()];
+        long recorridas = recorrerLineas(automata, direccion, toroidal, (estado, fila, col) -> {
+            int numero = automata.numeroPalabra(estado);
+            if (!vistas[numero]) {
+                vistas[numero] = true;
+                encontradas.add(automata.palabra(estado));
+            }
+        });
+        if (metricas.isActivas())
+            metricas.registrarTrabajo(toroidal ? MetodoBusqueda.LINEAL_TOROIDAL : MetodoBusqueda.LINEAL,
+                0, 0, 0, recorridas, 0, 0, 0);
+    }
+
+    /**
+     * Recibe las apariciones que encuentra recorrerLineas
+     */
+    private interface ReceptorLineas {
+        /**
+         * @param estado: estado del autómata con la palabra
+         * @param fila: fila de la primera letra
+         * @param col: columna de la primera letra
+         */
+        void coincidencia(int estado, int fila, int col);
+    }
+
+    /**
+     * Recorrer con el autómata todas las líneas de una dirección. Las filas se recorren
+     * seguidas; las columnas y diagonales se avanzan todas juntas de a una fila, con el
+     * estado de cada línea en un arreglo, así el tablero se lee siempre en el orden en que
+     * está en memoria. Con vuelta por los bordes, después de la primera pasada se siguen
+     * leyendo letras hasta el largo de la palabra más larga para encontrar las que cruzan
+     * el borde, y solo se informan las que empiezan en la primera pasada y caben en la línea.
+     * @param automata: autómata armado con automataLineas
+     * @param direccion: dirección de las líneas
+     * @param toroidal: si las líneas siguen del otro lado al llegar a un borde
+     * @param receptor: recibe cada aparición con su celda inicial
+     * @return cantidad de letras leídas
+     */
+    private long recorrerLineas(AutomataAhoCorasick automata, Direccion direccion, boolean toroidal,
+                                ReceptorLineas receptor) {
+        if (celdas.length == 0)
+            return 0;
+        int[] codigos = indice.codigosCeldas();
+        int df = direccion.getPasoFila();
+        int dc = direccion.getPasoColumna();
+        int largoLinea = toroidal ? largoCiclo(direccion) : Math.max(filas, columnas);
+        int extra = toroidal ? Math.min(automata.getLargoMaximo(), largoLinea) - 1 : 0;
+        if (df == 0) {
+            for (int row = 0; row < filas; row++) {
+                int base = row * columnas;
+                int col = dc > 0 ? 0 : columnas - 1;
+                int estado = AutomataAhoCorasick.RAIZ;
+                for (int paso = 0; paso < columnas + extra; paso++) {
+                    estado = automata.siguiente(estado, codigos[base + col]);
+                    for (int e = automata.primeraPalabra(estado); e != AutomataAhoCorasick.RAIZ;
+                         e = automata.siguientePalabra(e)) {
+                        int largo = automata.largo(e);
+                        if (largo <= largoLinea && paso - largo + 1 < columnas)
+                            receptor.coincidencia(e, row, Math.floorMod(col - (largo - 1) * dc, columnas));
+                    }
+                    col += dc;
+                    if (col == columnas)
+                        col = 0;
+                    else if (col < 0)
+                        col = columnas - 1;
+                }
+            }
+            return (long) filas * (columnas + extra);
+        }
+        // anterior[col]: estado de la línea que terminó en la columna col de la fila anterior
+        int[] anterior = new int[columnas];
+        int[] actual = new int[columnas];
+        int row = df > 0 ? 0 : filas - 1;
+        for (int paso = 0; paso < filas + extra; paso++) {
+            int base = row * columnas;
+            for (int col = 0; col < columnas; col++) {
+                int origen = col - dc;
+                int estado;
+                if (paso == 0) {
+                    estado = AutomataAhoCorasick.RAIZ;
+                } else if (origen >= 0 && origen < columnas) {
+                    estado = anterior[origen];
+                } else {
+                    // Sin vuelta, la línea empieza en esta celda
+                    estado = toroidal ? anterior[origen < 0 ? origen + columnas : origen - columnas]
+                            : AutomataAhoCorasick.RAIZ;
+                }
+                estado = automata.siguiente(estado, codigos[base + col]);
+                actual[col] = estado;
+                for (int e = automata.primeraPalabra(estado); e != AutomataAhoCorasick.RAIZ;
+                     e = automata.siguientePalabra(e)) {
+                    int largo = automata.largo(e);
+                    if (largo <= largoLinea && paso - largo + 1 < filas)
+                        receptor.coincidencia(e, Math.floorMod(row - (largo - 1) * df, filas),
+                            Math.floorMod(col - (largo - 1) * dc, columnas));
+                }
+            }
+            int[] temporal = anterior;
+            anterior = actual;
+            actual = temporal;
+            row += df;
+            if (row == filas)
+                row = 0;
+            else if (row < 0)
+                row = filas - 1;
+        }
+        return (long) columnas * (filas + extra);
+    }
+
+    /**
+     * Buscar una palabra en línea recta desde cada celda con su primera letra, en las 8 direcciones
+     * @param estado: estado del hilo con la palabra ya copiada
+     * @param largo: largo de la palabra
+     * @param toroidal: si las líneas siguen del otro lado al llegar a un borde
+     * @return bool
+     */
+    private boolean busquedaLineal(EstadoBusqueda estado, int largo, boolean toroidal) {
+        char[] palabra = estado.palabra;
+        // Con vuelta por los bordes quedan seguidas letras que no son vecinas, así que el
+        // índice solo sirve para descartar palabras con letras que no están en el tablero
+        if (toroidal) {
+            for (int i = 0; i < largo; i++) {
+                if ((estado.codigos[i] = indice.codigo(palabra[i])) == IndiceTablero.NINGUNA) {
+                    estado.descartadas++;
+                    return false;
+                }
+            }
+        } else if (!indice.puedeExistir(palabra, largo, estado.codigos, estado.usadas)) {
+            estado.descartadas++;
+            return false;
+        }
+        int primeraLetra = estado.codigos[0];
+        long nodos = 0;
+        int profundidad = 1;
+        boolean encontrada = false;
+        for (int i = indice.inicio(primeraLetra); i < indice.fin(primeraLetra) && !encontrada; i++) {
+            int celda = indice.posicion(i);
+            int row = celda / columnas;
+            int col = celda % columnas;
+            nodos++;
+            for (int d = 0; d < DIRECCIONES.length && !encontrada; d++) {
+                int df = DIRECCIONES[d].getPasoFila();
+                int dc = DIRECCIONES[d].getPasoColumna();
+                if (toroidal ? largo > largoCiclo(DIRECCIONES[d])
+                        : !dentro(row + (largo - 1) * df, col + (largo - 1) * dc))
+                    continue;
+                int k = 1;
+                for (int r = row, c = col; k < largo; k++) {
+                    r = toroidal ? Math.floorMod(r + df, filas) : r + df;
+                    c = toroidal ? Math.floorMod(c + dc, columnas) : c + dc;
+                    nodos++;
+                    if (celdas[r * columnas + c] != palabra[k])
+                        break;
+                }
+                profundidad = Math.max(profundidad, k);
+                encontrada = k == largo;
+                if (encontrada && estado.guardarCamino) {
+                    for (int j = 0; j < largo; j++) {
+                        int r = toroidal ? Math.floorMod(row + j * df, filas) : row + j * df;
+                        int c = toroidal ? Math.floorMod(col + j * dc, columnas) : col + j * dc;
+                        estado.camino[j] = r * columnas + c;
+                    }
+                }
+            }
+        }
+        estado.nodos += nodos;
+        estado.profundidadMaxima = Math.max(estado.profundidadMaxima, profundidad);
+        return encontrada;
+    }
+
+    /**
+     * Largo de las líneas con vuelta por los bordes en una dirección: las filas miden
+     * columnas, las columnas miden filas y las diagonales mcm(filas, columnas)
+     */
+    private int largoCiclo(Direccion direccion) {
+        if (direccion.getPasoFila() == 0)
+            return columnas;
+        if (direccion.getPasoColumna() == 0)
+            return filas;
+        if (celdas.length == 0)
+            return 0;
+        return (int) Math.min(Integer.MAX_VALUE, (long) filas / mcd(filas, columnas) * columnas);
+    }
+
+    private static int mcd(int a, int b) {
+        while (b != 0) {
+            int resto = a % b;
+            a = b;
+            b = resto;
+        }
+        return a;
+    }
+
+    private boolean dentro(int fila, int col) {
+        return fila >= 0 && fila < filas && col >= 0 && col < columnas;
+    }
+
+    /**
+     * Recorrido en profundidad del tablero siguiendo las aristas del trie. No entra en los
+     * prefijos cuyas palabras ya se encontraron todas: en tableros repetitivos un mismo
+     * prefijo se puede formar por muchísimos caminos.
+     * @param trie: trie con las palabras del diccionario, en memoria o compilado
+     * @param nodo: nodo del trie que corresponde a la casilla actual
+     * @param celda: casilla actual
+     * @param profundidad: posición de la casilla actual dentro del prefijo
+     * @param visitados: casillas usadas por el camino actual
+     * @param prefijo: letras del camino actual
+     * @param nodos: nodos del trie del camino actual
+     * @param camino: casillas del camino actual, o null si no se guardan los caminos
+     * @param encontradas: Set donde se agregan las palabras encontradas
+     * @param halladas: palabras ya encontradas bajo cada nodo del trie
+     * @param caminos: Map donde se guarda el camino de cada palabra, o null
+     * @param contadores: contadores del recorrido para las métricas
+     */
+    private void recorrerTrie(IndiceDiccionario trie, int nodo, int celda, int profundidad, boolean[] visitados,
+                              char[] prefijo, int[] nodos, int[] camino, Set<String> encontradas,
+                              AtomicIntegerArray halladas, Map<String, int[]> caminos, ContadoresRecorrido contadores) {
+        contadores.nodos++;
+        if (profundidad >= contadores.profundidadMaxima)
+            contadores.profundidadMaxima = profundidad + 1;
+        prefijo[profundidad] = celdas[celda];
+        nodos[profundidad] = nodo;
+        if (camino != null)
+            camino[profundidad] = celda;
+        if (trie.esTerminal(nodo)) {
+            String palabra = new String(prefijo, 0, profundidad + 1);
+            if (encontradas.add(palabra)) {
+                if (caminos != null)
+                    caminos.put(palabra, Arrays.copyOf(camino, profundidad + 1));
+                // Solo el hilo que la agregó la cuenta, así cada palabra se cuenta una vez
+                halladas.incrementAndGet(trie.raiz());
+                for (int i = 0; i <= profundidad; i++) {
+                    halladas.incrementAndGet(nodos[i]);
+                }
+            }
+        }
+        visitados[celda] = true;
+        for (int v = inicioVecinos[celda]; v < inicioVecinos[celda + 1] && !agotado(trie, nodo, halladas); v++) {
+            int vecino = vecinos[v];
+            if (visitados[vecino]) continue;
+            int hijo = trie.hijo(nodo, celdas[vecino]);
+            if (hijo != IndiceDiccionario.NINGUNO && !agotado(trie, hijo, halladas)) {
+                recorrerTrie(trie, hijo, vecino, profundidad + 1, visitados, prefijo, nodos, camino, encontradas,
+                    halladas, caminos, contadores);
+            } else {
+                contadores.podadas++;
+            }
+        }
+        visitados[celda] = false;
+    }
+
+    /**
+     * @return true si ya se encontraron todas las palabras que empiezan con el prefijo del nodo
+     */
+    private static boolean agotado(IndiceDiccionario trie, int nodo, AtomicIntegerArray halladas) {
+        return halladas.get(nodo) >= trie.palabrasDesde(nodo);
+    }
 }
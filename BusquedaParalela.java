@@ -0,0 +1,327 @@
+package sopaletras;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * Búsqueda de todas las palabras del diccionario repartida en un ForkJoinPool.
+ * Con DFS y BFS cada tarea revisa un bloque del diccionario; con TRIE cada tarea
+ * recorre el tablero desde un bloque de celdas iniciales, y con los métodos en línea
+ * recta cada tarea recorre las líneas de algunas direcciones. Las palabras encontradas
+ * se juntan en un Set concurrente, sin ningún candado global.
+ *
+ * Crear un ForkJoinPool cuesta crear sus hilos, así que quien hace varias búsquedas
+ * (la línea de comandos, la GUI, el servidor) crea un pool una vez y lo pasa a cada
+ * búsqueda. Si se interrumpe el hilo que pidió la búsqueda, las tareas que todavía no
+ * empezaron terminan sin buscar; se espera a las que están corriendo y se devuelven las
+ * palabras encontradas hasta ese momento, con el hilo todavía interrumpido.
+ */
+public class BusquedaParalela {
+    // Cantidad de bloques por hilo, para repartir mejor la carga desigual entre bloques
+    private static final int BLOQUES_POR_HILO = 8;
+
+    private final BuscadorPalabras buscador;
+    private final ForkJoinPool pool;
+    private final boolean poolPropio;
+
+    /**
+     * Crear una búsqueda paralela con su propio pool de hilos, que se cierra al terminar
+     * la primera búsqueda; para varias búsquedas conviene pasar un pool existente
+     * @param buscador: buscador con el tablero
+     * @param paralelismo: cantidad de hilos del pool
+     */
+    public BusquedaParalela(BuscadorPalabras buscador, int paralelismo) {
+        this.buscador = buscador;
+        this.pool = new ForkJoinPool(paralelismo);
+        this.poolPropio = true;
+    }
+
+    /**
+     * Crear una búsqueda paralela que usa un pool de hilos existente
+     * @param buscador: buscador con el tablero
+     * @param pool: pool de hilos a usar, no se cierra al terminar
+     */
+    public BusquedaParalela(BuscadorPalabras buscador, ForkJoinPool pool) {
+        this.buscador = buscador;
+        this.pool = pool;
+        this.poolPropio = false;
+    }
+
+    /**
+     * Estado compartido por las tareas de una búsqueda
+     */
+    private static final class Contexto {
+        final BuscadorPalabras buscador;
+        final Set<String> encontradas;
+        final OyenteBusqueda oyente;
+        final int total;
+        final AtomicInteger hechas = new AtomicInteger();
+        // Se marca si se interrumpe el hilo que pidió la búsqueda; las tareas pendientes no buscan.
+        // No alcanza con mirar si ese hilo está interrumpido: ForkJoinPool.invoke limpia la
+        // marca mientras espera y la vuelve a poner al terminar.
+        volatile boolean cancelada;
+
+        Contexto(BuscadorPalabras buscador, Set<String> encontradas, OyenteBusqueda oyente, int total) {
+            this.buscador = buscador;
+            this.encontradas = encontradas;
+            this.oyente = oyente;
+            this.total = total;
+        }
+
+        void terminadas(int cantidad) {
+            int hechasAhora = hechas.addAndGet(cantidad);
+            if (oyente != null)
+                oyente.progreso(hechasAhora, total);
+        }
+    }
+
+    /**
+     * Buscar todas las palabras del diccionario
+     * @param diccionario: Set string contiene las palabras a buscar
+     * @param metodo: método de búsqueda a usar
+     * @return Set string de palabras encontradas
+     */
+    public Set<String> buscar(Set<String> diccionario, MetodoBusqueda metodo) {
+        return buscar(diccionario, metodo, null);
+    }
+
+    /**
+     * Buscar todas las palabras del diccionario avisando cada palabra encontrada y el
+     * progreso a un oyente; el oyente se llama desde los hilos del pool
+     * @param diccionario: Set string contiene las palabras a buscar
+     * @param metodo: método de búsqueda a usar
+     * @param oyente: recibe las palabras encontradas y el progreso, o null
+     * @return Set string de palabras encontradas
+     */
+    public Set<String> buscar(Set<String> diccionario, MetodoBusqueda metodo, OyenteBusqueda oyente) {
+        if (metodo == MetodoBusqueda.TRIE) {
+            return buscar(BuscadorPalabras.indiceDe(diccionario), oyente);
+        }
+        if (metodo.esLineal()) {
+            return buscarEnLineas(BuscadorPalabras.indiceDe(diccionario), metodo == MetodoBusqueda.LINEAL_TOROIDAL,
+                oyente);
+        }
+        Set<String> encontradas = ConcurrentHashMap.newKeySet();
+        try {
+            String[] palabras = diccionario.toArray(new String[0]);
+            Contexto contexto = new Contexto(buscador, conAviso(encontradas, oyente), oyente, palabras.length);
+            ejecutar(new TareaPalabras(contexto, palabras, 0, palabras.length, tamanoBloque(palabras.length),
+                    metodo), contexto);
+        } finally {
+            if (poolPropio) {
+                pool.shutdown();
+            }
+        }
+        return encontradas;
+    }
+
+    /**
+     * Buscar todas las palabras de un trie repartiendo las celdas iniciales del tablero
+     * @param trie: trie con las palabras del diccionario
+     * @return Set string de palabras encontradas
+     */
+    public Set<String> buscar(IndiceDiccionario trie) {
+        return buscar(trie, null);
+    }
+
+    /**
+     * Buscar todas las palabras de un trie repartiendo las celdas iniciales del tablero
+     * @param trie: trie con las palabras del diccionario
+     * @param oyente: recibe las palabras encontradas y el progreso, o null
+     * @return Set string de palabras encontradas
+     */
+    public Set<String> buscar(IndiceDiccionario trie, OyenteBusqueda oyente) {
+        Set<String> encontradas = ConcurrentHashMap.newKeySet();
+        try {
+            int total = buscador.cantidadCeldas();
+            Contexto contexto = new Contexto(buscador, conAviso(encontradas, oyente), oyente, total);
+            AtomicIntegerArray halladas = new AtomicIntegerArray(trie.cantidadNodos());
+            ejecutar(new TareaCeldas(contexto, trie, halladas, 0, total, tamanoBloque(total)), contexto);
+        } finally {
+            if (poolPropio) {
+                pool.shutdown();
+            }
+        }
+        return encontradas;
+    }
+
+    /**
+     * Buscar las palabras de un trie en línea recta repartiendo las direcciones
+     * @param trie: trie con las palabras del diccionario
+     * @param toroidal: si las líneas siguen del otro lado al llegar a un borde
+     * @return Set string de palabras encontradas
+     */
+    public Set<String> buscarEnLineas(IndiceDiccionario trie, boolean toroidal) {
+        return buscarEnLineas(trie, toroidal, null);
+    }
+
+    /**
+     * Buscar las palabras de un trie en línea recta repartiendo las direcciones
+     * @param trie: trie con las palabras del diccionario
+     * @param toroidal: si las líneas siguen del otro lado al llegar a un borde
+     * @param oyente: recibe las palabras encontradas y el progreso, o null
+     * @return Set string de palabras encontradas
+     */
+    public Set<String> buscarEnLineas(IndiceDiccionario trie, boolean toroidal, OyenteBusqueda oyente) {
+        Set<String> encontradas = ConcurrentHashMap.newKeySet();
+        try {
+            AutomataAhoCorasick automata = buscador.automataLineas(trie, toroidal);
+            Direccion[] direcciones = Direccion.values();
+            Contexto contexto = new Contexto(buscador, conAviso(encontradas, oyente), oyente, direcciones.length);
+            ejecutar(new TareaLineas(contexto, automata, toroidal, direcciones, 0, direcciones.length), contexto);
+        } finally {
+            if (poolPropio) {
+                pool.shutdown();
+            }
+        }
+        return encontradas;
+    }
+
+    /**
+     * Ejecutar la tarea raíz en el pool y esperarla. Si el hilo que espera se interrumpe,
+     * se cancela la búsqueda, se espera a las tareas que ya empezaron y el hilo queda
+     * interrumpido. Los errores de las tareas se lanzan como en ForkJoinPool.invoke.
+     * @param tarea: tarea raíz de la búsqueda
+     * @param contexto: estado compartido por las tareas de la búsqueda
+     */
+    private void ejecutar(ForkJoinTask<?> tarea, Contexto contexto) {
+        pool.execute(tarea);
+        try {
+            tarea.get();
+        } catch (InterruptedException ex) {
+            contexto.cancelada = true;
+            tarea.quietlyJoin();
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException ex) {
+            Throwable causa = ex.getCause();
+            if (causa instanceof RuntimeException)
+                throw (RuntimeException) causa;
+            if (causa instanceof Error)
+                throw (Error) causa;
+            throw new IllegalStateException(causa);
+        }
+    }
+
+    private static Set<String> conAviso(Set<String> encontradas, OyenteBusqueda oyente) {
+        return oyente != null ? new BuscadorPalabras.ConjuntoConAviso(encontradas, oyente) : encontradas;
+    }
+
+    private int tamanoBloque(int total) {
+        return Math.max(1, total / (pool.getParallelism() * BLOQUES_POR_HILO));
+    }
+
+    /**
+     * Tarea que busca un bloque de palabras del diccionario
+     */
+    private static final class TareaPalabras extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final transient Contexto contexto;
+        private final String[] palabras;
+        private final int desde, hasta, bloque;
+        private final MetodoBusqueda metodo;
+
+        TareaPalabras(Contexto contexto, String[] palabras, int desde, int hasta, int bloque, MetodoBusqueda metodo) {
+            this.contexto = contexto;
+            this.palabras = palabras;
+            this.desde = desde;
+            this.hasta = hasta;
+            this.bloque = bloque;
+            this.metodo = metodo;
+        }
+
+        @Override
+        protected void compute() {
+            if (contexto.cancelada)
+                return;
+            if (hasta - desde <= bloque) {
+                contexto.buscador.buscarBloque(palabras, desde, hasta, metodo, contexto.encontradas);
+                contexto.terminadas(hasta - desde);
+                return;
+            }
+            int medio = (desde + hasta) >>> 1;
+            invokeAll(new TareaPalabras(contexto, palabras, desde, medio, bloque, metodo),
+                      new TareaPalabras(contexto, palabras, medio, hasta, bloque, metodo));
+        }
+    }
+
+    /**
+     * Tarea que recorre el tablero con el trie desde un bloque de celdas iniciales
+     */
+    private static final class TareaCeldas extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final transient Contexto contexto;
+        private final transient IndiceDiccionario trie;
+        // Palabras encontradas bajo cada nodo del trie, compartidas por todas las tareas
+        private final AtomicIntegerArray halladas;
+        private final int desde, hasta, bloque;
+
+        TareaCeldas(Contexto contexto, IndiceDiccionario trie, AtomicIntegerArray halladas, int desde, int hasta,
+                    int bloque) {
+            this.contexto = contexto;
+            this.trie = trie;
+            this.halladas = halladas;
+            this.desde = desde;
+            this.hasta = hasta;
+            this.bloque = bloque;
+        }
+
+        @Override
+        protected void compute() {
+            if (contexto.cancelada)
+                return;
+            if (hasta - desde <= bloque) {
+                contexto.buscador.buscarEnTrieDesde(trie, desde, hasta, contexto.encontradas, halladas);
+                contexto.terminadas(hasta - desde);
+                return;
+            }
+            int medio = (desde + hasta) >>> 1;
+            invokeAll(new TareaCeldas(contexto, trie, halladas, desde, medio, bloque),
+                      new TareaCeldas(contexto, trie, halladas, medio, hasta, bloque));
+        }
+    }
+
+    /**
+     * Tarea que recorre con el autómata las líneas de un rango de direcciones
+     */
+    private static final class TareaLineas extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final transient Contexto contexto;
+        private final transient AutomataAhoCorasick automata;
+        private final boolean toroidal;
+        private final Direccion[] direcciones;
+        private final int desde, hasta;
+
+        TareaLineas(Contexto contexto, AutomataAhoCorasick automata, boolean toroidal, Direccion[] direcciones,
+                    int desde, int hasta) {
+            this.contexto = contexto;
+            this.automata = automata;
+            this.toroidal = toroidal;
+            this.direcciones = direcciones;
+            this.desde = desde;
+            this.hasta = hasta;
+        }
+
+        @Override
+        protected void compute() {
+            if (contexto.cancelada)
+                return;
+            if (hasta - desde == 1) {
+                contexto.buscador.buscarEnLineas(automata, direcciones[desde], toroidal, contexto.encontradas);
+                contexto.terminadas(1);
+                return;
+            }
+            int medio = (desde + hasta) >>> 1;
+            invokeAll(new TareaLineas(contexto, automata, toroidal, direcciones, desde, medio),
+                      new TareaLineas(contexto, automata, toroidal, direcciones, medio, hasta));
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package sopaletras;
+
+import jdk.incubator.vector.ByteVector;
+import jdk.incubator.vector.LongVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * Operaciones de TableroCompacto con la Vector API (jdk.incubator.vector): compara
+ * muchas celdas contra un código de letra en una sola instrucción y desplaza los
+ * mapas de bits de a varias palabras por vez. Solo se carga si la JVM arrancó con
+ * --add-modules jdk.incubator.vector; si no, TableroCompacto usa la versión escalar.
+ *
+ * Compilar con: javac --add-modules jdk.incubator.vector ...
+ */
+public class BusquedaVectorial implements TableroCompacto.Operaciones {
+    private static final VectorSpecies<Byte> BYTES = ByteVector.SPECIES_PREFERRED;
+    private static final VectorSpecies<Long> LONGS = LongVector.SPECIES_PREFERRED;
+
+    @Override
+    public void marcar(byte[] codigos, long[][] mapas, int relleno) {
+        int carriles = BYTES.length();
+        int p = 0;
+        // Cada comparación da una máscara con un bit por celda, que va directo al mapa de esa letra
+        if (carriles <= 64) {
+            int limite = BYTES.loopBound(codigos.length);
+            for (; p < limite; p += carriles) {
+                ByteVector bloque = ByteVector.fromArray(BYTES, codigos, p);
+                int palabra = relleno + (p >>> 6);
+                int corrimiento = p & 63;
+                for (int c = 1; c < mapas.length; c++) {
+                    long bits = bloque.eq((byte) c).toLong();
+                    if (bits != 0)
+                        mapas[c][palabra] |= bits << corrimiento;
+                }
+            }
+        }
+        for (; p < codigos.length; p++) {
+            int c = codigos[p] & 0xFF;
+            if (c != TableroCompacto.BORDE)
+                mapas[c][relleno + (p >>> 6)] |= 1L << p;
+        }
+    }
+
+    @Override
+    public boolean expandir(long[] origen, long[] filtro, long[] destino, int[] desplazamientos,
+                            int desde, int hasta) {
+        int carriles = LONGS.length();
+        LongVector alguno = LongVector.zero(LONGS);
+        int i = desde;
+        for (; i + carriles <= hasta; i += carriles) {
+            LongVector vecinos = LongVector.zero(LONGS);
+            for (int d : desplazamientos) {
+                int q = i + (d >> 6);
+                int s = d & 63;
+                LongVector bajo = LongVector.fromArray(LONGS, origen, q);
+                if (s == 0) {
+                    vecinos = vecinos.or(bajo);
+                } else {
+                    LongVector alto = LongVector.fromArray(LONGS, origen, q + 1);
+                    vecinos = vecinos.or(bajo.lanewise(VectorOperators.LSHR, s))
+                                     .or(alto.lanewise(VectorOperators.LSHL, 64 - s));
+                }
+            }
+            LongVector resultado = vecinos.and(LongVector.fromArray(LONGS, filtro, i));
+            resultado.intoArray(destino, i);
+            alguno = alguno.or(resultado);
+        }
+        long resto = alguno.reduceLanes(VectorOperators.OR);
+        for (; i < hasta; i++) {
+            long vecinos = 0;
+            for (int d : desplazamientos) {
+                vecinos |= TableroCompacto.palabraDesplazada(origen, i, d);
+            }
+            destino[i] = vecinos & filtro[i];
+            resto |= destino[i];
+        }
+        return resto != 0;
+    }
+}
@@ -0,0 +1,320 @@
+package sopaletras;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Caché de resultados delante de BuscadorPalabras.
+ * Las soluciones completas se guardan con la huella (hash de 64 bits) del tablero y la
+ * del diccionario; las búsquedas de una sola palabra, con la huella del tablero y la
+ * palabra. DFS, BFS y TRIE dan la misma respuesta, así que el método no forma parte de
+ * la clave y cambiar entre ellos también aprovecha la caché; los métodos en línea recta
+ * dan otra, así que la huella de la consulta se combina con el método (huellaModo).
+ * Se limita por cantidad de entradas y por bytes aproximados, se descarta la entrada
+ * usada hace más tiempo (LRU) y se puede guardar y cargar de disco.
+ */
+public class CacheResultados {
+    private static final int MAGICO = 0x534F5043; // "SOPC"
+    private static final int VERSION = 1;
+    // Bytes aproximados de una entrada vacía y de cada palabra guardada
+    private static final long BYTES_ENTRADA = 96;
+    private static final long BYTES_PALABRA = 48;
+
+    /**
+     * Clave de una entrada de la caché
+     * @param tablero: huella del tablero
+     * @param consulta: huella del diccionario o de la palabra buscada
+     */
+    private record Clave(long tablero, long consulta) {}
+
+    private final int maxEntradas;
+    private final long maxBytes;
+    private final LinkedHashMap<Clave, Set<String>> soluciones = new LinkedHashMap<>(16, 0.75f, true);
+    private final LinkedHashMap<Clave, Boolean> palabras = new LinkedHashMap<>(16, 0.75f, true);
+    private long bytesUsados;
+    private long aciertos;
+    private long fallos;
+    private long descartes;
+
+    /**
+     * @param maxEntradas: cantidad máxima de soluciones y también de palabras guardadas
+     * @param maxBytes: bytes aproximados máximos que pueden ocupar las soluciones
+     */
+    public CacheResultados(int maxEntradas, long maxBytes) {
+        if (maxEntradas < 1 || maxBytes < 1)
+            throw new IllegalArgumentException("Los límites de la caché deben ser positivos");
+        this.maxEntradas = maxEntradas;
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * Buscar todas las palabras, usando la caché si el tablero y el diccionario ya se resolvieron
+     * @param buscador: buscador con el tablero
+     * @param diccionario: palabras a buscar
+     * @param metodo: método de búsqueda a usar si no está en la caché
+     * @return Set string de palabras encontradas, no se debe modificar
+     */
+    public Set<String> buscarTodasLasPalabras(BuscadorPalabras buscador, Set<String> diccionario, MetodoBusqueda metodo) {
+        long huellaDiccionario = huellaModo(huellaDiccionario(diccionario), metodo);
+        Set<String> guardada = obtener(buscador.huella(), huellaDiccionario);
+        if (guardada != null)
+            return guardada;
+        Set<String> encontradas = buscador.buscarTodasLasPalabras(diccionario, metodo);
+        return guardar(buscador.huella(), huellaDiccionario, encontradas);
+    }
+
+    /**
+     * Buscar una palabra, usando la caché si ya se buscó en este tablero
+     * @param buscador: buscador con el tablero
+     * @param palabra: palabra a buscar
+     * @param metodo: método de búsqueda a usar si no está en la caché
+     * @return bool
+     */
+    public boolean buscarPalabra(BuscadorPalabras buscador, String palabra, MetodoBusqueda metodo) {
+        Clave clave = new Clave(buscador.huella(), huellaModo(huellaPalabra(palabra), metodo));
+        synchronized (this) {
+            Boolean guardada = palabras.get(clave);
+            if (guardada != null) {
+                aciertos++;
+                return guardada;
+            }
+            fallos++;
+        }
+        boolean encontrada = buscador.buscarPalabra(palabra, metodo);
+        synchronized (this) {
+            palabras.put(clave, encontrada);
+            if (palabras.size() > maxEntradas) {
+                Iterator<Clave> it = palabras.keySet().iterator();
+                it.next();
+                it.remove();
+                descartes++;
+            }
+        }
+        return encontrada;
+    }
+
+    /**
+     * Obtener una solución guardada
+     * @param huellaTablero: huella del tablero
+     * @param huellaDiccionario: huella del diccionario
+     * @return Set string de palabras encontradas, o null si no está en la caché
+     */
+    public synchronized Set<String> obtener(long huellaTablero, long huellaDiccionario) {
+        Set<String> guardada = soluciones.get(new Clave(huellaTablero, huellaDiccionario));
+        if (guardada != null) {
+            aciertos++;
+        } else {
+            fallos++;
+        }
+        return guardada;
+    }
+
+    /**
+     * Guardar una solución completa; no se deben guardar resultados de búsquedas canceladas
+     * @param huellaTablero: huella del tablero
+     * @param huellaDiccionario: huella del diccionario
+     * @param encontradas: palabras encontradas
+     * @return copia inmutable de las palabras guardadas
+     */
+    public synchronized Set<String> guardar(long huellaTablero, long huellaDiccionario, Set<String> encontradas) {
+        Set<String> copia = Set.copyOf(encontradas);
+        Set<String> anterior = soluciones.put(new Clave(huellaTablero, huellaDiccionario), copia);
+        if (anterior != null)
+            bytesUsados -= bytesDe(anterior);
+        bytesUsados += bytesDe(copia);
+        // Descartar las entradas usadas hace más tiempo, pero nunca la recién guardada
+        Iterator<Set<String>> it = soluciones.values().iterator();
+        while ((soluciones.size() > maxEntradas || bytesUsados > maxBytes) && soluciones.size() > 1) {
+            bytesUsados -= bytesDe(it.next());
+            it.remove();
+            descartes++;
+        }
+        return copia;
+    }
+
+    private static long bytesDe(Set<String> palabras) {
+        long bytes = BYTES_ENTRADA;
+        for (String palabra : palabras) {
+            bytes += BYTES_PALABRA + 2L * palabra.length();
+        }
+        return bytes;
+    }
+
+    /**
+     * Calcular la huella de un tablero a partir de su tamaño y sus letras
+     * @param filas: cantidad de filas
+     * @param columnas: cantidad de columnas
+     * @param celdas: letras del tablero por filas
+     * @return huella de 64 bits
+     */
+    public static long huellaTablero(int filas, int columnas, char[] celdas) {
+        long h = mezclar(((long) filas << 32) | columnas);
+        for (char c : celdas) {
+            h = mezclar(h ^ c);
+        }
+        return h;
+    }
+
+    /**
+     * Calcular la huella de un diccionario; no depende del orden de las palabras
+     * @param diccionario: palabras del diccionario
+     * @return huella de 64 bits
+     */
+    public static long huellaDiccionario(Set<String> diccionario) {
+        // DiccionarioInmutable la calcula una sola vez al crearse
+        if (diccionario instanceof DiccionarioInmutable)
+            return ((DiccionarioInmutable) diccionario).huella();
+        long suma = 0;
+        for (String palabra : diccionario) {
+            suma += huellaPalabra(palabra);
+        }
+        return huellaDiccionario(suma, diccionario.size());
+    }
+
+    /**
+     * Calcular la huella de un diccionario a partir de la suma de las huellas de sus
+     * palabras, para poder calcularla mientras las palabras se leen de un archivo
+     * @param sumaHuellas: suma de huellaPalabra de todas las palabras, sin repetir
+     * @param cantidad: cantidad de palabras
+     * @return huella de 64 bits
+     */
+    public static long huellaDiccionario(long sumaHuellas, int cantidad) {
+        return mezclar(sumaHuellas ^ mezclar(cantidad));
+    }
+
+    /**
+     * Combinar la huella de una consulta con el método de búsqueda. Con DFS, BFS y TRIE
+     * no cambia, porque dan la misma respuesta; con cada método en línea recta da otra huella.
+     * @param huellaConsulta: huella del diccionario o de la palabra buscada
+     * @param metodo: método de búsqueda
+     * @return huella de 64 bits
+     */
+    public static long huellaModo(long huellaConsulta, MetodoBusqueda metodo) {
+        return metodo.esLineal() ? mezclar(huellaConsulta ^ huellaPalabra(metodo.name())) : huellaConsulta;
+    }
+
+    /**
+     * Calcular la huella de una palabra
+     * @param palabra: palabra
+     * @return huella de 64 bits
+     */
+    public static long huellaPalabra(CharSequence palabra) {
+        long h = 0x9E3779B97F4A7C15L;
+        for (int i = 0; i < palabra.length(); i++) {
+            h = mezclar(h ^ palabra.charAt(i));
+        }
+        return mezclar(h ^ palabra.length());
+    }
+
+    /**
+     * Calcular la huella de una palabra guardada en un arreglo, igual a huellaPalabra(String)
+     * @param letras: arreglo con las letras
+     * @param largo: cantidad de letras
+     * @return huella de 64 bits
+     */
+    public static long huellaPalabra(char[] letras, int largo) {
+        long h = 0x9E3779B97F4A7C15L;
+        for (int i = 0; i < largo; i++) {
+            h = mezclar(h ^ letras[i]);
+        }
+        return mezclar(h ^ largo);
+    }
+
+    // Función de mezcla de SplitMix64
+    static long mezclar(long x) {
+        x += 0x9E3779B97F4A7C15L;
+        x = (x ^ (x >>> 30)) * 0xBF58476D1CE4E5B9L;
+        x = (x ^ (x >>> 27)) * 0x94D049BB133111EBL;
+        return x ^ (x >>> 31);
+    }
+
+    /**
+     * Guardar las soluciones de la caché en disco, en un archivo temporal que luego reemplaza al destino
+     * @param archivo: archivo destino
+     * @throws IOException si no se puede escribir
+     */
+    public synchronized void guardarEnDisco(Path archivo) throws IOException {
+        Path temporal = archivo.resolveSibling(archivo.getFileName() + ".tmp");
+        try (DataOutputStream salida = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temporal)))) {
+            salida.writeInt(MAGICO);
+            salida.writeInt(VERSION);
+            salida.writeInt(soluciones.size());
+            for (Map.Entry<Clave, Set<String>> entrada : soluciones.entrySet()) {
+                salida.writeLong(entrada.getKey().tablero());
+                salida.writeLong(entrada.getKey().consulta());
+                salida.writeInt(entrada.getValue().size());
+                for (String palabra : entrada.getValue()) {
+                    salida.writeUTF(palabra);
+                }
+            }
+            salida.writeInt(palabras.size());
+            for (Map.Entry<Clave, Boolean> entrada : palabras.entrySet()) {
+                salida.writeLong(entrada.getKey().tablero());
+                salida.writeLong(entrada.getKey().consulta());
+                salida.writeBoolean(entrada.getValue());
+            }
+        }
+        Files.move(temporal, archivo, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Cargar en la caché las soluciones guardadas en disco
+     * @param archivo: archivo guardado con guardarEnDisco
+     * @throws IOException si no se puede leer o no tiene el formato esperado
+     */
+    public synchronized void cargarDeDisco(Path archivo) throws IOException {
+        try (DataInputStream entrada = new DataInputStream(new BufferedInputStream(Files.newInputStream(archivo)))) {
+            if (entrada.readInt() != MAGICO || entrada.readInt() != VERSION)
+                throw new IOException("El archivo no es una caché de resultados compatible");
+            int cantidad = entrada.readInt();
+            for (int i = 0; i < cantidad; i++) {
+                long tablero = entrada.readLong();
+                long consulta = entrada.readLong();
+                String[] encontradas = new String[entrada.readInt()];
+                for (int j = 0; j < encontradas.length; j++) {
+                    encontradas[j] = entrada.readUTF();
+                }
+                guardar(tablero, consulta, Set.of(encontradas));
+            }
+            cantidad = entrada.readInt();
+            for (int i = 0; i < cantidad; i++) {
+                palabras.put(new Clave(entrada.readLong(), entrada.readLong()), entrada.readBoolean());
+            }
+            while (palabras.size() > maxEntradas) {
+                Iterator<Clave> it = palabras.keySet().iterator();
+                it.next();
+                it.remove();
+            }
+        }
+    }
+
+    public synchronized long getAciertos() {
+        return aciertos;
+    }
+
+    public synchronized long getFallos() {
+        return fallos;
+    }
+
+    /**
+     * @return texto con las estadísticas de uso de la caché
+     */
+    public synchronized String estadisticas() {
+        long consultas = aciertos + fallos;
+        return String.format(Locale.ROOT,
+            "Caché: %d aciertos, %d fallos (%.1f%% de aciertos), %d soluciones (%d KB), %d palabras, %d descartes",
+            aciertos, fallos, consultas == 0 ? 0.0 : 100.0 * aciertos / consultas,
+            soluciones.size(), bytesUsados / 1024, palabras.size(), descartes);
+    }
+}
@@ -0,0 +1,27 @@
+package sopaletras;
+
+/**
+ * Aparición de una palabra en línea recta en el tablero
+ * @param palabra: palabra encontrada
+ * @param fila: fila de la primera letra
+ * @param columna: columna de la primera letra
+ * @param direccion: dirección en que sigue la palabra desde la primera letra
+ */
+public record Coincidencia(String palabra, int fila, int columna, Direccion direccion) {
+
+    /**
+     * Calcular las celdas de la aparición; si cruza un borde sigue del otro lado
+     * @param filas: filas del tablero
+     * @param columnas: columnas del tablero
+     * @return celdas de cada letra en orden (celda = fila * columnas + col)
+     */
+    public int[] celdas(int filas, int columnas) {
+        int[] celdas = new int[palabra.length()];
+        for (int i = 0; i < celdas.length; i++) {
+            int r = Math.floorMod(fila + i * direccion.getPasoFila(), filas);
+            int c = Math.floorMod(columna + i * direccion.getPasoColumna(), columnas);
+            celdas[i] = r * columnas + c;
+        }
+        return celdas;
+    }
+}
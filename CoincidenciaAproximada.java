@@ -0,0 +1,11 @@
+package sopaletras;
+
+/**
+ * Secuencia del tablero que coincide con un patrón con comodines o a distancia de
+ * edición acotada (BuscadorPalabras.buscarAproximadas)
+ * @param palabra: letras del tablero que coinciden
+ * @param distancia: distancia de edición al patrón, 0 si coincide exacto o solo con comodines
+ * @param camino: celdas de una aparición en orden (celda = fila * columnas + col)
+ */
+public record CoincidenciaAproximada(String palabra, int distancia, int[] camino) {
+}
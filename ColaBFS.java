@@ -0,0 +1,132 @@
+package sopaletras;
+
+/**
+ * Cola circular de arreglos primitivos para la búsqueda BFS.
+ * Cada entrada guarda el camino de celdas recorrido desde la celda inicial y una
+ * máscara de 64 bits (bit celda % 64) que permite descartar rápido las celdas que
+ * el camino no ha usado. La cola crece hasta una capacidad máxima y no más, de modo
+ * que la memoria de la búsqueda queda acotada.
+ */
+public class ColaBFS {
+    // Largo máximo de un arreglo en la JVM; caminos guarda capacidad * largoMaximo celdas
+    private static final int MAX_CELDAS = Integer.MAX_VALUE - 8;
+
+    private final int largoMaximo;
+    private final int capacidadMaxima;
+    private int[] caminos;
+    private int[] largos;
+    private long[] mascaras;
+    private int frente;
+    private int tamano;
+
+    /**
+     * @param largoMaximo: largo máximo de un camino (el largo de la palabra)
+     * @param capacidadMaxima: cantidad máxima de entradas en la cola; se reduce si los
+     *                         caminos no caben en un arreglo
+     */
+    public ColaBFS(int largoMaximo, int capacidadMaxima) {
+        this.largoMaximo = largoMaximo;
+        this.capacidadMaxima = Math.min(capacidadMaxima, MAX_CELDAS / Math.max(1, largoMaximo));
+        int capacidad = Math.min(this.capacidadMaxima, 64);
+        caminos = new int[(int) ((long) capacidad * largoMaximo)];
+        largos = new int[capacidad];
+        mascaras = new long[capacidad];
+    }
+
+    /**
+     * Agregar un camino al final de la cola
+     * @param camino: celdas del camino, se copian
+     * @param largo: cantidad de celdas del camino
+     * @param mascara: máscara de celdas usadas por el camino
+     * @return false si la cola ya alcanzó su capacidad máxima
+     */
+    public boolean agregar(int[] camino, int largo, long mascara) {
+        if (tamano == largos.length && !crecer())
+            return false;
+        int pos = (frente + tamano) % largos.length;
+        System.arraycopy(camino, 0, caminos, pos * largoMaximo, largo);
+        largos[pos] = largo;
+        mascaras[pos] = mascara;
+        tamano++;
+        return true;
+    }
+
+    /**
+     * Copiar el camino del frente de la cola
+     * @param destino: arreglo donde copiar las celdas
+     * @return largo del camino copiado
+     */
+    public int copiarFrente(int[] destino) {
+        int largo = largos[frente];
+        System.arraycopy(caminos, frente * largoMaximo, destino, 0, largo);
+        return largo;
+    }
+
+    public long mascaraFrente() {
+        return mascaras[frente];
+    }
+
+    /**
+     * Quitar la entrada del frente de la cola
+     */
+    public void quitarFrente() {
+        frente = (frente + 1) % largos.length;
+        tamano--;
+    }
+
+    public boolean estaVacia() {
+        return tamano == 0;
+    }
+
+    public int tamano() {
+        return tamano;
+    }
+
+    /**
+     * Vaciar la cola para reutilizarla sin liberar su memoria
+     */
+    public void vaciar() {
+        frente = 0;
+        tamano = 0;
+    }
+
+    /**
+     * Indica si una celda ya forma parte de un camino
+     * @param celda: celda a revisar
+     * @param camino: celdas del camino
+     * @param largo: cantidad de celdas del camino
+     * @param mascara: máscara de celdas usadas por el camino
+     * @return bool
+     */
+    public static boolean usaCelda(int celda, int[] camino, int largo, long mascara) {
+        if ((mascara & (1L << (celda & 63))) == 0)
+            return false;
+        for (int i = 0; i < largo; i++) {
+            if (camino[i] == celda)
+                return true;
+        }
+        return false;
+    }
+
+    private boolean crecer() {
+        int capacidad = largos.length;
+        if (capacidad >= capacidadMaxima)
+            return false;
+        int nuevaCapacidad = (int) Math.min(capacidadMaxima, 2L * capacidad);
+        int[] nuevosCaminos = new int[(int) ((long) nuevaCapacidad * largoMaximo)];
+        int[] nuevosLargos = new int[nuevaCapacidad];
+        long[] nuevasMascaras = new long[nuevaCapacidad];
+        // Copiar las entradas en orden para que el frente quede en la posición 0
+        for (int i = 0; i < tamano; i++) {
+            int pos = (frente + i) % capacidad;
+            System.arraycopy(caminos, pos * largoMaximo, nuevosCaminos, i * largoMaximo, largoMaximo);
+            nuevosLargos[i] = largos[pos];
+            nuevasMascaras[i] = mascaras[pos];
+        }
+        caminos = nuevosCaminos;
+        largos = nuevosLargos;
+        mascaras = nuevasMascaras;
+        frente = 0;
+        return true;
+    }
+}
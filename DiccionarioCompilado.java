@@ -0,0 +1,188 @@
+package sopaletras;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Diccionario precompilado en un formato binario compacto que se usa directo
+ * desde el archivo mapeado en memoria, sin convertirlo en objetos de Java.
+ *
+ * Formato (enteros big-endian):
+ *   cabecera: "SOPD" | versión (int) | cantidad de nodos n (int) | cantidad de palabras (int)
+ *   primerHijo: n + 1 enteros; los hijos del nodo i son los nodos primerHijo[i] .. primerHijo[i + 1] - 1
+ *   letras: n caracteres (2 bytes), la letra de la arista que llega a cada nodo
+ *   terminales: (n + 7) / 8 bytes, bit i encendido si en el nodo i termina una palabra
+ *
+ * Los nodos están numerados en orden BFS y los hermanos ordenados por letra, así
+ * que los hijos de un nodo son contiguos y se encuentran con búsqueda binaria.
+ *
+ * Uso: java sopaletras.DiccionarioCompilado entrada.txt salida.sdic
+ */
+public class DiccionarioCompilado implements IndiceDiccionario {
+    private static final int MAGICO = 0x534F5044; // "SOPD"
+    public static final int VERSION = 1;
+    private static final int TAMANO_CABECERA = 16;
+
+    private final ByteBuffer datos;
+    private final int cantidadNodos;
+    private final int cantidadPalabras;
+    private final int inicioPrimerHijo;
+    private final int inicioLetras;
+    private final int inicioTerminales;
+    // Palabras que empiezan con el prefijo de cada nodo; el archivo no las guarda, se
+    // calculan la primera vez que se piden
+    private volatile int[] palabras;
+
+    private DiccionarioCompilado(ByteBuffer datos) throws IOException {
+        if (datos.capacity() < TAMANO_CABECERA || datos.getInt(0) != MAGICO)
+            throw new IOException("El archivo no es un diccionario compilado");
+        if (datos.getInt(4) != VERSION)
+            throw new IOException("Versión de diccionario compilado no soportada: " + datos.getInt(4));
+        this.datos = datos;
+        this.cantidadNodos = datos.getInt(8);
+        this.cantidadPalabras = datos.getInt(12);
+        this.inicioPrimerHijo = TAMANO_CABECERA;
+        this.inicioLetras = inicioPrimerHijo + 4 * (cantidadNodos + 1);
+        this.inicioTerminales = inicioLetras + 2 * cantidadNodos;
+        if (cantidadNodos < 1 || datos.capacity() != inicioTerminales + (cantidadNodos + 7) / 8)
+            throw new IOException("El diccionario compilado está incompleto o dañado");
+    }
+
+    /**
+     * Abrir un diccionario compilado mapeando el archivo en memoria
+     * @param archivo: archivo compilado
+     * @return DiccionarioCompilado
+     * @throws IOException si el archivo no se puede leer o no tiene el formato esperado
+     */
+    public static DiccionarioCompilado abrir(Path archivo) throws IOException {
+        try (FileChannel canal = FileChannel.open(archivo, StandardOpenOption.READ)) {
+            return new DiccionarioCompilado(canal.map(FileChannel.MapMode.READ_ONLY, 0, canal.size()));
+        }
+    }
+
+    /**
+     * Escribir un trie en el formato compilado, con la numeración de TrieCongelado.
+     * Se escribe en un archivo temporal que luego reemplaza al destino.
+     * @param trie: trie con las palabras
+     * @param destino: archivo donde escribir
+     * @throws IOException si no se puede escribir
+     */
+    public static void compilar(TrieDiccionario trie, Path destino) throws IOException {
+        TrieCongelado congelado = new TrieCongelado(trie);
+        int n = congelado.cantidadNodos();
+
+        Path temporal = destino.resolveSibling(destino.getFileName() + ".tmp");
+        try (OutputStream archivo = Files.newOutputStream(temporal);
+             DataOutputStream salida = new DataOutputStream(new BufferedOutputStream(archivo, 1 << 16))) {
+            salida.writeInt(MAGICO);
+            salida.writeInt(VERSION);
+            salida.writeInt(n);
+            salida.writeInt(congelado.cantidadPalabras());
+            for (int i = 0; i <= n; i++) {
+                salida.writeInt(i < n ? congelado.primerHijo(i) : congelado.finHijos(n - 1));
+            }
+            for (int i = 0; i < n; i++) {
+                salida.writeChar(congelado.letra(i));
+            }
+            for (int i = 0; i < (n + 7) / 8; i++) {
+                salida.writeByte(congelado.byteTerminales(i));
+            }
+        }
+        Files.move(temporal, destino, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    @Override
+    public int raiz() {
+        return 0;
+    }
+
+    @Override
+    public int hijo(int nodo, char letra) {
+        int bajo = datos.getInt(inicioPrimerHijo + 4 * nodo);
+        int alto = datos.getInt(inicioPrimerHijo + 4 * (nodo + 1)) - 1;
+        while (bajo <= alto) {
+            int medio = (bajo + alto) >>> 1;
+            char actual = datos.getChar(inicioLetras + 2 * medio);
+            if (actual < letra) {
+                bajo = medio + 1;
+            } else if (actual > letra) {
+                alto = medio - 1;
+            } else {
+                return medio;
+            }
+        }
+        return NINGUNO;
+    }
+
+    @Override
+    public boolean esTerminal(int nodo) {
+        return (datos.get(inicioTerminales + (nodo >>> 3)) & (1 << (nodo & 7))) != 0;
+    }
+
+    @Override
+    public int cantidadPalabras() {
+        return cantidadPalabras;
+    }
+
+    @Override
+    public int cantidadNodos() {
+        return cantidadNodos;
+    }
+
+    @Override
+    public int palabrasDesde(int nodo) {
+        int[] cuentas = palabras;
+        if (cuentas == null) {
+            // Los hijos tienen números mayores que su padre, así que se suman de atrás hacia adelante.
+            // Dos hilos pueden calcularlas a la vez; los dos calculan lo mismo.
+            cuentas = new int[cantidadNodos];
+            for (int i = cantidadNodos - 1; i >= 0; i--) {
+                int fin = datos.getInt(inicioPrimerHijo + 4 * (i + 1));
+                int cuenta = esTerminal(i) ? 1 : 0;
+                for (int h = datos.getInt(inicioPrimerHijo + 4 * i); h < fin; h++) {
+                    cuenta += cuentas[h];
+                }
+                cuentas[i] = cuenta;
+            }
+            palabras = cuentas;
+        }
+        return cuentas[nodo];
+    }
+
+    /**
+     * Calcular la huella de 64 bits del contenido del archivo, usada como clave en CacheResultados
+     * @return huella de 64 bits
+     */
+    public long huella() {
+        long h = CacheResultados.mezclar(datos.capacity());
+        int i = 0;
+        for (; i + 8 <= datos.capacity(); i += 8) {
+            h = CacheResultados.mezclar(h ^ datos.getLong(i));
+        }
+        for (; i < datos.capacity(); i++) {
+            h = CacheResultados.mezclar(h ^ datos.get(i));
+        }
+        return h;
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length != 2) {
+            System.err.println("Uso: java sopaletras.DiccionarioCompilado entrada.txt salida.sdic");
+            System.exit(2);
+        }
+        TrieDiccionario trie = new TrieDiccionario();
+        LectorSopa.leerDiccionario(new File(args[0]), (letras, largo) -> trie.insertar(letras, 0, largo));
+        compilar(trie, Path.of(args[1]));
+        System.out.println("Diccionario compilado: " + trie.cantidadPalabras() + " palabras, "
+                + trie.cantidadNodos() + " nodos, " + Files.size(Path.of(args[1])) + " bytes");
+    }
+}
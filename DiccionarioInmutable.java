@@ -0,0 +1,436 @@
+package sopaletras;
+
+import java.lang.ref.WeakReference;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+/**
+ * Diccionario que no cambia después de crearse, para que varias búsquedas lo recorran a
+ * la vez sin cerrojos. Las palabras se guardan en un TrieCongelado con el mismo esquema
+ * que DiccionarioCompilado, pero en arreglos en memoria: los nodos en orden BFS y los
+ * hermanos ordenados por letra, así que los hijos de un nodo son contiguos y se encuentran
+ * con búsqueda binaria. Ocupa unos 10 bytes por nodo en lugar de un String y una entrada
+ * de HashSet por palabra.
+ *
+ * Para cambiarlo se arma una versión nueva (con, sin) y se publica, por ejemplo con un
+ * AtomicReference; quien ya tenía la versión anterior la sigue usando sin ver el cambio.
+ * Las palabras agregadas con con no tocan el trie congelado, que se comparte entre
+ * versiones: van a un trie chico de nodos que no cambian, donde agregar una palabra copia
+ * solo los nodos de su camino. Cuando esas palabras pasan de una fracción de las
+ * congeladas se congela todo de nuevo, y el trie completo para las búsquedas se arma
+ * recién cuando una búsqueda pide indice(), en el hilo de esa búsqueda.
+ * Los diccionarios con las mismas palabras se comparten: de y desde devuelven la copia que
+ * ya esté en memoria en lugar de crear otra.
+ *
+ * Es un Set de String (se recorre en orden alfabético) y su trie se obtiene con indice(),
+ * así que las búsquedas con trie lo recorren directo sin armar otro.
+ */
+public final class DiccionarioInmutable extends AbstractSet<String> {
+    // Copias compartidas por huella; se liberan cuando nadie más las usa
+    private static final Map<Long, WeakReference<DiccionarioInmutable>> INTERNADOS = new HashMap<>();
+    // Las palabras agregadas se congelan cuando son más que esto y que una fracción de las
+    // congeladas, así cada palabra agregada cuesta en promedio unas pocas copias
+    private static final int MIN_AGREGADAS_CONGELAR = 1024;
+    private static final int FRACCION_AGREGADAS_CONGELAR = 4;
+    public static final DiccionarioInmutable VACIO = desde(new TrieDiccionario());
+
+    private final TrieCongelado trie;
+    // Palabras agregadas después de congelar el trie, ninguna está en trie
+    private final NodoAgregado agregadas;
+    private final int cantidadAgregadas;
+    private final int largoMaximo;
+    private final long sumaHuellas;
+    private final long huella;
+    private final int codigoHash;
+    // Trie con todas las palabras, armado la primera vez que se pide si hay agregadas
+    private volatile TrieCongelado completo;
+
+    private DiccionarioInmutable(TrieDiccionario original) {
+        this.trie = new TrieCongelado(original);
+        this.agregadas = NodoAgregado.VACIO;
+        this.cantidadAgregadas = 0;
+        // La huella y el hash de Set se calculan una vez, recorriendo las palabras
+        int largo = 0;
+        long suma = 0;
+        int hash = 0;
+        Recorrido recorrido = new Recorrido(trie.cantidadNodos());
+        for (String palabra = recorrido.avanzar(); palabra != null; palabra = recorrido.avanzar()) {
+            largo = Math.max(largo, palabra.length());
+            suma += CacheResultados.huellaPalabra(palabra);
+            hash += palabra.hashCode();
+        }
+        largoMaximo = largo;
+        sumaHuellas = suma;
+        huella = CacheResultados.huellaDiccionario(suma, trie.cantidadPalabras());
+        codigoHash = hash;
+    }
+
+    private DiccionarioInmutable(TrieCongelado trie, NodoAgregado agregadas, int cantidadAgregadas,
+                                 int largoMaximo, long sumaHuellas, int codigoHash) {
+        this.trie = trie;
+        this.agregadas = agregadas;
+        this.cantidadAgregadas = cantidadAgregadas;
+        this.largoMaximo = largoMaximo;
+        this.sumaHuellas = sumaHuellas;
+        this.huella = CacheResultados.huellaDiccionario(sumaHuellas, trie.cantidadPalabras() + cantidadAgregadas);
+        this.codigoHash = codigoHash;
+    }
+
+    /**
+     * Obtener el diccionario con las palabras dadas; las palabras nulas o vacías se ignoran
+     * @param palabras: palabras del diccionario
+     * @return DiccionarioInmutable, compartido si ya había uno con las mismas palabras
+     */
+    public static DiccionarioInmutable de(Collection<String> palabras) {
+        if (palabras instanceof DiccionarioInmutable)
+            return (DiccionarioInmutable) palabras;
+        TrieDiccionario trie = new TrieDiccionario();
+        for (String palabra : palabras) {
+            trie.insertar(palabra);
+        }
+        return desde(trie);
+    }
+
+    /**
+     * Congelar las palabras de un trie; el trie se puede seguir modificando después
+     * sin que cambie el diccionario
+     * @param trie: trie con las palabras
+     * @return DiccionarioInmutable, compartido si ya había uno con las mismas palabras
+     */
+    public static DiccionarioInmutable desde(TrieDiccionario trie) {
+        return internar(new DiccionarioInmutable(trie));
+    }
+
+    /**
+     * Devolver la copia en memoria con las mismas palabras, si hay una, o registrar esta
+     * @param nuevo: diccionario recién armado
+     * @return DiccionarioInmutable compartido
+     */
+    private static DiccionarioInmutable internar(DiccionarioInmutable nuevo) {
+        synchronized (INTERNADOS) {
+            WeakReference<DiccionarioInmutable> referencia = INTERNADOS.get(nuevo.huella);
+            DiccionarioInmutable existente = referencia != null ? referencia.get() : null;
+            if (existente != null && existente.equals(nuevo))
+                return existente;
+            INTERNADOS.values().removeIf(r -> r.get() == null);
+            INTERNADOS.put(nuevo.huella, new WeakReference<>(nuevo));
+            return nuevo;
+        }
+    }
+
+    /**
+     * Crear una versión con una palabra más
+     * @param palabra: palabra a agregar
+     * @return diccionario nuevo, o este mismo si la palabra ya estaba o es vacía
+     */
+    public DiccionarioInmutable con(String palabra) {
+        return con(List.of(palabra));
+    }
+
+    /**
+     * Crear una versión con varias palabras más. El trie congelado se comparte con esta
+     * versión y cada palabra copia solo los nodos de su camino en el trie de agregadas;
+     * si las agregadas pasan de una fracción de las congeladas, se congela todo de nuevo.
+     * @param palabras: palabras a agregar
+     * @return diccionario nuevo, o este mismo si no hay ninguna palabra nueva
+     */
+    public DiccionarioInmutable con(Collection<String> palabras) {
+        // Si una búsqueda ya armó el trie completo, las palabras nuevas se agregan sobre él
+        TrieCongelado base = cantidadAgregadas > 0 && completo != null ? completo : trie;
+        NodoAgregado capa = base == trie ? agregadas : NodoAgregado.VACIO;
+        int cantidad = base == trie ? cantidadAgregadas : 0;
+        int largo = largoMaximo;
+        long suma = sumaHuellas;
+        int hash = codigoHash;
+        for (String palabra : palabras) {
+            if (palabra == null || palabra.isEmpty() || contiene(base, palabra))
+                continue;
+            NodoAgregado nueva = capa.con(palabra, 0);
+            if (nueva == capa)
+                continue;
+            capa = nueva;
+            cantidad++;
+            largo = Math.max(largo, palabra.length());
+            suma += CacheResultados.huellaPalabra(palabra);
+            hash += palabra.hashCode();
+        }
+        if (cantidad == cantidadAgregadas && base == trie)
+            return this;
+        DiccionarioInmutable nuevo = new DiccionarioInmutable(base, capa, cantidad, largo, suma, hash);
+        if (cantidad > Math.max(MIN_AGREGADAS_CONGELAR, base.cantidadPalabras() / FRACCION_AGREGADAS_CONGELAR))
+            return desde(nuevo.copiar(null));
+        return nuevo;
+    }
+
+    /**
+     * Crear una versión sin una palabra. A diferencia de con, arma el trie completo de nuevo.
+     * @param palabra: palabra a quitar
+     * @return diccionario nuevo, o este mismo si la palabra no estaba
+     */
+    public DiccionarioInmutable sin(String palabra) {
+        if (!contains(palabra))
+            return this;
+        return desde(copiar(palabra));
+    }
+
+    /**
+     * Pasar las palabras a un trie modificable
+     * @param omitida: palabra que no se copia, o null
+     * @return TrieDiccionario
+     */
+    private TrieDiccionario copiar(String omitida) {
+        TrieDiccionario trie = new TrieDiccionario();
+        for (String palabra : this) {
+            if (!palabra.equals(omitida))
+                trie.insertar(palabra);
+        }
+        return trie;
+    }
+
+    /**
+     * @return trie congelado con las palabras, para recorrerlo en las búsquedas; tampoco cambia.
+     *         Si hay palabras agregadas se arma la primera vez que se pide, en el hilo que lo pide.
+     */
+    public IndiceDiccionario indice() {
+        return congelado();
+    }
+
+    private TrieCongelado congelado() {
+        if (cantidadAgregadas == 0)
+            return trie;
+        TrieCongelado armado = completo;
+        if (armado == null) {
+            // Dos hilos pueden armarlo a la vez; los dos arman el mismo
+            armado = new TrieCongelado(copiar(null));
+            completo = armado;
+        }
+        return armado;
+    }
+
+    public int cantidadNodos() {
+        return congelado().cantidadNodos();
+    }
+
+    /**
+     * @return largo de la palabra más larga, 0 si no hay palabras
+     */
+    public int largoMaximo() {
+        return largoMaximo;
+    }
+
+    /**
+     * @return huella de 64 bits, la misma que CacheResultados.huellaDiccionario(Set)
+     */
+    public long huella() {
+        return huella;
+    }
+
+    @Override
+    public boolean contains(Object objeto) {
+        if (!(objeto instanceof String))
+            return false;
+        String palabra = (String) objeto;
+        return contiene(trie, palabra) || agregadas.contiene(palabra);
+    }
+
+    private static boolean contiene(TrieCongelado trie, String palabra) {
+        int nodo = trie.raiz();
+        for (int i = 0; i < palabra.length() && nodo != IndiceDiccionario.NINGUNO; i++) {
+            nodo = trie.hijo(nodo, palabra.charAt(i));
+        }
+        return nodo != IndiceDiccionario.NINGUNO && trie.esTerminal(nodo);
+    }
+
+    @Override
+    public int size() {
+        return trie.cantidadPalabras() + cantidadAgregadas;
+    }
+
+    /**
+     * @return las palabras en orden alfabético (por el valor de cada char)
+     */
+    @Override
+    public Iterator<String> iterator() {
+        Recorrido recorrido = new Recorrido(largoMaximo + 1);
+        // Las agregadas son pocas; se juntan ordenadas con las del trie congelado
+        Iterator<String> extra = agregadas.palabras().iterator();
+        return new Iterator<>() {
+            private String congelada = recorrido.avanzar();
+            private String agregada = extra.hasNext() ? extra.next() : null;
+
+            @Override
+            public boolean hasNext() {
+                return congelada != null || agregada != null;
+            }
+
+            @Override
+            public String next() {
+                String actual;
+                if (agregada == null || (congelada != null && congelada.compareTo(agregada) < 0)) {
+                    if (congelada == null)
+                        throw new NoSuchElementException();
+                    actual = congelada;
+                    congelada = recorrido.avanzar();
+                } else {
+                    actual = agregada;
+                    agregada = extra.hasNext() ? extra.next() : null;
+                }
+                return actual;
+            }
+        };
+    }
+
+    @Override
+    public boolean equals(Object objeto) {
+        if (objeto == this)
+            return true;
+        if (objeto instanceof DiccionarioInmutable) {
+            // Sin palabras agregadas, con las mismas palabras el trie congelado es idéntico
+            DiccionarioInmutable otro = (DiccionarioInmutable) objeto;
+            if (huella != otro.huella)
+                return false;
+            if (cantidadAgregadas == 0 && otro.cantidadAgregadas == 0)
+                return trie.equals(otro.trie);
+        }
+        return super.equals(objeto);
+    }
+
+    @Override
+    public int hashCode() {
+        return codigoHash;
+    }
+
+    /**
+     * Recorrido en profundidad del trie que entrega las palabras en orden
+     */
+    private final class Recorrido {
+        // Nodo actual y fin de sus hermanos en cada nivel; el nivel 0 es la raíz
+        private final int[] nodos;
+        private final int[] fines;
+        private final char[] prefijo;
+        private int nivel;
+        private boolean terminado;
+
+        /**
+         * @param niveles: largo de la palabra más larga + 1, o una cota
+         */
+        Recorrido(int niveles) {
+            nodos = new int[niveles];
+            fines = new int[niveles];
+            prefijo = new char[Math.max(0, niveles - 1)];
+        }
+
+        /**
+         * @return la siguiente palabra, o null si no hay más
+         */
+        String avanzar() {
+            while (!terminado) {
+                int nodo = nodos[nivel];
+                if (trie.tieneHijos(nodo)) {
+                    nivel++;
+                    nodos[nivel] = trie.primerHijo(nodo);
+                    fines[nivel] = trie.finHijos(nodo);
+                } else {
+                    while (nivel > 0 && nodos[nivel] + 1 == fines[nivel]) {
+                        nivel--;
+                    }
+                    if (nivel == 0) {
+                        terminado = true;
+                        break;
+                    }
+                    nodos[nivel]++;
+                }
+                prefijo[nivel - 1] = trie.letra(nodos[nivel]);
+                if (trie.esTerminal(nodos[nivel]))
+                    return new String(prefijo, 0, nivel);
+            }
+            return null;
+        }
+    }
+
+    /**
+     * Nodo del trie de palabras agregadas. No cambia: agregar una palabra devuelve una raíz
+     * nueva que copia los nodos del camino de la palabra y comparte todos los demás.
+     */
+    private static final class NodoAgregado {
+        static final NodoAgregado VACIO = new NodoAgregado(new char[0], new NodoAgregado[0], false);
+
+        // Letras de los hijos, ordenadas, y el hijo de cada una
+        final char[] letras;
+        final NodoAgregado[] hijos;
+        final boolean terminal;
+
+        NodoAgregado(char[] letras, NodoAgregado[] hijos, boolean terminal) {
+            this.letras = letras;
+            this.hijos = hijos;
+            this.terminal = terminal;
+        }
+
+        /**
+         * @param palabra: palabra a agregar
+         * @param i: posición de la palabra que corresponde a este nodo
+         * @return nodo con la palabra agregada, o este mismo si ya estaba
+         */
+        NodoAgregado con(String palabra, int i) {
+            if (i == palabra.length())
+                return terminal ? this : new NodoAgregado(letras, hijos, true);
+            char letra = palabra.charAt(i);
+            int posicion = Arrays.binarySearch(letras, letra);
+            if (posicion >= 0) {
+                NodoAgregado hijo = hijos[posicion].con(palabra, i + 1);
+                if (hijo == hijos[posicion])
+                    return this;
+                NodoAgregado[] nuevos = hijos.clone();
+                nuevos[posicion] = hijo;
+                return new NodoAgregado(letras, nuevos, terminal);
+            }
+            posicion = -posicion - 1;
+            char[] nuevasLetras = new char[letras.length + 1];
+            NodoAgregado[] nuevos = new NodoAgregado[hijos.length + 1];
+            System.arraycopy(letras, 0, nuevasLetras, 0, posicion);
+            System.arraycopy(hijos, 0, nuevos, 0, posicion);
+            nuevasLetras[posicion] = letra;
+            nuevos[posicion] = VACIO.con(palabra, i + 1);
+            System.arraycopy(letras, posicion, nuevasLetras, posicion + 1, letras.length - posicion);
+            System.arraycopy(hijos, posicion, nuevos, posicion + 1, hijos.length - posicion);
+            return new NodoAgregado(nuevasLetras, nuevos, terminal);
+        }
+
+        boolean contiene(String palabra) {
+            NodoAgregado nodo = this;
+            for (int i = 0; i < palabra.length(); i++) {
+                int posicion = Arrays.binarySearch(nodo.letras, palabra.charAt(i));
+                if (posicion < 0)
+                    return false;
+                nodo = nodo.hijos[posicion];
+            }
+            return nodo.terminal;
+        }
+
+        /**
+         * @return las palabras en orden alfabético
+         */
+        List<String> palabras() {
+            List<String> palabras = new ArrayList<>();
+            agregarPalabras(new StringBuilder(), palabras);
+            return palabras;
+        }
+
+        private void agregarPalabras(StringBuilder prefijo, List<String> palabras) {
+            if (terminal)
+                palabras.add(prefijo.toString());
+            for (int h = 0; h < hijos.length; h++) {
+                prefijo.append(letras[h]);
+                hijos[h].agregarPalabras(prefijo, palabras);
+                prefijo.setLength(prefijo.length() - 1);
+            }
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package sopaletras;
+
+/**
+ * Direcciones en que puede ir una palabra en línea recta, con el paso de fila y de
+ * columna de cada una (la fila crece hacia abajo y la columna hacia la derecha)
+ */
+public enum Direccion {
+    N(-1, 0),
+    NE(-1, 1),
+    E(0, 1),
+    SE(1, 1),
+    S(1, 0),
+    SO(1, -1),
+    O(0, -1),
+    NO(-1, -1);
+
+    private final int pasoFila;
+    private final int pasoColumna;
+
+    Direccion(int pasoFila, int pasoColumna) {
+        this.pasoFila = pasoFila;
+        this.pasoColumna = pasoColumna;
+    }
+
+    public int getPasoFila() {
+        return pasoFila;
+    }
+
+    public int getPasoColumna() {
+        return pasoColumna;
+    }
+}
@@ -0,0 +1,422 @@
+package sopaletras;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * Generador determinista de sopas de letras para pruebas de carga y de regresión: con
+ * la misma semilla produce siempre los mismos tableros y diccionarios, así que un caso
+ * que falla o que es lento se reproduce con solo su semilla. Los tableros pueden tener
+ * cualquier tamaño N×M y varias distribuciones de letras, incluidos tableros repetitivos
+ * que hacen explotar la frontera de BFS. Los diccionarios buscan la cantidad de palabras
+ * y la proporción de aciertos pedidas: los aciertos salen de caminos del tablero y los
+ * fallos se comprueban con DFS, así que cada palabra está o no está según lo contado en
+ * SopaGenerada. Si el tablero no da para tantas palabras distintas (un tablero chico o
+ * REPETITIVA) el diccionario queda más chico y la proporción real se aparta de la pedida;
+ * como programa lo avisa por la salida de error.
+ *
+ * Como programa escribe un corpus de archivos con el formato dic/tab que leen la GUI, la
+ * línea de comandos y el servicio HTTP. BenchmarkBuscador, BenchmarkServidor y
+ * OraculoSopas generan sus sopas con esta clase.
+ *
+ * Uso: java sopaletras.GeneradorSopas --salida directorio [--tamanos 15,100,20x30]
+ *      [--distribuciones UNIFORME,ESPANOL,REPETITIVA,ADVERSARIA] [--palabras 1000]
+ *      [--aciertos 0.5] [--largos 3-8] [--sopas 1] [--semilla 42]
+ */
+public class GeneradorSopas {
+    // Frecuencia aproximada de cada letra de la A a la Z en textos en español, por diez mil
+    private static final int[] FRECUENCIAS_ESPANOL = {
+        1253, 142, 468, 586, 1368, 69, 101, 70, 625, 44, 2, 497, 315,
+        671, 868, 251, 88, 687, 798, 463, 393, 90, 1, 22, 90, 52
+    };
+    private static final int[] ACUMULADAS_ESPANOL = acumular(FRECUENCIAS_ESPANOL);
+    // Intentos por palabra pedida antes de rendirse, por si el tablero no da para tantas palabras
+    private static final int INTENTOS_POR_PALABRA = 50;
+
+    /**
+     * Distribución de letras de los tableros generados
+     */
+    public enum Distribucion {
+        /** Todas las letras de la A a la Z con la misma probabilidad */
+        UNIFORME,
+        /** Letras de la A a la Z con su frecuencia aproximada en español */
+        ESPANOL,
+        /** Casi todas las casillas son 'A' y el resto 'B' o 'C', el peor caso para BFS y DFS */
+        REPETITIVA,
+        /**
+         * Todas las casillas son 'A' salvo una 'B' y una 'C' en esquinas opuestas; las
+         * palabras B, A..., C más cortas que el tablero pasan el índice y no están, así que
+         * DFS y BFS recorren todos los caminos de 'A' antes de descartarlas
+         */
+        ADVERSARIA
+    }
+
+    /**
+     * Sopa generada
+     * @param tablero: tablero de N×M letras
+     * @param diccionario: palabras, en el orden en que se escriben; puede tener menos de las pedidas
+     * @param aciertos: cuántas palabras del diccionario están en el tablero (con DFS)
+     */
+    public record SopaGenerada(char[][] tablero, Set<String> diccionario, int aciertos) {}
+
+    private final Random rnd;
+    private int largoMinimo = 3;
+    private int largoMaximo = 7;
+
+    /**
+     * @param semilla: semilla del generador de números aleatorios
+     */
+    public GeneradorSopas(long semilla) {
+        this.rnd = new Random(semilla);
+    }
+
+    /**
+     * Elegir el largo de las palabras generadas
+     * @param minimo: largo mínimo, al menos 1
+     * @param maximo: largo máximo, al menos el mínimo
+     */
+    public void setLargos(int minimo, int maximo) {
+        if (minimo < 1 || maximo < minimo)
+            throw new IllegalArgumentException("Largos de palabra inválidos: " + minimo + "-" + maximo);
+        this.largoMinimo = minimo;
+        this.largoMaximo = maximo;
+    }
+
+    /**
+     * Generar una sopa completa
+     * @param filas: filas del tablero
+     * @param columnas: columnas del tablero
+     * @param distribucion: distribución de letras
+     * @param palabras: cantidad de palabras del diccionario
+     * @param aciertos: proporción de palabras que están en el tablero, entre 0 y 1
+     * @return SopaGenerada
+     */
+    public SopaGenerada sopa(int filas, int columnas, Distribucion distribucion, int palabras, double aciertos) {
+        char[][] tablero = tablero(filas, columnas, distribucion);
+        List<String> adversarias = distribucion == Distribucion.ADVERSARIA ? palabrasAdversarias(filas, columnas)
+            : List.of();
+        return diccionario(tablero, palabras, aciertos, adversarias);
+    }
+
+    /**
+     * Generar un tablero
+     * @param filas: filas del tablero
+     * @param columnas: columnas del tablero
+     * @param distribucion: distribución de letras
+     * @return tablero
+     */
+    public char[][] tablero(int filas, int columnas, Distribucion distribucion) {
+        if (filas < 1 || columnas < 1)
+            throw new IllegalArgumentException("El tablero debe tener al menos una fila y una columna");
+        char[][] tablero = new char[filas][columnas];
+        for (char[] fila : tablero) {
+            for (int col = 0; col < columnas; col++) {
+                switch (distribucion) {
+                    case UNIFORME:
+                        fila[col] = (char) ('A' + rnd.nextInt(26));
+                        break;
+                    case ESPANOL:
+                        fila[col] = letraEspanol();
+                        break;
+                    case REPETITIVA:
+                        fila[col] = rnd.nextInt(10) == 0 ? (char) ('B' + rnd.nextInt(2)) : 'A';
+                        break;
+                    default:
+                        fila[col] = 'A';
+                }
+            }
+        }
+        if (distribucion == Distribucion.ADVERSARIA && filas * columnas > 1) {
+            tablero[0][0] = 'B';
+            tablero[filas - 1][columnas - 1] = 'C';
+        }
+        return tablero;
+    }
+
+    /**
+     * Generar un diccionario para un tablero
+     * @param tablero: tablero del que sacar los aciertos
+     * @param cantidad: cantidad de palabras
+     * @param aciertos: proporción de palabras que están en el tablero, entre 0 y 1
+     * @return Set string con las palabras; puede tener menos si el tablero no da para tantas
+     */
+    public Set<String> diccionario(char[][] tablero, int cantidad, double aciertos) {
+        return diccionario(tablero, cantidad, aciertos, List.of()).diccionario();
+    }
+
+    private SopaGenerada diccionario(char[][] tablero, int cantidad, double aciertos, List<String> adversarias) {
+        if (aciertos < 0 || aciertos > 1)
+            throw new IllegalArgumentException("La proporción de aciertos debe estar entre 0 y 1");
+        BuscadorPalabras buscador = new BuscadorPalabras(tablero);
+        int objetivo = (int) Math.round(cantidad * aciertos);
+        Set<String> encontradas = new LinkedHashSet<>();
+        for (int intentos = 0; encontradas.size() < objetivo && intentos < objetivo * INTENTOS_POR_PALABRA; intentos++) {
+            String palabra = caminoAlAzar(tablero, largoAlAzar());
+            if (palabra != null)
+                encontradas.add(palabra);
+        }
+        Set<String> ausentes = new LinkedHashSet<>();
+        int faltan = cantidad - objetivo;
+        for (String palabra : adversarias) {
+            if (ausentes.size() == faltan)
+                break;
+            if (!buscador.buscarPalabra(palabra, MetodoBusqueda.DFS))
+                ausentes.add(palabra);
+        }
+        for (int intentos = 0; ausentes.size() < faltan && intentos < faltan * INTENTOS_POR_PALABRA; intentos++) {
+            // La mitad cambia una letra de un camino del tablero: comparte prefijos con los aciertos
+            String palabra = rnd.nextBoolean() ? caminoCambiado(tablero) : letrasAlAzar(largoAlAzar());
+            if (palabra != null && !encontradas.contains(palabra) && !buscador.buscarPalabra(palabra, MetodoBusqueda.DFS))
+                ausentes.add(palabra);
+        }
+        List<String> todas = new ArrayList<>(encontradas);
+        todas.addAll(ausentes);
+        Collections.shuffle(todas, rnd);
+        return new SopaGenerada(tablero, new LinkedHashSet<>(todas), encontradas.size());
+    }
+
+    /**
+     * Palabras que hacen que DFS y BFS recorran todos los caminos de 'A' de un tablero
+     * ADVERSARIA: van de la 'B' a la 'C' (o al revés) pero son más cortas que la
+     * distancia entre las esquinas, así que no están
+     * @param filas: filas del tablero
+     * @param columnas: columnas del tablero
+     * @return palabras, de la más corta a la más larga
+     */
+    private List<String> palabrasAdversarias(int filas, int columnas) {
+        List<String> palabras = new ArrayList<>();
+        int distancia = Math.max(filas, columnas) - 1;
+        for (int largo = Math.max(3, largoMinimo); largo <= largoMaximo && largo - 1 < distancia; largo++) {
+            String medio = "A".repeat(largo - 2);
+            palabras.add("B" + medio + "C");
+            palabras.add("C" + medio + "B");
+        }
+        return palabras;
+    }
+
+    private int largoAlAzar() {
+        return largoMinimo + rnd.nextInt(largoMaximo - largoMinimo + 1);
+    }
+
+    private char letraEspanol() {
+        int valor = rnd.nextInt(ACUMULADAS_ESPANOL[ACUMULADAS_ESPANOL.length - 1]);
+        int letra = 0;
+        while (ACUMULADAS_ESPANOL[letra] <= valor) {
+            letra++;
+        }
+        return (char) ('A' + letra);
+    }
+
+    private String letrasAlAzar(int largo) {
+        char[] letras = new char[largo];
+        for (int i = 0; i < largo; i++) {
+            letras[i] = (char) ('A' + rnd.nextInt(26));
+        }
+        return new String(letras);
+    }
+
+    /**
+     * Leer las letras de un camino al azar entre casillas vecinas sin repetir casillas,
+     * así que la palabra siempre está en el tablero
+     * @param tablero: tablero
+     * @param largo: largo de la palabra
+     * @return palabra, o null si el camino se quedó sin vecinos libres
+     */
+    private String caminoAlAzar(char[][] tablero, int largo) {
+        int filas = tablero.length, columnas = tablero[0].length;
+        if (largo > filas * columnas)
+            return null;
+        int[] camino = new int[largo];
+        int[] libres = new int[8];
+        char[] letras = new char[largo];
+        camino[0] = rnd.nextInt(filas * columnas);
+        for (int i = 0; i < largo; i++) {
+            int fila = camino[i] / columnas, col = camino[i] % columnas;
+            letras[i] = tablero[fila][col];
+            if (i + 1 == largo)
+                break;
+            int cantidad = 0;
+            for (int r = Math.max(0, fila - 1); r <= Math.min(filas - 1, fila + 1); r++) {
+                for (int c = Math.max(0, col - 1); c <= Math.min(columnas - 1, col + 1); c++) {
+                    int vecino = r * columnas + c;
+                    boolean usado = false;
+                    for (int j = 0; j <= i && !usado; j++) {
+                        usado = camino[j] == vecino;
+                    }
+                    if (!usado)
+                        libres[cantidad++] = vecino;
+                }
+            }
+            if (cantidad == 0)
+                return null;
+            camino[i + 1] = libres[rnd.nextInt(cantidad)];
+        }
+        return new String(letras);
+    }
+
+    /**
+     * Leer un camino al azar y cambiar una de sus letras por la de otra casilla del tablero
+     * @param tablero: tablero
+     * @return palabra, que puede estar o no en el tablero; null si no se pudo armar el camino
+     */
+    private String caminoCambiado(char[][] tablero) {
+        String camino = caminoAlAzar(tablero, largoAlAzar());
+        if (camino == null)
+            return null;
+        char[] letras = camino.toCharArray();
+        letras[rnd.nextInt(letras.length)] = tablero[rnd.nextInt(tablero.length)][rnd.nextInt(tablero[0].length)];
+        return new String(letras);
+    }
+
+    private static int[] acumular(int[] frecuencias) {
+        int[] acumuladas = new int[frecuencias.length];
+        int suma = 0;
+        for (int i = 0; i < frecuencias.length; i++) {
+            suma += frecuencias[i];
+            acumuladas[i] = suma;
+        }
+        return acumuladas;
+    }
+
+    /**
+     * Escribir una sopa con el formato de los archivos
+     * @param tablero: tablero
+     * @param diccionario: palabras, o null para no escribir la sección dic
+     * @return bytes en UTF-8
+     */
+    public static byte[] escribirSopa(char[][] tablero, Set<String> diccionario) {
+        StringBuilder texto = new StringBuilder();
+        if (diccionario != null) {
+            texto.append("dic\n");
+            diccionario.forEach(palabra -> texto.append(palabra).append('\n'));
+            texto.append("/dic\n");
+        }
+        texto.append("tab\n");
+        for (char[] fila : tablero) {
+            for (int col = 0; col < fila.length; col++) {
+                if (col > 0)
+                    texto.append(',');
+                texto.append(fila[col]);
+            }
+            texto.append('\n');
+        }
+        texto.append("/tab\n");
+        return texto.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Semilla de una sopa del corpus: depende solo de la semilla general y de la posición
+     * de la sopa, así que cada archivo se puede volver a generar solo
+     */
+    static long semillaDe(long semilla, int filas, int columnas, Distribucion distribucion, int numero) {
+        long h = CacheResultados.mezclar(semilla);
+        h = CacheResultados.mezclar(h ^ filas);
+        h = CacheResultados.mezclar(h ^ columnas);
+        h = CacheResultados.mezclar(h ^ distribucion.ordinal());
+        return CacheResultados.mezclar(h ^ numero);
+    }
+
+    /**
+     * @param valor: tamaños separados por comas, cada uno "lado" o "filasxcolumnas"
+     * @return pares {filas, columnas}
+     */
+    static int[][] leerTamanos(String valor) {
+        String[] partes = valor.split(",");
+        int[][] tamanos = new int[partes.length][];
+        for (int i = 0; i < partes.length; i++) {
+            String[] lados = partes[i].trim().toLowerCase(Locale.ROOT).split("x");
+            int filas = Integer.parseInt(lados[0].trim());
+            tamanos[i] = new int[] {filas, lados.length > 1 ? Integer.parseInt(lados[1].trim()) : filas};
+        }
+        return tamanos;
+    }
+
+    /**
+     * @param valor: nombres de distribuciones separados por comas
+     * @return distribuciones
+     */
+    static Distribucion[] leerDistribuciones(String valor) {
+        String[] partes = valor.split(",");
+        Distribucion[] distribuciones = new Distribucion[partes.length];
+        for (int i = 0; i < partes.length; i++) {
+            distribuciones[i] = Distribucion.valueOf(partes[i].trim().toUpperCase(Locale.ROOT));
+        }
+        return distribuciones;
+    }
+
+    public static void main(String[] args) throws IOException {
+        Path salida = null;
+        int[][] tamanos = {{15, 15}, {100, 100}};
+        Distribucion[] distribuciones = Distribucion.values();
+        int palabras = 1000, sopas = 1, largoMinimo = 3, largoMaximo = 7;
+        double aciertos = 0.5;
+        long semilla = 42;
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            switch (args[i]) {
+                case "--salida":
+                    salida = Path.of(args[i + 1]);
+                    break;
+                case "--tamanos":
+                    tamanos = leerTamanos(args[i + 1]);
+                    break;
+                case "--distribuciones":
+                    distribuciones = leerDistribuciones(args[i + 1]);
+                    break;
+                case "--palabras":
+                    palabras = Integer.parseInt(args[i + 1]);
+                    break;
+                case "--aciertos":
+                    aciertos = Double.parseDouble(args[i + 1]);
+                    break;
+                case "--largos":
+                    String[] largos = args[i + 1].split("-");
+                    largoMinimo = Integer.parseInt(largos[0].trim());
+                    largoMaximo = Integer.parseInt(largos[largos.length - 1].trim());
+                    break;
+                case "--sopas":
+                    sopas = Integer.parseInt(args[i + 1]);
+                    break;
+                case "--semilla":
+                    semilla = Long.parseLong(args[i + 1]);
+                    break;
+                default:
+                    throw new IllegalArgumentException("Opción desconocida: " + args[i]);
+            }
+        }
+        if (salida == null) {
+            System.err.println("Uso: java sopaletras.GeneradorSopas --salida directorio [--tamanos 15,100,20x30]"
+                + " [--distribuciones UNIFORME,ESPANOL,REPETITIVA,ADVERSARIA] [--palabras 1000] [--aciertos 0.5]"
+                + " [--largos 3-8] [--sopas 1] [--semilla 42]");
+            System.exit(2);
+        }
+        Files.createDirectories(salida);
+        for (int[] tamano : tamanos) {
+            for (Distribucion distribucion : distribuciones) {
+                for (int numero = 0; numero < sopas; numero++) {
+                    GeneradorSopas generador = new GeneradorSopas(
+                        semillaDe(semilla, tamano[0], tamano[1], distribucion, numero));
+                    generador.setLargos(largoMinimo, largoMaximo);
+                    SopaGenerada sopa = generador.sopa(tamano[0], tamano[1], distribucion, palabras, aciertos);
+                    Path archivo = salida.resolve(String.format(Locale.ROOT, "sopa-%s-%dx%d-%03d.txt",
+                        distribucion.name().toLowerCase(Locale.ROOT), tamano[0], tamano[1], numero));
+                    Files.write(archivo, escribirSopa(sopa.tablero(), sopa.diccionario()));
+                    System.out.println(archivo + ": " + sopa.diccionario().size() + " palabras, "
+                        + sopa.aciertos() + " en el tablero");
+                    if (sopa.diccionario().size() < palabras
+                        || sopa.aciertos() != Math.round(palabras * aciertos))
+                        System.err.println("Aviso: se pidieron " + palabras + " palabras con "
+                            + Math.round(palabras * aciertos) + " en el tablero, pero el tablero no da para tantas distintas");
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package sopaletras;
+
+/**
+ * Índice de prefijos de un diccionario que se puede recorrer letra por letra.
+ * Los nodos se identifican con enteros; lo implementan el trie en memoria
+ * (TrieDiccionario), el trie congelado (TrieCongelado) y el diccionario compilado en
+ * disco (DiccionarioCompilado).
+ */
+public interface IndiceDiccionario {
+    int NINGUNO = -1;
+
+    /**
+     * @return nodo raíz, que corresponde al prefijo vacío
+     */
+    int raiz();
+
+    /**
+     * Obtener el hijo de un nodo por la letra de su arista
+     * @param nodo: nodo padre
+     * @param letra: letra a seguir
+     * @return índice del hijo, o NINGUNO si no existe
+     */
+    int hijo(int nodo, char letra);
+
+    /**
+     * Indica si en el nodo termina una palabra del diccionario
+     * @param nodo: nodo a revisar
+     * @return bool
+     */
+    boolean esTerminal(int nodo);
+
+    /**
+     * @return cantidad de palabras del diccionario
+     */
+    int cantidadPalabras();
+
+    /**
+     * @return cantidad de nodos; los nodos se numeran de 0 a cantidadNodos() - 1
+     */
+    int cantidadNodos();
+
+    /**
+     * Cantidad de palabras que empiezan con el prefijo de un nodo, incluida la que termina
+     * en él. Las búsquedas la usan para no seguir recorriendo un prefijo cuyas palabras
+     * ya encontraron todas.
+     * @param nodo: nodo a revisar
+     * @return cantidad de palabras
+     */
+    int palabrasDesde(int nodo);
+}
@@ -0,0 +1,215 @@
+package sopaletras;
+
+import java.util.Arrays;
+
+/**
+ * Índice de un tablero que se calcula una sola vez al crear el buscador.
+ * Guarda las letras distintas del tablero, cuántas veces aparece cada una, en qué
+ * celdas está y qué pares de letras quedan en celdas vecinas. Con eso se descarta
+ * en O(largo de la palabra) cualquier palabra que use una letra que no está, más
+ * copias de una letra de las que hay, o dos letras seguidas que nunca son vecinas,
+ * sin recorrer el tablero. Con más de MAX_LETRAS_PARES letras distintas la tabla de
+ * pares ocuparía demasiado y no se arma; entonces no se descartan palabras por pares.
+ */
+public class IndiceTablero {
+    public static final int NINGUNA = -1;
+    // Con 4096 letras la tabla de pares ocupa 2 MB; más letras no caben en un bit por par con índice int
+    static final int MAX_LETRAS_PARES = 4096;
+
+    // Letras distintas del tablero, ordenadas; el código de una letra es su posición
+    private final char[] letras;
+    private final int[] conteo;
+    // Código de la letra de cada celda, por filas
+    private final int[] codigosCeldas;
+    // Celdas con la letra de código i: posiciones[inicioPosiciones[i]] .. posiciones[inicioPosiciones[i + 1] - 1]
+    private final int[] inicioPosiciones;
+    private final int[] posiciones;
+    // Bit (a * cantidad + b) encendido si alguna celda con la letra a tiene una vecina con la letra b;
+    // null si hay más de MAX_LETRAS_PARES letras distintas
+    private final long[] pares;
+
+    /**
+     * Construir el índice de un tablero
+     * @param celdas: letras del tablero por filas
+     * @param inicioVecinos: inicio de los vecinos de cada celda en vecinos
+     * @param vecinos: vecinos de todas las celdas
+     */
+    IndiceTablero(char[] celdas, int[] inicioVecinos, int[] vecinos) {
+        char[] ordenadas = celdas.clone();
+        Arrays.sort(ordenadas);
+        int cantidad = 0;
+        for (int i = 0; i < ordenadas.length; i++) {
+            if (i == 0 || ordenadas[i] != ordenadas[i - 1])
+                ordenadas[cantidad++] = ordenadas[i];
+        }
+        this.letras = Arrays.copyOf(ordenadas, cantidad);
+
+        int[] codigos = new int[celdas.length];
+        this.codigosCeldas = codigos;
+        this.conteo = new int[cantidad];
+        for (int celda = 0; celda < celdas.length; celda++) {
+            codigos[celda] = Arrays.binarySearch(letras, celdas[celda]);
+            conteo[codigos[celda]]++;
+        }
+
+        this.inicioPosiciones = new int[cantidad + 1];
+        for (int i = 0; i < cantidad; i++) {
+            inicioPosiciones[i + 1] = inicioPosiciones[i] + conteo[i];
+        }
+        this.posiciones = new int[celdas.length];
+        int[] siguiente = Arrays.copyOf(inicioPosiciones, cantidad);
+        for (int celda = 0; celda < celdas.length; celda++) {
+            posiciones[siguiente[codigos[celda]]++] = celda;
+        }
+
+        if (cantidad > MAX_LETRAS_PARES) {
+            this.pares = null;
+            return;
+        }
+        this.pares = new long[(cantidad * cantidad + 63) >>> 6];
+        for (int celda = 0; celda < celdas.length; celda++) {
+            int base = codigos[celda] * cantidad;
+            for (int v = inicioVecinos[celda]; v < inicioVecinos[celda + 1]; v++) {
+                int bit = base + codigos[vecinos[v]];
+                pares[bit >>> 6] |= 1L << bit;
+            }
+        }
+    }
+
+    /**
+     * Obtener el código de una letra del tablero
+     * @param letra: letra a buscar
+     * @return código de la letra, o NINGUNA si no está en el tablero
+     */
+    public int codigo(char letra) {
+        int codigo = Arrays.binarySearch(letras, letra);
+        return codigo < 0 ? NINGUNA : codigo;
+    }
+
+    /**
+     * @param codigo: código de una letra del tablero
+     * @return letra con ese código
+     */
+    public char letra(int codigo) {
+        return letras[codigo];
+    }
+
+    /**
+     * @return código de la letra de cada celda, por filas; no se debe modificar
+     */
+    int[] codigosCeldas() {
+        return codigosCeldas;
+    }
+
+    /**
+     * @param letra: letra a contar
+     * @return cantidad de celdas con esa letra
+     */
+    public int conteo(char letra) {
+        int codigo = codigo(letra);
+        return codigo == NINGUNA ? 0 : conteo[codigo];
+    }
+
+    /**
+     * Revisar si dos letras están en alguna pareja de celdas vecinas; sin tabla de pares
+     * siempre devuelve true para dos letras del tablero
+     * @param a: letra de la primera celda
+     * @param b: letra de la celda vecina
+     * @return bool
+     */
+    public boolean sonVecinas(char a, char b) {
+        int codigoA = codigo(a);
+        int codigoB = codigo(b);
+        return codigoA != NINGUNA && codigoB != NINGUNA && parVecino(codigoA, codigoB);
+    }
+
+    private boolean parVecino(int codigoA, int codigoB) {
+        if (pares == null)
+            return true;
+        int bit = codigoA * letras.length + codigoB;
+        return (pares[bit >>> 6] & (1L << bit)) != 0;
+    }
+
+    /**
+     * Revisar, sin recorrer el tablero, si una palabra podría estar en él: todas sus
+     * letras deben estar, sin usar más copias de una letra de las que hay, y cada par
+     * de letras seguidas debe aparecer en celdas vecinas. Si devuelve false, la palabra
+     * seguro no está; si devuelve true, hay que buscarla.
+     * @param palabra: palabra a revisar
+     * @return bool
+     */
+    public boolean puedeExistir(CharSequence palabra) {
+        int largo = palabra.length();
+        char[] letrasPalabra = new char[largo];
+        for (int i = 0; i < largo; i++) {
+            letrasPalabra[i] = palabra.charAt(i);
+        }
+        return puedeExistir(letrasPalabra, largo, new int[largo], new int[letras.length]);
+    }
+
+    /**
+     * Igual que puedeExistir(CharSequence), pero con la palabra en un arreglo y arreglos
+     * auxiliares del llamador, para no reservar memoria en cada consulta
+     * @param palabra: arreglo con las letras de la palabra
+     * @param largo: cantidad de letras
+     * @param codigos: arreglo de al menos largo posiciones, donde se dejan los códigos de las letras
+     * @param usadas: arreglo de al menos cantidadLetras() ceros; se devuelve en ceros
+     * @return bool
+     */
+    boolean puedeExistir(char[] palabra, int largo, int[] codigos, int[] usadas) {
+        if (largo == 0 || largo > posiciones.length)
+            return false;
+        codigos[0] = codigo(palabra[0]);
+        if (codigos[0] == NINGUNA)
+            return false;
+        for (int i = 1; i < largo; i++) {
+            codigos[i] = codigo(palabra[i]);
+            if (codigos[i] == NINGUNA || !parVecino(codigos[i - 1], codigos[i]))
+                return false;
+        }
+        // Los conteos solo pueden fallar si alguna letra se repite más veces que en el tablero
+        if (largo <= 2)
+            return true;
+        int revisadas = 0;
+        boolean alcanzan = true;
+        while (revisadas < largo && alcanzan) {
+            int codigo = codigos[revisadas++];
+            alcanzan = ++usadas[codigo] <= conteo[codigo];
+        }
+        for (int i = 0; i < revisadas; i++) {
+            usadas[codigos[i]] = 0;
+        }
+        return alcanzan;
+    }
+
+    /**
+     * @param codigo: código de la letra
+     * @return inicio en el arreglo de posiciones de las celdas con esa letra
+     */
+    int inicio(int codigo) {
+        return inicioPosiciones[codigo];
+    }
+
+    /**
+     * @param codigo: código de la letra
+     * @return fin (excluido) en el arreglo de posiciones de las celdas con esa letra
+     */
+    int fin(int codigo) {
+        return inicioPosiciones[codigo + 1];
+    }
+
+    /**
+     * @param i: índice dentro del arreglo de posiciones
+     * @return celda guardada en esa posición
+     */
+    int posicion(int i) {
+        return posiciones[i];
+    }
+
+    /**
+     * @return cantidad de letras distintas del tablero
+     */
+    public int cantidadLetras() {
+        return letras.length;
+    }
+}
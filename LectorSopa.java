@@ -0,0 +1,443 @@
+package sopaletras;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Lectura de archivos de sopa de letras (secciones dic, tab y, opcional, mod).
+ * El archivo se mapea en memoria y se recorre byte por byte (UTF-8), sin crear un
+ * String por línea ni usar expresiones regulares; cada palabra del diccionario se
+ * entrega apenas se lee a un ReceptorPalabras, por ejemplo directo a un trie.
+ * Si junto al archivo hay un diario (archivo.txt.diario) con palabras guardadas
+ * desde la GUI, sus palabras también se entregan como parte del diccionario. La primera
+ * línea del diario tiene el tamaño y la huella del archivo al que pertenece; un diario
+ * que no coincide con el archivo quedó de una versión anterior y no se lee.
+ * No usa ninguna clase de AWT ni Swing, así que también sirve en servidores sin pantalla;
+ * el mismo formato se puede leer desde un arreglo de bytes, por ejemplo el cuerpo de una
+ * petición HTTP (ServidorSopas).
+ */
+public class LectorSopa {
+    // Tamaño máximo de cada región mapeada; los archivos más grandes se recorren por partes
+    private static final long VENTANA = 1L << 30;
+    public static final String EXTENSION_DIARIO = ".diario";
+    // Diario que deja preparado una compactación antes de reemplazar el archivo
+    public static final String EXTENSION_DIARIO_NUEVO = ".nuevo";
+    // Comienzo de la primera línea del diario, seguida del tamaño y la huella del archivo
+    private static final String MARCA_BASE = "base ";
+
+    /**
+     * Recibe las palabras del diccionario a medida que se leen, ya en mayúsculas.
+     * El arreglo se reutiliza para la siguiente palabra, así que no se debe guardar.
+     */
+    public interface ReceptorPalabras {
+        void palabra(char[] letras, int largo);
+    }
+
+    /**
+     * Tablero y método de búsqueda de un archivo cuyo diccionario se entregó a un receptor
+     * @param tablero: tablero de N×M letras
+     * @param metodo: método indicado en la sección mod, o null si el archivo no la tiene
+     */
+    public record Sopa(char[][] tablero, MetodoBusqueda metodo) {}
+
+    /**
+     * Leer los datos de un archivo.
+     * Cada línea de la sección tab es una fila del tablero, con las letras separadas
+     * por comas; todas las filas deben tener la misma cantidad de letras. Si la sección
+     * tiene una sola línea cuya cantidad de letras es un cuadrado perfecto (el formato
+     * original de 16 letras), se interpreta como un tablero cuadrado. La sección mod
+     * tiene una línea con el método de búsqueda que corresponde al tablero, por ejemplo
+     * LINEAL para una sopa de letras clásica con las palabras en línea recta.
+     * El diccionario se entrega como DiccionarioInmutable.
+     * @param archivo: archivo a leer
+     * @return FileData
+     * @throws IOException si el archivo no se puede leer, el tablero no es válido o el método no existe
+     */
+    public static ManejadorArchivos.FileData leer(File archivo) throws IOException {
+        TrieDiccionario trie = new TrieDiccionario();
+        Sopa sopa = leerSopa(archivo, (letras, largo) -> trie.insertar(letras, 0, largo));
+        return new ManejadorArchivos.FileData(DiccionarioInmutable.desde(trie), sopa.tablero(), sopa.metodo());
+    }
+
+    /**
+     * Leer un archivo insertando las palabras del diccionario directo en un trie
+     * @param archivo: archivo a leer
+     * @param trie: trie donde insertar las palabras
+     * @return tablero
+     * @throws IOException si el archivo no se puede leer o el tablero no es válido
+     */
+    public static char[][] leer(File archivo, TrieDiccionario trie) throws IOException {
+        return leer(archivo, (letras, largo) -> trie.insertar(letras, 0, largo));
+    }
+
+    /**
+     * Leer un archivo entregando cada palabra del diccionario a un receptor
+     * @param archivo: archivo a leer
+     * @param receptor: recibe las palabras del diccionario
+     * @return tablero
+     * @throws IOException si el archivo no se puede leer o el tablero no es válido
+     */
+    public static char[][] leer(File archivo, ReceptorPalabras receptor) throws IOException {
+        return leerSopa(archivo, receptor).tablero();
+    }
+
+    /**
+     * Leer un archivo entregando cada palabra del diccionario a un receptor, junto con el
+     * método de búsqueda de la sección mod
+     * @param archivo: archivo a leer
+     * @param receptor: recibe las palabras del diccionario
+     * @return tablero y método
+     * @throws IOException si el archivo no se puede leer, el tablero no es válido o el método no existe
+     */
+    public static Sopa leerSopa(File archivo, ReceptorPalabras receptor) throws IOException {
+        Analizador analizador = analizar(archivo, receptor);
+        return new Sopa(armarTablero(analizador.filas), metodoDe(analizador.modo));
+    }
+
+    /**
+     * Leer una sopa con el mismo formato que los archivos, desde un arreglo de bytes en UTF-8
+     * @param contenido: bytes de la sopa
+     * @param receptor: recibe las palabras del diccionario
+     * @return tablero y método
+     * @throws IOException si el tablero no es válido o el método no existe
+     */
+    public static Sopa leerSopa(byte[] contenido, ReceptorPalabras receptor) throws IOException {
+        Analizador analizador = new Analizador(receptor);
+        analizador.analizar(ByteBuffer.wrap(contenido), true);
+        return new Sopa(armarTablero(analizador.filas), metodoDe(analizador.modo));
+    }
+
+    private static MetodoBusqueda metodoDe(String modo) throws IOException {
+        if (modo == null)
+            return null;
+        try {
+            return MetodoBusqueda.valueOf(modo.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException ex) {
+            throw new IOException("Método de búsqueda desconocido en la sección mod: " + modo);
+        }
+    }
+
+    /**
+     * Leer solo la sección dic de un archivo; el archivo puede no tener tablero
+     * @param archivo: archivo a leer
+     * @param receptor: recibe las palabras del diccionario
+     * @throws IOException si el archivo no se puede leer
+     */
+    public static void leerDiccionario(File archivo, ReceptorPalabras receptor) throws IOException {
+        analizar(archivo, receptor);
+    }
+
+    private static Analizador analizar(File archivo, ReceptorPalabras receptor) throws IOException {
+        Analizador analizador = new Analizador(receptor);
+        recorrer(archivo.toPath(), analizador, false);
+        // Las palabras guardadas después de la última compactación están en el diario
+        Path diario = diarioVigente(archivo.toPath());
+        if (diario != null) {
+            recorrer(diario, new Analizador(receptor), true);
+        }
+        return analizador;
+    }
+
+    /**
+     * Elegir el diario que corresponde al archivo: el diario si su cabecera coincide con el
+     * archivo, o si no el diario nuevo de una compactación que se cortó después de
+     * reemplazar el archivo. Un diario sin cabecera, de una versión anterior del programa,
+     * se lee como antes.
+     * @param archivo: archivo de sopa de letras
+     * @return diario a leer, o null si ninguno corresponde al archivo
+     * @throws IOException si no se puede leer el archivo o un diario
+     */
+    public static Path diarioVigente(Path archivo) throws IOException {
+        Path diario = archivoDiario(archivo);
+        Path nuevo = archivoDiarioNuevo(archivo);
+        boolean hayDiario = Files.exists(diario);
+        boolean hayNuevo = Files.exists(nuevo);
+        if (!hayDiario && !hayNuevo)
+            return null;
+        String cabecera = cabeceraDiario(archivo);
+        if (hayDiario) {
+            String primera = primeraLinea(diario);
+            if (primera.equals(cabecera) || !primera.startsWith(MARCA_BASE))
+                return diario;
+        }
+        if (hayNuevo && primeraLinea(nuevo).equals(cabecera))
+            return nuevo;
+        return null;
+    }
+
+    /**
+     * Armar la primera línea del diario de un archivo, con el tamaño y la huella del
+     * contenido actual del archivo
+     * @param archivo: archivo de sopa de letras
+     * @return cabecera, terminada en salto de línea
+     * @throws IOException si no se puede leer el archivo
+     */
+    public static String cabeceraDiario(Path archivo) throws IOException {
+        try (FileChannel canal = FileChannel.open(archivo, StandardOpenOption.READ)) {
+            long tamano = canal.size();
+            long huella = CacheResultados.mezclar(tamano);
+            for (long posicion = 0; posicion < tamano; posicion += VENTANA) {
+                MappedByteBuffer region = canal.map(FileChannel.MapMode.READ_ONLY, posicion,
+                    Math.min(VENTANA, tamano - posicion));
+                while (region.remaining() >= 8) {
+                    huella = CacheResultados.mezclar(huella ^ region.getLong());
+                }
+                while (region.hasRemaining()) {
+                    huella = CacheResultados.mezclar(huella ^ region.get());
+                }
+            }
+            return MARCA_BASE + tamano + " " + Long.toHexString(huella) + "\n";
+        }
+    }
+
+    /**
+     * @return primera línea del archivo con su salto de línea, o lo que haya si es más corta
+     *         que una cabecera o no termina
+     */
+    private static String primeraLinea(Path archivo) throws IOException {
+        try (FileChannel canal = FileChannel.open(archivo, StandardOpenOption.READ)) {
+            ByteBuffer inicio = ByteBuffer.allocate(64);
+            canal.read(inicio, 0);
+            StringBuilder linea = new StringBuilder();
+            for (int i = 0; i < inicio.position(); i++) {
+                char c = (char) (inicio.get(i) & 0xFF);
+                linea.append(c);
+                if (c == '\n')
+                    break;
+            }
+            return linea.toString();
+        }
+    }
+
+    /**
+     * Recorrer un archivo por regiones mapeadas
+     * @param archivo: archivo a recorrer
+     * @param analizador: analizador que procesa las líneas
+     * @param descartarIncompleta: ignorar la última línea si no termina en salto de línea,
+     *                             por ejemplo si una escritura del diario quedó a medias
+     */
+    private static void recorrer(Path archivo, Analizador analizador, boolean descartarIncompleta) throws IOException {
+        try (FileChannel canal = FileChannel.open(archivo, StandardOpenOption.READ)) {
+            long tamano = canal.size();
+            long posicion = 0;
+            while (posicion < tamano) {
+                long largo = Math.min(VENTANA, tamano - posicion);
+                boolean ultima = posicion + largo == tamano;
+                MappedByteBuffer region = canal.map(FileChannel.MapMode.READ_ONLY, posicion, largo);
+                int consumidos = analizador.analizar(region, ultima && !descartarIncompleta);
+                if (consumidos == 0) {
+                    if (ultima && descartarIncompleta)
+                        break;
+                    throw new IOException("El archivo tiene una línea demasiado larga");
+                }
+                posicion += consumidos;
+            }
+        }
+    }
+
+    /**
+     * Obtener el archivo diario donde se agregan las palabras guardadas de un archivo
+     * @param archivo: archivo de sopa de letras
+     * @return archivo diario, junto al original con la extensión .diario
+     */
+    public static Path archivoDiario(Path archivo) {
+        return archivo.resolveSibling(archivo.getFileName() + EXTENSION_DIARIO);
+    }
+
+    /**
+     * Obtener el diario nuevo que prepara una compactación, con los lotes que no alcanzó a
+     * pasar al archivo y la cabecera del archivo compactado
+     * @param archivo: archivo de sopa de letras
+     * @return archivo diario nuevo, junto al diario con la extensión .nuevo
+     */
+    public static Path archivoDiarioNuevo(Path archivo) {
+        return archivo.resolveSibling(archivo.getFileName() + EXTENSION_DIARIO + EXTENSION_DIARIO_NUEVO);
+    }
+
+    /**
+     * Recorre las líneas de las regiones mapeadas (o de un arreglo de bytes) y mantiene
+     * en qué sección se está
+     */
+    private static class Analizador {
+        private final ReceptorPalabras receptor;
+        private final List<char[]> filas = new ArrayList<>();
+        private char[] linea = new char[256];
+        private boolean enDic = false;
+        private boolean enTab = false;
+        private boolean enMod = false;
+        // Línea de la sección mod, o null si el archivo no la tiene
+        private String modo;
+
+        Analizador(ReceptorPalabras receptor) {
+            this.receptor = receptor;
+        }
+
+        /**
+         * Procesar todas las líneas completas de una región
+         * @param region: bytes mapeados del archivo
+         * @param ultima: indica si la región llega hasta el final del archivo
+         * @return cantidad de bytes consumidos; la línea incompleta del final queda para la siguiente región
+         */
+        int analizar(ByteBuffer region, boolean ultima) {
+            int limite = region.limit();
+            int inicio = 0;
+            for (int i = 0; i < limite; i++) {
+                if (region.get(i) == '\n') {
+                    procesarLinea(region, inicio, i);
+                    inicio = i + 1;
+                }
+            }
+            if (ultima && inicio < limite) {
+                procesarLinea(region, inicio, limite);
+                inicio = limite;
+            }
+            return inicio;
+        }
+
+        private void procesarLinea(ByteBuffer region, int desde, int hasta) {
+            int largo = decodificar(region, desde, hasta);
+            int inicio = 0;
+            while (inicio < largo && linea[inicio] <= ' ') inicio++;
+            while (largo > inicio && linea[largo - 1] <= ' ') largo--;
+
+            if (esMarca(inicio, largo, "dic")) {
+                enDic = true;
+            } else if (esMarca(inicio, largo, "/dic")) {
+                enDic = false;
+            } else if (esMarca(inicio, largo, "tab")) {
+                enTab = true;
+            } else if (esMarca(inicio, largo, "/tab")) {
+                enTab = false;
+            } else if (esMarca(inicio, largo, "mod")) {
+                enMod = true;
+            } else if (esMarca(inicio, largo, "/mod")) {
+                enMod = false;
+            } else if (largo > inicio) {
+                if (enDic) {
+                    for (int i = inicio; i < largo; i++) {
+                        char c = linea[i];
+                        linea[i - inicio] = c >= 'a' && c <= 'z' ? (char) (c - 32)
+                                : c < 0x80 ? c : Character.toUpperCase(c);
+                    }
+                    receptor.palabra(linea, largo - inicio);
+                } else if (enTab) {
+                    filas.add(leerFila(inicio, largo));
+                } else if (enMod) {
+                    modo = new String(linea, inicio, largo - inicio);
+                }
+            }
+        }
+
+        /**
+         * Separar una fila del tablero por comas; de cada letra se toma el primer carácter
+         */
+        private char[] leerFila(int inicio, int fin) {
+            char[] fila = new char[8];
+            int columnas = 0;
+            int columnasNoVacias = 0;
+            int i = inicio;
+            while (i <= fin) {
+                int finCampo = i;
+                while (finCampo < fin && linea[finCampo] != ',') finCampo++;
+                int a = i;
+                while (a < finCampo && linea[a] <= ' ') a++;
+                if (columnas == fila.length) {
+                    fila = Arrays.copyOf(fila, columnas * 2);
+                }
+                fila[columnas++] = a < finCampo ? linea[a] : '\0';
+                if (a < finCampo) {
+                    columnasNoVacias = columnas;
+                }
+                i = finCampo + 1;
+            }
+            // Igual que String.split, se ignoran los campos vacíos del final
+            return Arrays.copyOf(fila, columnasNoVacias);
+        }
+
+        private boolean esMarca(int inicio, int fin, String marca) {
+            if (fin - inicio != marca.length())
+                return false;
+            for (int i = 0; i < marca.length(); i++) {
+                if (linea[inicio + i] != marca.charAt(i))
+                    return false;
+            }
+            return true;
+        }
+
+        /**
+         * Decodificar una línea UTF-8 en el arreglo reutilizable de la línea actual
+         * @return cantidad de caracteres decodificados
+         */
+        private int decodificar(ByteBuffer region, int desde, int hasta) {
+            if (linea.length < hasta - desde) {
+                linea = new char[Math.max(hasta - desde, linea.length * 2)];
+            }
+            int largo = 0;
+            int i = desde;
+            while (i < hasta) {
+                int b = region.get(i) & 0xFF;
+                if (b < 0x80) {
+                    linea[largo++] = (char) b;
+                    i++;
+                } else if ((b & 0xE0) == 0xC0 && i + 1 < hasta) {
+                    linea[largo++] = (char) (((b & 0x1F) << 6) | (region.get(i + 1) & 0x3F));
+                    i += 2;
+                } else if ((b & 0xF0) == 0xE0 && i + 2 < hasta) {
+                    linea[largo++] = (char) (((b & 0x0F) << 12) | ((region.get(i + 1) & 0x3F) << 6)
+                            | (region.get(i + 2) & 0x3F));
+                    i += 3;
+                } else if ((b & 0xF8) == 0xF0 && i + 3 < hasta) {
+                    int codigo = ((b & 0x07) << 18) | ((region.get(i + 1) & 0x3F) << 12)
+                            | ((region.get(i + 2) & 0x3F) << 6) | (region.get(i + 3) & 0x3F);
+                    linea[largo++] = Character.highSurrogate(codigo);
+                    linea[largo++] = Character.lowSurrogate(codigo);
+                    i += 4;
+                } else {
+                    linea[largo++] = '\uFFFD';
+                    i++;
+                }
+            }
+            return largo;
+        }
+    }
+
+    /**
+     * Armar el tablero a partir de las filas leídas de la sección tab
+     * @param filas: letras de cada línea de la sección tab
+     * @return tablero de N×M letras
+     * @throws IOException si no hay tablero o sus filas tienen tamaños distintos
+     */
+    private static char[][] armarTablero(List<char[]> filas) throws IOException {
+        if (filas.isEmpty()) {
+            throw new IOException("El archivo no contiene un tablero");
+        }
+        if (filas.size() == 1) {
+            char[] letras = filas.get(0);
+            int lado = (int) Math.round(Math.sqrt(letras.length));
+            if (lado > 1 && lado * lado == letras.length) {
+                char[][] tablero = new char[lado][lado];
+                for (int i = 0; i < letras.length; i++) {
+                    tablero[Math.floorDiv(i, lado)][i % lado] = letras[i];
+                }
+                return tablero;
+            }
+        }
+        int columnas = filas.get(0).length;
+        for (char[] fila : filas) {
+            if (fila.length != columnas) {
+                throw new IOException("Las filas del tablero no tienen la misma cantidad de letras");
+            }
+        }
+        return filas.toArray(new char[0][]);
+    }
+}
@@ -3,13 +3,42 @@ package sopaletras;
 import javax.swing.*;
 import javax.swing.filechooser.FileNameExtensionFilter;
 import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
 import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 /**
  * Maneja las operaciones de lectura y escritura de archivos
  */
 public class ManejadorArchivos {
+    // El diario se compacta cuando pasa de este tamaño y de una fracción del archivo principal
+    private static final long MIN_DIARIO_COMPACTAR = 64 * 1024;
+    private static final long FRACCION_DIARIO_COMPACTAR = 4;
+    // Un solo hilo en segundo plano para las compactaciones, que no impide cerrar la aplicación
+    private static final ExecutorService COMPACTADOR = Executors.newSingleThreadExecutor(r -> {
+        Thread hilo = new Thread(r, "compactador-diccionario");
+        hilo.setDaemon(true);
+        return hilo;
+    });
+
     private String archivoActual;
+    private final Object cerrojo = new Object();
+    // Palabras que ya están en el archivo o en su diario; como no cambia, se comparte sin copiarla
+    private DiccionarioInmutable guardadas = DiccionarioInmutable.VACIO;
+    // Aumenta cada vez que el archivo se reescribe completo, para descartar compactaciones viejas
+    private long generacion;
+    private boolean compactacionPendiente;
+    // Si ya se revisó que el diario en disco corresponde al archivo actual
+    private boolean diarioRevisado;
     
     /**
      * Cargar un archivo dado por el usuario
@@ -23,10 +52,16 @@ public class ManejadorArchivos {
         int result = fileChooser.showOpenDialog(parent);
         if (result == JFileChooser.APPROVE_OPTION) {
             File archivo = fileChooser.getSelectedFile();
-            archivoActual = archivo.getAbsolutePath();
             
             try {
-                return leerArchivo(archivo);
+                FileData datos = leerArchivo(archivo);
+                synchronized (cerrojo) {
+                    archivoActual = archivo.getAbsolutePath();
+                    guardadas = DiccionarioInmutable.de(datos.diccionario());
+                    generacion++;
+                    diarioRevisado = false;
+                }
+                return datos;
             } catch (IOException ex) {
                 JOptionPane.showMessageDialog(parent, "Error al leer el archivo: " + ex.getMessage(), 
                     "Error", JOptionPane.ERROR_MESSAGE);
@@ -42,51 +77,14 @@ public class ManejadorArchivos {
      * @throws IOException 
      */
     private FileData leerArchivo(File archivo) throws IOException {
-        Set<String> diccionario = new HashSet<>();
-        char[][] tablero = new char[4][4];
-        
-        boolean enDic = false;
-        boolean enTab = false;
-        
-        try (BufferedReader lector = new BufferedReader(new FileReader(archivo))) {
-            String linea;
-            while ((linea = lector.readLine()) != null) {
-                linea = linea.trim();
-                
-                switch (linea) {
-                    case "dic":
-                        enDic = true;
-                        continue;
-                    case "/dic":
-                        enDic = false;
-                        continue;
-                    case "tab":
-                        enTab = true;
-                        continue;
-                    case "/tab":
-                        enTab = false;
-                        continue;
-                    default:
-                        break;
-                }
-                
-                if (enDic && !linea.isEmpty()) {
-                    diccionario.add(linea.toUpperCase());
-                } else if (enTab && !linea.isEmpty()) {
-                    String[] letras = linea.split("\\s*,\\s*");
-                    for (int col = 0;  col < letras.length; col++) {
-                        if (!letras[col].isEmpty()) {
-                            tablero[Math.floorDiv(col, 4)][col % 4] = letras[col].charAt(0);
-                        }
-                    }
-                }
-            }
-        }
-        return new FileData(diccionario, tablero);
+        return LectorSopa.leer(archivo);
     }
     
     /**
-     * Guardar el diccionario con las palabras encontradas
+     * Guardar el diccionario con las palabras encontradas.
+     * Solo se escriben las palabras que no estaban guardadas, como un lote al final del
+     * diario del archivo; cuando el diario crece se compacta en segundo plano. Si se
+     * quitaron palabras del diccionario, se reescribe el archivo completo.
      * @param diccionario
      * @return bool
      */
@@ -94,40 +92,262 @@ public class ManejadorArchivos {
         if (archivoActual == null || diccionario == null) {
             return false;
         }
+        Path archivo = Path.of(archivoActual);
+        synchronized (cerrojo) {
+            try {
+                List<String> nuevas = new ArrayList<>();
+                for (String palabra : diccionario) {
+                    if (!guardadas.contains(palabra))
+                        nuevas.add(palabra);
+                }
+                if (guardadas.size() + nuevas.size() != diccionario.size()) {
+                    reescribirArchivo(archivo, diccionario);
+                    guardadas = DiccionarioInmutable.de(diccionario);
+                    generacion++;
+                    diarioRevisado = true;
+                    return true;
+                }
+                if (nuevas.isEmpty())
+                    return true;
+                if (!diarioRevisado) {
+                    prepararDiario(archivo);
+                    diarioRevisado = true;
+                }
+                long largoDiario = agregarAlDiario(archivo, LectorSopa.archivoDiario(archivo), nuevas);
+                guardadas = guardadas.con(nuevas);
+                if (largoDiario > Math.max(MIN_DIARIO_COMPACTAR, Files.size(archivo) / FRACCION_DIARIO_COMPACTAR)
+                        && !compactacionPendiente) {
+                    compactacionPendiente = true;
+                    long generacionActual = generacion;
+                    COMPACTADOR.execute(() -> compactar(archivo, generacionActual));
+                }
+                return true;
+            } catch (IOException ex) {
+                // Los archivos pueden haber quedado a mitad de un paso; se revisan otra vez antes de seguir
+                diarioRevisado = false;
+                return false;
+            }
+        }
+    }
+
+    /**
+     * Dejar en su lugar el diario que corresponde al archivo antes de agregarle lotes. Si una
+     * compactación se cortó después de reemplazar el archivo, su diario nuevo pasa a ser el
+     * diario; un diario de otra versión del archivo se borra, porque al cargar no se leyó.
+     * @param archivo: archivo de sopa de letras
+     */
+    private static void prepararDiario(Path archivo) throws IOException {
+        Path diario = LectorSopa.archivoDiario(archivo);
+        Path nuevo = LectorSopa.archivoDiarioNuevo(archivo);
+        Path vigente = LectorSopa.diarioVigente(archivo);
+        if (nuevo.equals(vigente)) {
+            Files.move(nuevo, diario, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } else {
+            if (vigente == null)
+                Files.deleteIfExists(diario);
+            Files.deleteIfExists(nuevo);
+        }
+        sincronizarDirectorio(archivo);
+    }
+
+    /**
+     * Agregar un lote de palabras al final del diario, como una sección dic. Un diario nuevo
+     * empieza con la cabecera del archivo al que pertenece.
+     * @param archivo: archivo de sopa de letras
+     * @param diario: archivo diario
+     * @param palabras: palabras a agregar
+     * @return tamaño del diario después de agregarlas
+     */
+    private static long agregarAlDiario(Path archivo, Path diario, List<String> palabras) throws IOException {
+        StringBuilder lote = new StringBuilder("dic\n");
+        for (String palabra : palabras) {
+            lote.append(palabra).append('\n');
+        }
+        lote.append("/dic\n");
+        try (FileChannel canal = FileChannel.open(diario, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+            if (canal.size() == 0)
+                lote.insert(0, LectorSopa.cabeceraDiario(archivo));
+            ByteBuffer bytes = StandardCharsets.UTF_8.encode(CharBuffer.wrap(lote));
+            while (bytes.hasRemaining()) {
+                canal.write(bytes);
+            }
+            canal.force(false);
+            return canal.size();
+        }
+    }
+
+    /**
+     * Pasar el diario al archivo principal. El archivo se escribe fuera del cerrojo,
+     * así que guardar no espera a la compactación; los lotes que se agreguen mientras
+     * tanto pasan a un diario nuevo con la cabecera del archivo compactado, que se escribe
+     * antes de reemplazar el archivo. Así, en cualquier punto en que se corte el proceso,
+     * hay un diario que corresponde al archivo en disco y ningún lote se pierde.
+     * @param archivo: archivo de sopa de letras
+     * @param generacionInicial: generación al programar la compactación; si el archivo se
+     *                           reescribió completo después, la compactación ya no hace falta
+     */
+    private void compactar(Path archivo, long generacionInicial) {
+        Path diario = LectorSopa.archivoDiario(archivo);
+        Path nuevo = LectorSopa.archivoDiarioNuevo(archivo);
+        Path temporal = archivo.resolveSibling(archivo.getFileName() + ".compactando");
         try {
-            List<String> lineas = new ArrayList<>();
-            boolean enDic = false;
-            
-            try (BufferedReader reader = new BufferedReader(new FileReader(archivoActual))) {
-                String linea;
-                while ((linea = reader.readLine()) != null) {
-                    linea = linea.trim();
+            Set<String> copia;
+            long largoDiario;
+            synchronized (cerrojo) {
+                compactacionPendiente = false;
+                if (generacion != generacionInicial || !archivo.toString().equals(archivoActual))
+                    return;
+                copia = guardadas;
+                largoDiario = Files.size(diario);
+            }
+            escribirArchivo(archivo, temporal, copia);
+            String cabecera = LectorSopa.cabeceraDiario(temporal);
+            synchronized (cerrojo) {
+                if (generacion != generacionInicial || !archivo.toString().equals(archivoActual)) {
+                    Files.deleteIfExists(temporal);
+                    return;
+                }
+                long largo = Files.size(diario);
+                if (largo > largoDiario)
+                    escribirDiarioNuevo(diario, largoDiario, largo, nuevo, cabecera);
+                Files.move(temporal, archivo, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                sincronizarDirectorio(archivo);
+                // Si el proceso se corta acá el diario ya no coincide con el archivo, y al cargarlo
+                // se lee el diario nuevo
+                if (largo > largoDiario) {
+                    Files.move(nuevo, diario, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                } else {
+                    Files.delete(diario);
+                }
+                sincronizarDirectorio(archivo);
+            }
+        } catch (IOException ex) {
+            // El diario vigente sigue completo, así que no se pierde ninguna palabra; se revisa
+            // otra vez antes de agregarle lotes por si el archivo ya se reemplazó
+            synchronized (cerrojo) {
+                diarioRevisado = false;
+            }
+            try {
+                Files.deleteIfExists(temporal);
+            } catch (IOException ignorada) {
+            }
+        }
+    }
+
+    /**
+     * Escribir el diario nuevo con la cabecera del archivo compactado y los lotes del diario
+     * que todavía no están en él
+     * @param diario: archivo diario
+     * @param compactados: bytes del inicio del diario que ya están en el archivo compactado
+     * @param largo: tamaño actual del diario
+     * @param nuevo: archivo diario nuevo
+     * @param cabecera: cabecera del archivo compactado
+     */
+    private static void escribirDiarioNuevo(Path diario, long compactados, long largo, Path nuevo, String cabecera)
+            throws IOException {
+        try (FileChannel entrada = FileChannel.open(diario, StandardOpenOption.READ);
+             FileChannel salida = FileChannel.open(nuevo, StandardOpenOption.CREATE,
+                     StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer bytes = StandardCharsets.UTF_8.encode(cabecera);
+            while (bytes.hasRemaining()) {
+                salida.write(bytes);
+            }
+            long copiados = 0;
+            while (copiados < largo - compactados) {
+                copiados += entrada.transferTo(compactados + copiados, largo - compactados - copiados, salida);
+            }
+            salida.force(false);
+        }
+    }
+
+    /**
+     * Reescribir el archivo completo con el diccionario, en un archivo temporal que luego lo
+     * reemplaza, y después borrar el diario. Si el proceso se corta entre los dos pasos, el
+     * diario ya no coincide con el archivo nuevo y al cargarlo no se lee, así que no vuelve a
+     * agregar las palabras quitadas; si se corta antes, quedan el archivo y el diario anteriores.
+     * @param archivo: archivo de sopa de letras
+     * @param diccionario: palabras del diccionario
+     */
+    private static void reescribirArchivo(Path archivo, Set<String> diccionario) throws IOException {
+        Path temporal = archivo.resolveSibling(archivo.getFileName() + ".tmp");
+        escribirArchivo(archivo, temporal, diccionario);
+        Files.move(temporal, archivo, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        sincronizarDirectorio(archivo);
+        Files.deleteIfExists(LectorSopa.archivoDiario(archivo));
+        Files.deleteIfExists(LectorSopa.archivoDiarioNuevo(archivo));
+        sincronizarDirectorio(archivo);
+    }
+
+    /**
+     * Pasar a disco las entradas del directorio de un archivo, para que un borrado o un
+     * reemplazo sobreviva a un corte antes de seguir con el paso siguiente
+     * @param archivo: archivo cuyo directorio se sincroniza
+     */
+    private static void sincronizarDirectorio(Path archivo) {
+        Path directorio = archivo.toAbsolutePath().getParent();
+        try (FileChannel canal = FileChannel.open(directorio, StandardOpenOption.READ)) {
+            canal.force(true);
+        } catch (IOException ex) {
+            // Algunos sistemas no permiten abrir un directorio; ahí el renombre ya es lo más seguro
+        }
+    }
 
-                    if (linea.equals("dic")) {
-                        lineas.add(linea);
-                        diccionario.forEach(lineas::add);
-                        
-                        while ((linea = reader.readLine()) != null && !linea.trim().equals("/dic")) {}
-                        if (linea != null) {
-                            lineas.add(linea.trim());
-                        }
-                        enDic = false;
-                    } else if (!enDic) {
-                        lineas.add(linea);
+    /**
+     * Escribir en destino el contenido del archivo con la sección dic reemplazada por el diccionario.
+     * El destino queda pasado a disco antes de volver, para que al moverlo sobre el archivo no
+     * pueda quedar un archivo vacío o a medias después de un corte
+     * @param archivo: archivo de sopa de letras original
+     * @param destino: archivo donde escribir
+     * @param diccionario: palabras del diccionario
+     */
+    private static void escribirArchivo(Path archivo, Path destino, Set<String> diccionario) throws IOException {
+        boolean conDic = false;
+        try (BufferedReader reader = Files.newBufferedReader(archivo, StandardCharsets.UTF_8);
+             FileChannel canal = FileChannel.open(destino, StandardOpenOption.CREATE,
+                     StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+             BufferedWriter writer = new BufferedWriter(Channels.newWriter(canal, StandardCharsets.UTF_8))) {
+            String linea;
+            while ((linea = reader.readLine()) != null) {
+                if (linea.trim().equals("dic")) {
+                    conDic = true;
+                    writer.write("dic");
+                    writer.newLine();
+                    for (String palabra : diccionario) {
+                        writer.write(palabra);
+                        writer.newLine();
+                    }
+                    while ((linea = reader.readLine()) != null && !linea.trim().equals("/dic")) {}
+                    if (linea != null) {
+                        writer.write(linea.trim());
+                        writer.newLine();
                     }
+                } else {
+                    writer.write(linea);
+                    writer.newLine();
                 }
             }
-            
-            try (BufferedWriter writer = new BufferedWriter(new FileWriter(archivoActual))) {
-                for (String linea : lineas) {
-                    writer.write(linea);
+            // Si el archivo no tenía sección dic, agregarla al final
+            if (!conDic) {
+                writer.write("dic");
+                writer.newLine();
+                for (String palabra : diccionario) {
+                    writer.write(palabra);
                     writer.newLine();
                 }
+                writer.write("/dic");
+                writer.newLine();
             }
-            return true;
-        } catch (IOException ex) {
-            return false;
+            writer.flush();
+            canal.force(true);
         }
     }
-    public static record FileData(Set<String> diccionario, char[][] tablero) {}
+
+    /**
+     * Datos leídos de un archivo
+     * @param diccionario: palabras del diccionario
+     * @param tablero: tablero de N×M letras
+     * @param metodo: método de búsqueda de la sección mod, o null si el archivo no la tiene
+     */
+    public static record FileData(Set<String> diccionario, char[][] tablero, MetodoBusqueda metodo) {}
 }
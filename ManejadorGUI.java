@@ -3,25 +3,51 @@ package sopaletras;
 import javax.swing.*;
 import java.awt.*;
 import java.util.*;
-import org.graphstream.graph.*;
-import org.graphstream.graph.implementations.*;
-import org.graphstream.ui.swing_viewer.ViewPanel;
-import org.graphstream.ui.view.Viewer;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
  * Maneja la interfaz gráfica de usuario de la aplicación
  */
 public class ManejadorGUI extends JFrame {
+    private static final long serialVersionUID = 1L;
     private JTextArea salida;
     private JTextField palabraParaBuscar;
-    private JButton cargarArchivo, buscarTodas, buscarPalabra, guardarDic;
+    private JButton cargarArchivo, buscarTodas, buscarPalabra, guardarDic, cancelar;
+    private JProgressBar barraProgreso;
     private JComboBox<String> metodoBusqueda;
+    // Distancia de edición máxima de "Buscar Palabra Específica"; 0 busca exacto o con comodines
+    private JComboBox<Integer> distanciaMaxima;
     private JPanel panelTablero;
+    // Etiquetas de las casillas, o null si el tablero se muestra como texto
+    private JLabel[][] etiquetas;
     private JLabel tiempo;
     private char[][] tablero;
-    private Set<String> diccionario;
+    // Versión actual del diccionario; cada cambio publica una versión nueva y las búsquedas
+    // que ya empezaron siguen con la que tomaron, sin cerrojos
+    private final AtomicReference<DiccionarioInmutable> diccionario = new AtomicReference<>();
     private ManejadorArchivos manejadorArchivos;
     private BuscadorPalabras buscador;
+    // Solución que se actualiza al editar celdas o agregar palabras; se crea con la primera edición
+    private SolucionadorIncremental solucionador;
+    // Búsqueda que se está ejecutando en segundo plano, o null si no hay ninguna
+    private SwingWorker<?, ?> busquedaActual;
+    // Resultados de búsquedas anteriores, por tablero y diccionario
+    private final CacheResultados cache = new CacheResultados(MAX_ENTRADAS_CACHE, MAX_BYTES_CACHE);
+    private static final int MAX_ENTRADAS_CACHE = 64;
+    private static final long MAX_BYTES_CACHE = 64L << 20;
+    // Hilos de las búsquedas de todo el diccionario, creados una vez para toda la ventana;
+    // null con un solo procesador, donde se busca en el hilo de la búsqueda en segundo plano
+    private static final int HILOS_BUSQUEDA = Runtime.getRuntime().availableProcessors();
+    private final ForkJoinPool busquedas = HILOS_BUSQUEDA > 1 ? new ForkJoinPool(HILOS_BUSQUEDA) : null;
+    // Máxima cantidad de casillas que se dibujan con una etiqueta cada una
+    private static final int MAX_CASILLAS_ETIQUETAS = 40 * 40;
+    // Máxima cantidad de nodos que registra la búsqueda BFS para mostrar su árbol
+    private static final int MAX_NODOS_ARBOL = 100_000;
+    private static final Color COLOR_CAMINO = new Color(255, 220, 120);
+    private static final Color COLOR_INICIO_CAMINO = new Color(255, 170, 60);
+    // Máxima cantidad de coincidencias de un patrón que se listan en la salida
+    private static final int MAX_COINCIDENCIAS_MOSTRADAS = 200;
     
     public ManejadorGUI() {
         super("Buscador de Palabras en Tablero");
@@ -61,14 +87,21 @@ public class ManejadorGUI extends JFrame {
         buscarTodas = new JButton("Buscar Todas las Palabras");
         buscarPalabra = new JButton("Buscar Palabra Específica");
         guardarDic = new JButton("Guardar Diccionario");
-        metodoBusqueda = new JComboBox<>(new String[]{"DFS", "BFS"});
+        cancelar = new JButton("Cancelar");
+        cancelar.setEnabled(false);
+        metodoBusqueda = new JComboBox<>(new String[]{"DFS", "BFS", "TRIE", "LINEAL", "LINEAL_TOROIDAL"});
+        distanciaMaxima = new JComboBox<>(new Integer[]{0, 1, 2});
+        distanciaMaxima.setToolTipText("Distancia de edición máxima; en la palabra, ? coincide con cualquier letra");
         
-        panelTablero = new JPanel(new GridLayout(4, 4));
+        panelTablero = new JPanel(new GridLayout(1, 1));
         panelTablero.setPreferredSize(new Dimension(300, 300));
         panelTablero.setBorder(BorderFactory.createTitledBorder("Tablero"));
         
         tiempo = new JLabel("Tiempo: 0 ms");
         tiempo.setHorizontalAlignment(SwingConstants.CENTER);
+        
+        barraProgreso = new JProgressBar(0, 100);
+        barraProgreso.setStringPainted(true);
     }
     
     /**
@@ -80,6 +113,8 @@ public class ManejadorGUI extends JFrame {
         panelSuperior.add(new JLabel("Método de búsqueda:"));
         panelSuperior.add(metodoBusqueda);
         panelSuperior.add(buscarTodas);
+        panelSuperior.add(barraProgreso);
+        panelSuperior.add(cancelar);
         
         JPanel middlePanel = new JPanel(new BorderLayout());
         middlePanel.add(panelTablero, BorderLayout.WEST);
@@ -89,6 +124,8 @@ public class ManejadorGUI extends JFrame {
         JPanel panelInferior = new JPanel();
         panelInferior.add(new JLabel("Palabra a buscar:"));
         panelInferior.add(palabraParaBuscar);
+        panelInferior.add(new JLabel("Distancia:"));
+        panelInferior.add(distanciaMaxima);
         panelInferior.add(buscarPalabra);
         panelInferior.add(guardarDic);
         panelInferior.add(tiempo);
@@ -107,6 +144,7 @@ public class ManejadorGUI extends JFrame {
         buscarTodas.addActionListener(e -> buscarTodasLasPalabras());
         buscarPalabra.addActionListener(e -> buscarPalabraEspecifica());
         guardarDic.addActionListener(e -> guardarDiccionario());
+        cancelar.addActionListener(e -> cancelarBusqueda());
     }
     
     /**
@@ -116,26 +154,67 @@ public class ManejadorGUI extends JFrame {
         ManejadorArchivos.FileData datos = manejadorArchivos.cargarArchivo(this);
         if (datos != null) {
             this.tablero = datos.tablero();
-            this.diccionario = datos.diccionario();
+            diccionario.set(DiccionarioInmutable.de(datos.diccionario()));
             mostrarTablero();
             buscador = new BuscadorPalabras(tablero);
-            salida.setText("Diccionario cargado con " + diccionario.size() + " palabras.\n");
+            solucionador = null;
+            salida.setText("Diccionario cargado con " + diccionario.get().size() + " palabras.\n");
             salida.append("Tablero cargado correctamente.\n");
+            // Si el archivo indica su método de búsqueda, queda elegido
+            if (datos.metodo() != null) {
+                metodoBusqueda.setSelectedItem(datos.metodo().name());
+                salida.append("Método de búsqueda del archivo: " + datos.metodo() + "\n");
+            }
         }
     }
 
     /**
-     * Método para mostrar la sopa de letras dada
+     * Método para mostrar la sopa de letras dada.
+     * Los tableros pequeños se muestran con una etiqueta por casilla, y al hacer clic
+     * en una casilla se puede cambiar su letra; los grandes se muestran como texto
+     * para no crear miles de componentes.
      */
     private void mostrarTablero() {
         panelTablero.removeAll();
-        for (int row = 0; row < 4; row++) {
-            for (int col = 0; col < 4; col++) {
-                JLabel label = new JLabel(String.valueOf(tablero[row][col]), SwingConstants.CENTER);
-                label.setFont(new Font("Arial", Font.BOLD, 24));
-                label.setBorder(BorderFactory.createLineBorder(Color.BLACK));
-                panelTablero.add(label);
+        etiquetas = null;
+        int filas = tablero.length;
+        int columnas = tablero[0].length;
+        if (filas * columnas <= MAX_CASILLAS_ETIQUETAS) {
+            etiquetas = new JLabel[filas][columnas];
+            panelTablero.setLayout(new GridLayout(filas, columnas));
+            int tamanoLetra = Math.max(10, 96 / Math.max(filas, columnas));
+            for (int row = 0; row < filas; row++) {
+                for (int col = 0; col < columnas; col++) {
+                    JLabel label = new JLabel(String.valueOf(tablero[row][col]), SwingConstants.CENTER);
+                    label.setFont(new Font("Arial", Font.BOLD, tamanoLetra));
+                    label.setBorder(BorderFactory.createLineBorder(Color.BLACK));
+                    label.setOpaque(true);
+                    label.setBackground(panelTablero.getBackground());
+                    etiquetas[row][col] = label;
+                    int fila = row;
+                    int columna = col;
+                    label.addMouseListener(new java.awt.event.MouseAdapter() {
+                        @Override
+                        public void mouseClicked(java.awt.event.MouseEvent e) {
+                            editarCelda(fila, columna);
+                        }
+                    });
+                    panelTablero.add(label);
+                }
             }
+        } else {
+            panelTablero.setLayout(new BorderLayout());
+            StringBuilder texto = new StringBuilder(filas * (2 * columnas + 1));
+            for (char[] fila : tablero) {
+                for (char letra : fila) {
+                    texto.append(letra).append(' ');
+                }
+                texto.append('\n');
+            }
+            JTextArea areaTablero = new JTextArea(texto.toString());
+            areaTablero.setEditable(false);
+            areaTablero.setFont(new Font("Monospaced", Font.PLAIN, 12));
+            panelTablero.add(new JScrollPane(areaTablero), BorderLayout.CENTER);
         }
         panelTablero.revalidate();
         panelTablero.repaint();
@@ -143,9 +222,11 @@ public class ManejadorGUI extends JFrame {
     
     /**
      * Método para buscar todas las palabras del diccionario dado.
+     * La búsqueda corre en segundo plano; las palabras se muestran por lotes a medida
+     * que se encuentran y se puede cancelar con el botón Cancelar.
      */
     private void buscarTodasLasPalabras() {
-        if (tablero == null || diccionario == null || buscador == null) {
+        if (tablero == null || diccionario.get() == null || buscador == null) {
             mostrarError("Primero cargue un archivo con el tablero y diccionario.");
             return;
         }
@@ -153,14 +234,83 @@ public class ManejadorGUI extends JFrame {
         String metodo = (String) metodoBusqueda.getSelectedItem();
         salida.append("\nBuscando todas las palabras usando " + metodo + "...\n");
         
-        long tiempoInicial = System.currentTimeMillis();
-        Set<String> palabrasEncontradas = buscador.buscarTodasLasPalabras(diccionario, metodo.equals("BFS"));
-        long duracion = System.currentTimeMillis() - tiempoInicial;
-        
-        tiempo.setText("Tiempo: " + duracion + " ms");
-        salida.append("Palabras encontradas (" + palabrasEncontradas.size() + "):\n");
-        palabrasEncontradas.forEach(palabra -> salida.append(palabra + "\n"));
-        salida.append("Tiempo total: " + duracion + " ms\n");
+        BuscadorPalabras buscadorActual = buscador;
+        DiccionarioInmutable diccionarioActual = diccionario.get();
+        long tiempoInicial = System.nanoTime();
+        // Después de editar el tablero la solución ya está al día y no hace falta buscar
+        if (solucionador != null && !MetodoBusqueda.valueOf(metodo).esLineal()) {
+            StringBuilder lista = new StringBuilder();
+            solucionador.encontradas().forEach(palabra -> lista.append(palabra).append('\n'));
+            salida.append(lista.toString());
+            String duracion = formatearDuracion(System.nanoTime() - tiempoInicial);
+            tiempo.setText("Tiempo: " + duracion + " ms");
+            salida.append("Palabras encontradas: " + solucionador.encontradas().size() + " (solución incremental)\n");
+            salida.append("Tiempo total: " + duracion + " ms\n");
+            return;
+        }
+        // Si el mismo tablero y diccionario ya se resolvieron, mostrar el resultado guardado
+        long huellaDiccionario = CacheResultados.huellaModo(CacheResultados.huellaDiccionario(diccionarioActual),
+            MetodoBusqueda.valueOf(metodo));
+        Set<String> guardada = cache.obtener(buscadorActual.huella(), huellaDiccionario);
+        if (guardada != null) {
+            StringBuilder lista = new StringBuilder();
+            guardada.forEach(palabra -> lista.append(palabra).append('\n'));
+            salida.append(lista.toString());
+            String duracion = formatearDuracion(System.nanoTime() - tiempoInicial);
+            tiempo.setText("Tiempo: " + duracion + " ms");
+            salida.append("Palabras encontradas: " + guardada.size() + " (desde la caché)\n");
+            salida.append("Tiempo total: " + duracion + " ms\n");
+            salida.append(cache.estadisticas() + "\n");
+            return;
+        }
+        SwingWorker<Set<String>, String> trabajo = new SwingWorker<>() {
+            @Override
+            protected Set<String> doInBackground() {
+                // publish y setProgress se pueden llamar desde cualquier hilo, también los del pool
+                OyenteBusqueda oyente = new OyenteBusqueda() {
+                    @Override
+                    public void encontrada(String palabra) {
+                        publish(palabra);
+                    }
+
+                    @Override
+                    public void progreso(int hechas, int total) {
+                        setProgress(total == 0 ? 100 : (int) (100L * hechas / total));
+                    }
+                };
+                MetodoBusqueda elegido = MetodoBusqueda.valueOf(metodo);
+                if (busquedas != null)
+                    return buscadorActual.buscarTodasLasPalabras(diccionarioActual, elegido, busquedas, oyente);
+                return buscadorActual.buscarTodasLasPalabras(diccionarioActual, elegido, oyente);
+            }
+
+            @Override
+            protected void process(java.util.List<String> palabras) {
+                StringBuilder lote = new StringBuilder();
+                palabras.forEach(palabra -> lote.append(palabra).append('\n'));
+                salida.append(lote.toString());
+            }
+
+            @Override
+            protected void done() {
+                String duracion = formatearDuracion(System.nanoTime() - tiempoInicial);
+                tiempo.setText("Tiempo: " + duracion + " ms");
+                if (isCancelled()) {
+                    salida.append("Búsqueda cancelada.\n");
+                } else {
+                    try {
+                        Set<String> encontradas = get();
+                        cache.guardar(buscadorActual.huella(), huellaDiccionario, encontradas);
+                        salida.append("Palabras encontradas: " + encontradas.size() + "\n");
+                    } catch (Exception ex) {
+                        mostrarError("Error durante la búsqueda: " + ex.getMessage());
+                    }
+                }
+                salida.append("Tiempo total: " + duracion + " ms\n");
+                terminarBusqueda();
+            }
+        };
+        iniciarBusqueda(trabajo);
     }
     
     /**
@@ -168,7 +318,7 @@ public class ManejadorGUI extends JFrame {
      */
     private void buscarPalabraEspecifica() {
         // Revisar que el tablero y diccionario no sean nulos
-        if (tablero == null || diccionario == null || buscador == null) {
+        if (tablero == null || diccionario.get() == null || buscador == null) {
             mostrarError("Primero cargue un archivo con el tablero y diccionario.");
             return;
         }
@@ -180,28 +330,307 @@ public class ManejadorGUI extends JFrame {
         }
         // Método a usar
         String metodo = (String) metodoBusqueda.getSelectedItem();
+        // Con comodines o con distancia se buscan todas las variantes en un solo recorrido
+        int distancia = (Integer) distanciaMaxima.getSelectedItem();
+        if (distancia > 0 || palabra.indexOf(AutomataLevenshtein.COMODIN) >= 0) {
+            buscarPatron(palabra, distancia, MetodoBusqueda.valueOf(metodo));
+            return;
+        }
         salida.append("\nBuscando la palabra '" + palabra + "' usando " + metodo + "...\n");
-        // Tracking del tiempo
-        long tiempoInicial = System.currentTimeMillis();
-        boolean encontrada = buscador.buscarPalabra(palabra, metodo.equals("BFS"));
-        long duracion = System.currentTimeMillis() - tiempoInicial;
-        tiempo.setText("Tiempo: " + duracion + " ms");
-        // Si se encontró, imprimirlo en la salida
-        if (encontrada) {
-            salida.append("La palabra '" + palabra + "' fue encontrada en el tablero.\n");
-            if (!diccionario.contains(palabra)) {
-                diccionario.add(palabra);
-                salida.append("La palabra '" + palabra + "' ha sido agregada al diccionario.\n");
+        // Tracking del tiempo y búsqueda en segundo plano
+        BuscadorPalabras buscadorActual = buscador;
+        // Con BFS la búsqueda registra su árbol de recorrido para mostrarlo sin repetirla
+        ArbolBFS arbol = metodo.equals("BFS") ? new ArbolBFS(palabra, buscador.getColumnas(), MAX_NODOS_ARBOL) : null;
+        // En línea recta se muestra dónde empieza cada aparición y hacia dónde sigue
+        MetodoBusqueda metodoElegido = MetodoBusqueda.valueOf(metodo);
+        java.util.List<Coincidencia> coincidencias = new ArrayList<>();
+        // Celdas de las apariciones encontradas, para resaltarlas en el tablero
+        java.util.List<int[]> caminos = new ArrayList<>();
+        boolean resaltar = etiquetas != null;
+        long tiempoInicial = System.nanoTime();
+        SwingWorker<Boolean, Void> trabajo = new SwingWorker<>() {
+            @Override
+            protected Boolean doInBackground() {
+                if (metodoElegido.esLineal()) {
+                    coincidencias.addAll(buscadorActual.buscarCoincidencias(Set.of(palabra),
+                        metodoElegido == MetodoBusqueda.LINEAL_TOROIDAL));
+                    for (Coincidencia coincidencia : coincidencias) {
+                        caminos.add(coincidencia.celdas(buscadorActual.getFilas(), buscadorActual.getColumnas()));
+                    }
+                    return !coincidencias.isEmpty();
+                }
+                // El camino sale del mismo recorrido que encuentra la palabra
+                int[] camino;
+                if (arbol != null) {
+                    camino = buscadorActual.buscarCamino(palabra, arbol);
+                    if (camino != null)
+                        arbol.agruparSubarboles();
+                } else if (resaltar) {
+                    camino = buscadorActual.buscarCamino(palabra, metodoElegido);
+                } else {
+                    return cache.buscarPalabra(buscadorActual, palabra, metodoElegido);
+                }
+                if (camino != null)
+                    caminos.add(camino);
+                return camino != null;
+            }
+
+            @Override
+            protected void done() {
+                String duracion = formatearDuracion(System.nanoTime() - tiempoInicial);
+                tiempo.setText("Tiempo: " + duracion + " ms");
+                terminarBusqueda();
+                if (isCancelled()) {
+                    salida.append("Búsqueda cancelada.\n");
+                    return;
+                }
+                boolean encontrada;
+                try {
+                    encontrada = get();
+                } catch (Exception ex) {
+                    mostrarError("Error durante la búsqueda: " + ex.getMessage());
+                    return;
+                }
+                resaltarCaminos(caminos);
+                // Si se encontró, imprimirlo en la salida
+                if (encontrada) {
+                    salida.append("La palabra '" + palabra + "' fue encontrada en el tablero.\n");
+                    if (!metodoElegido.esLineal() && !caminos.isEmpty())
+                        salida.append("  camino: " + describirCamino(caminos.get(0), buscadorActual.getColumnas()) + "\n");
+                    for (Coincidencia coincidencia : coincidencias) {
+                        salida.append("  desde (" + coincidencia.fila() + "," + coincidencia.columna()
+                            + ") hacia " + coincidencia.direccion() + "\n");
+                    }
+                    DiccionarioInmutable anterior = diccionario.get();
+                    if (diccionario.updateAndGet(actual -> actual.con(palabra)) != anterior) {
+                        if (solucionador != null)
+                            solucionador.agregarPalabra(palabra);
+                        salida.append("La palabra '" + palabra + "' ha sido agregada al diccionario.\n");
+                    }
+                    salida.append("Tiempo de búsqueda: " + duracion + " ms\n");
+                    // Mostrar árbol de recorrido BFS si se usó ese método
+                    if (arbol != null)
+                        mostrarArbol(arbol);
+                }
+                // De lo contrario, imprimir un mensaje avisando esto
+                else {
+                    salida.append("La palabra '" + palabra + "' NO fue encontrada en el tablero.\n");
+                    salida.append("Tiempo de búsqueda: " + duracion + " ms\n");
+                }
+            }
+        };
+        iniciarBusqueda(trabajo);
+    }
+    
+    /**
+     * Buscar las secuencias del tablero que coinciden con un patrón con comodines '?' o a
+     * distancia de edición acotada de una palabra. Las coincidencias no se agregan al
+     * diccionario, porque pueden no ser palabras.
+     * @param patron: palabra o patrón en mayúsculas
+     * @param distancia: distancia de edición máxima
+     * @param metodo: método de búsqueda elegido; los métodos en línea recta buscan en línea recta
+     */
+    private void buscarPatron(String patron, int distancia, MetodoBusqueda metodo) {
+        if (distancia >= patron.length()) {
+            mostrarError("La distancia debe ser menor que el largo de la palabra.");
+            return;
+        }
+        salida.append("\nBuscando '" + patron + "' a distancia " + distancia + " usando " + metodo + "...\n");
+        BuscadorPalabras buscadorActual = buscador;
+        long tiempoInicial = System.nanoTime();
+        SwingWorker<java.util.List<CoincidenciaAproximada>, Void> trabajo = new SwingWorker<>() {
+            @Override
+            protected java.util.List<CoincidenciaAproximada> doInBackground() {
+                return buscadorActual.buscarAproximadas(patron, distancia, metodo);
+            }
+
+            @Override
+            protected void done() {
+                String duracion = formatearDuracion(System.nanoTime() - tiempoInicial);
+                tiempo.setText("Tiempo: " + duracion + " ms");
+                terminarBusqueda();
+                if (isCancelled()) {
+                    salida.append("Búsqueda cancelada.\n");
+                    return;
+                }
+                java.util.List<CoincidenciaAproximada> coincidencias;
+                try {
+                    coincidencias = get();
+                } catch (Exception ex) {
+                    mostrarError("Error durante la búsqueda: " + ex.getMessage());
+                    return;
+                }
+                java.util.List<int[]> caminos = new ArrayList<>();
+                StringBuilder lista = new StringBuilder();
+                for (CoincidenciaAproximada coincidencia : coincidencias) {
+                    if (caminos.size() == MAX_COINCIDENCIAS_MOSTRADAS)
+                        break;
+                    caminos.add(coincidencia.camino());
+                    lista.append("  ").append(coincidencia.palabra()).append(" (distancia ")
+                        .append(coincidencia.distancia()).append("): ")
+                        .append(describirCamino(coincidencia.camino(), buscadorActual.getColumnas())).append('\n');
+                }
+                resaltarCaminos(caminos);
+                salida.append(lista.toString());
+                if (coincidencias.size() > caminos.size())
+                    salida.append("  ... y " + (coincidencias.size() - caminos.size()) + " más\n");
+                salida.append("Coincidencias: " + coincidencias.size() + "\n");
+                salida.append("Tiempo de búsqueda: " + duracion + " ms\n");
+            }
+        };
+        iniciarBusqueda(trabajo);
+    }
+
+    /**
+     * Pintar en el tablero las casillas de las apariciones encontradas, con la primera
+     * letra de cada una más oscura; las demás casillas vuelven al color normal
+     * @param caminos: celdas de cada aparición (celda = fila * columnas + col)
+     */
+    private void resaltarCaminos(java.util.List<int[]> caminos) {
+        if (etiquetas == null)
+            return;
+        int columnas = etiquetas[0].length;
+        for (JLabel[] fila : etiquetas) {
+            for (JLabel etiqueta : fila) {
+                etiqueta.setBackground(panelTablero.getBackground());
             }
-            // Mostrar árbol de recorrido BFS si se usó ese método
-            if (metodo.equals("BFS"))
-                mostrarArbol(palabra);
         }
-        // De lo contrario, imprimir un mensaje avisando esto
-        else {
-            salida.append("La palabra '" + palabra + "' NO fue encontrada en el tablero.\n");
+        for (int[] camino : caminos) {
+            for (int i = camino.length - 1; i >= 0; i--) {
+                etiquetas[camino[i] / columnas][camino[i] % columnas]
+                    .setBackground(i == 0 ? COLOR_INICIO_CAMINO : COLOR_CAMINO);
+            }
+        }
+    }
+
+    /**
+     * @param camino: celdas de una aparición (celda = fila * columnas + col)
+     * @param columnas: columnas del tablero
+     * @return texto con la fila y columna de cada celda
+     */
+    private static String describirCamino(int[] camino, int columnas) {
+        StringBuilder texto = new StringBuilder();
+        for (int celda : camino) {
+            if (texto.length() > 0)
+                texto.append(" -> ");
+            texto.append('(').append(celda / columnas).append(',').append(celda % columnas).append(')');
+        }
+        return texto.toString();
+    }
+
+    /**
+     * Cambiar la letra de una casilla pedida al usuario y actualizar la solución sin
+     * volver a buscar todo el diccionario. La primera edición resuelve el tablero una
+     * vez para crear el SolucionadorIncremental; las siguientes solo revisan los
+     * caminos que pasan por la casilla cambiada.
+     * @param fila: fila de la casilla
+     * @param col: columna de la casilla
+     */
+    private void editarCelda(int fila, int col) {
+        if (busquedaActual != null || tablero == null || diccionario.get() == null)
+            return;
+        String texto = JOptionPane.showInputDialog(this, "Nueva letra para la casilla (" + fila + "," + col + "):",
+            String.valueOf(tablero[fila][col]));
+        if (texto == null)
+            return;
+        texto = texto.trim().toUpperCase();
+        if (texto.length() != 1) {
+            mostrarError("Ingrese una sola letra.");
+            return;
+        }
+        char letra = texto.charAt(0);
+        if (letra == tablero[fila][col])
+            return;
+        salida.append("\nCambiando la casilla (" + fila + "," + col + ") de " + tablero[fila][col] + " a " + letra + "...\n");
+        SolucionadorIncremental anterior = solucionador;
+        char[][] tableroActual = tablero;
+        DiccionarioInmutable diccionarioActual = diccionario.get();
+        long tiempoInicial = System.nanoTime();
+        SwingWorker<SolucionadorIncremental.Cambios, Void> trabajo = new SwingWorker<>() {
+            private SolucionadorIncremental usado;
+
+            @Override
+            protected SolucionadorIncremental.Cambios doInBackground() {
+                usado = anterior != null ? anterior : new SolucionadorIncremental(tableroActual, diccionarioActual);
+                return usado.cambiarCelda(fila, col, letra);
+            }
+
+            @Override
+            protected void done() {
+                String duracion = formatearDuracion(System.nanoTime() - tiempoInicial);
+                tiempo.setText("Tiempo: " + duracion + " ms");
+                terminarBusqueda();
+                if (isCancelled()) {
+                    // El cambio puede haber quedado a medias en el solucionador
+                    solucionador = null;
+                    salida.append("Edición cancelada.\n");
+                    return;
+                }
+                SolucionadorIncremental.Cambios cambios;
+                try {
+                    cambios = get();
+                } catch (Exception ex) {
+                    solucionador = null;
+                    mostrarError("Error al actualizar la solución: " + ex.getMessage());
+                    return;
+                }
+                solucionador = usado;
+                tablero[fila][col] = letra;
+                buscador = new BuscadorPalabras(tablero);
+                mostrarTablero();
+                cambios.nuevas().forEach(palabra -> salida.append("  + " + palabra + "\n"));
+                cambios.perdidas().forEach(palabra -> salida.append("  - " + palabra + "\n"));
+                salida.append("Palabras encontradas: " + solucionador.encontradas().size() + " ("
+                    + cambios.nuevas().size() + " nuevas, " + cambios.perdidas().size() + " perdidas)\n");
+                salida.append("Tiempo de actualización: " + duracion + " ms\n");
+            }
+        };
+        iniciarBusqueda(trabajo);
+    }
+
+    /**
+     * Ejecutar una búsqueda en segundo plano, desactivando los botones que
+     * cambian el tablero o el diccionario mientras corre
+     * @param trabajo: búsqueda a ejecutar
+     */
+    private void iniciarBusqueda(SwingWorker<?, ?> trabajo) {
+        busquedaActual = trabajo;
+        cargarArchivo.setEnabled(false);
+        buscarTodas.setEnabled(false);
+        buscarPalabra.setEnabled(false);
+        guardarDic.setEnabled(false);
+        cancelar.setEnabled(true);
+        barraProgreso.setValue(0);
+        barraProgreso.setIndeterminate(true);
+        trabajo.addPropertyChangeListener(evento -> {
+            if ("progress".equals(evento.getPropertyName())) {
+                barraProgreso.setIndeterminate(false);
+                barraProgreso.setValue((Integer) evento.getNewValue());
+            }
+        });
+        trabajo.execute();
+    }
+    
+    /**
+     * Volver a activar los botones cuando termina la búsqueda en segundo plano
+     */
+    private void terminarBusqueda() {
+        busquedaActual = null;
+        cargarArchivo.setEnabled(true);
+        buscarTodas.setEnabled(true);
+        buscarPalabra.setEnabled(true);
+        guardarDic.setEnabled(true);
+        cancelar.setEnabled(false);
+        barraProgreso.setIndeterminate(false);
+    }
+    
+    /**
+     * Cancelar la búsqueda actual interrumpiendo el hilo que la ejecuta
+     */
+    private void cancelarBusqueda() {
+        if (busquedaActual != null) {
+            busquedaActual.cancel(true);
         }
-        salida.append("Tiempo de búsqueda: " + duracion + " ms\n");
     }
     
     /**
@@ -209,13 +638,22 @@ public class ManejadorGUI extends JFrame {
      * y guardar en el archivo original
      */
     private void guardarDiccionario() {
-        if (manejadorArchivos.guardarDiccionario(diccionario)) {
+        if (manejadorArchivos.guardarDiccionario(diccionario.get())) {
             salida.append("\nDiccionario guardado correctamente en el archivo.\n");
         } else {
             mostrarError("No hay diccionario cargado o no se ha seleccionado un archivo.");
         }
     }
     
+    /**
+     * Convertir una duración medida con System.nanoTime a milisegundos con decimales
+     * @param nanos: duración en nanosegundos
+     * @return texto con los milisegundos
+     */
+    private static String formatearDuracion(long nanos) {
+        return String.format(Locale.ROOT, "%.3f", nanos / 1_000_000.0);
+    }
+    
     /**
      * Mostrar un mensaje si ocurre algún error en el programa
      * @param mensaje: mensaje que enseñar en la interfaz
@@ -226,109 +664,16 @@ public class ManejadorGUI extends JFrame {
     
     /**
     * Muestra una representación visual del árbol de recorrido BFS
-    * en la búsqueda de una palabra.
-    * @param palabra: palabra para la cual mostrar su árbol de búsqueda
+    * registrado en la búsqueda de una palabra.
+    * @param arbol: árbol de recorrido registrado por la búsqueda
     */
-   private void mostrarArbol(String palabra) {
-       // Verificar que la palabra no sea vacía
-       if (palabra == null || palabra.isEmpty())
-           return;
-       // Configuración inicial del sistema GraphStream
-       System.setProperty("org.graphstream.ui", "swing");
-       System.setProperty("org.graphstream.ui.renderer", "org.graphstream.ui.j2dviewer.J2DGraphRenderer");
-       // Crear el grafo principal que contendrá todos los subárboles
-       Graph graph = new MultiGraph("BFS Tree");
-       graph.setAttribute("ui.stylesheet", 
-           "node {" +
-           "   fill-color: #4682B4;" +
-           "   size: 40px;" +
-           "   text-alignment: center;" +
-           "   text-size: 14px;" +
-           "   text-style: bold;" +
-           "   text-color: white;" +
-           "}" +
-           "edge {" +
-           "   fill-color: #777;" +
-           "   size: 2px;" +
-           "}");
-       char primeraLetra = palabra.charAt(0);
-       boolean encontrado = false;
-       // Iterar por el tablero para encontrar todas las posiciones iniciales posibles
-       for (int row = 0; row < 4; row++) {
-           for (int col = 0; col < 4; col++) {
-               if (tablero[row][col] == primeraLetra) {
-                   encontrado = true;
-                   // Configurar la estructura para BFS
-                   Queue<NodoBFS> cola = new LinkedList<>();
-                   Set<String> visitados = new HashSet<>();
-                   // Crear nodo raíz con su etiqueta
-                   String idRaiz = String.format("%d-%d-%d,%d", row, col, row, col);
-                   Node raiz = graph.addNode(idRaiz);
-                   raiz.setAttribute("ui.label", String.format("(%d,%d)\n%c", row, col, primeraLetra));
-                   cola.add(new NodoBFS(row, col, 0, null));
-                   visitados.add(idRaiz);
-                   // Mapa para mantener relación padre-hijo
-                   Map<String, String> padreDe = new HashMap<>();
-                   // Iterar hasta que la cola esté vacía
-                   while (!cola.isEmpty()) {
-                       NodoBFS nodoActual = cola.poll();
-                       // Terminar si llegamos al final de la palabra
-                       if (nodoActual.indice == palabra.length() - 1) {
-                           break;
-                       }
-                       // De lo contrario, avanzar a la siguiente letra
-                       char nextChar = palabra.charAt(nodoActual.indice + 1);
-                       // Explorar todos los vecinos posibles
-                       for (int r = Math.max(0, nodoActual.fila - 1); r <= Math.min(3, nodoActual.fila + 1); r++) {
-                           for (int c = Math.max(0, nodoActual.col - 1); c <= Math.min(3, nodoActual.col + 1); c++) {
-                               if (r == nodoActual.fila && c == nodoActual.col)
-                                   continue;
-                               // Revisar si el vecino corresponde a la siguiente letra
-                               if (tablero[r][c] == nextChar) {
-                                   String idNodo = String.format("%d-%d-%d,%d", row, col, r, c);
-                                   // Revisar si no se ha visitado el nodo
-                                   if (!visitados.contains(idNodo)) {
-                                       Node nodo = graph.addNode(idNodo);
-                                       nodo.setAttribute("ui.label", String.format("(%d,%d)\n%c", r, c, nextChar));
-                                       padreDe.put(idNodo, String.format("%d-%d-%d,%d", row, col, nodoActual.fila, nodoActual.col));
-                                       cola.add(new NodoBFS(r, c, nodoActual.indice + 1, nodoActual));
-                                       visitados.add(idNodo);
-                                   }
-                               }
-                           }
-                       }
-                   }
-                   // Crear las aristas basadas en las relaciones padre-hijo
-                   for (Map.Entry<String, String> entry : padreDe.entrySet()) {
-                       String hijo = entry.getKey();
-                       String padre = entry.getValue();
-                       graph.addEdge(padre + "-" + hijo, padre, hijo, true);
-                   }
-               }
-           }
-       }
-       if (!encontrado) {
+   private void mostrarArbol(ArbolBFS arbol) {
+       if (arbol.cantidad() == 0) {
            JOptionPane.showMessageDialog(this, "La primera letra de la palabra no se encuentra en el tablero.", 
                "Error", JOptionPane.ERROR_MESSAGE);
            return;
        }
-       // Insertar el grafo en un cuadro JDialog
-       JDialog dialogoGrafico = new JDialog(this, "Árbol de Recorrido BFS - Palabra: " + palabra, true);
-       dialogoGrafico.setSize(800, 800);
-       // Usar un diseño de caja vertical para organizar los componentes
-       JPanel panelPrincipal = new JPanel(new BorderLayout());
-       // Usar el método display() del grafo para crear el visualizador
-       Viewer viewer = graph.display();
-       ViewPanel viewPanel = (ViewPanel) viewer.getDefaultView();
-       // Botón de cierre de la visualización
-       JButton botonCierre = new JButton("Cerrar Visualización");
-       botonCierre.addActionListener(e -> dialogoGrafico.dispose());
-       panelPrincipal.add(viewPanel, BorderLayout.CENTER);
-       panelPrincipal.add(botonCierre, BorderLayout.SOUTH);
-       dialogoGrafico.add(panelPrincipal);
-       dialogoGrafico.setDefaultCloseOperation(JDialog.DISPOSE_ON_CLOSE);
-       dialogoGrafico.setLocationRelativeTo(this);
-       dialogoGrafico.setVisible(true);
+       new VisorArbolBFS(this, arbol).setVisible(true);
    }
     
 }
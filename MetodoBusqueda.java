@@ -0,0 +1,25 @@
+package sopaletras;
+
+/**
+ * Métodos de búsqueda disponibles en el buscador de palabras
+ */
+public enum MetodoBusqueda {
+    /** Búsqueda en profundidad, palabra por palabra */
+    DFS,
+    /** Búsqueda en anchura, palabra por palabra */
+    BFS,
+    /** Recorrido único del tablero guiado por un trie con todo el diccionario */
+    TRIE,
+    /** Palabras en línea recta en las 8 direcciones, como en la sopa de letras clásica */
+    LINEAL,
+    /** Palabras en línea recta que siguen del otro lado al llegar a un borde (tablero toroidal) */
+    LINEAL_TOROIDAL;
+
+    /**
+     * @return true si las palabras van en línea recta, en lugar de por cualquier camino
+     *         de celdas vecinas como en DFS, BFS y TRIE
+     */
+    public boolean esLineal() {
+        return this == LINEAL || this == LINEAL_TOROIDAL;
+    }
+}
@@ -0,0 +1,319 @@
+package sopaletras;
+
+import java.lang.management.ManagementFactory;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * Métricas de las búsquedas de BuscadorPalabras, separadas por método de búsqueda:
+ * consultas y búsquedas completas, palabras probadas y encontradas, palabras
+ * descartadas por el índice del tablero, nodos expandidos, ramas podadas, tamaño
+ * máximo de la frontera BFS, profundidad máxima del recorrido e histogramas de
+ * latencia en nanosegundos. Los contadores son LongAdder, así que varios hilos
+ * pueden registrar a la vez sin candados. Se publican por JMX y con reporte().
+ */
+public class MetricasBusqueda implements MetricasBusquedaMBean {
+    public static final String NOMBRE_JMX = "sopaletras:type=MetricasBusqueda";
+    private static final MetricasBusqueda GLOBAL = new MetricasBusqueda();
+    private static boolean registradaJMX = false;
+
+    private final Contadores[] contadores;
+    private volatile boolean activas = true;
+
+    public MetricasBusqueda() {
+        MetodoBusqueda[] metodos = MetodoBusqueda.values();
+        contadores = new Contadores[metodos.length];
+        for (int i = 0; i < metodos.length; i++) {
+            contadores[i] = new Contadores();
+        }
+    }
+
+    /**
+     * @return métricas compartidas que usan todos los buscadores por defecto
+     */
+    public static MetricasBusqueda global() {
+        return GLOBAL;
+    }
+
+    /**
+     * Registrar las métricas compartidas en el servidor JMX de la plataforma; si ya
+     * estaban registradas no hace nada
+     */
+    public static synchronized void registrarJMX() {
+        if (registradaJMX)
+            return;
+        try {
+            MBeanServer servidor = ManagementFactory.getPlatformMBeanServer();
+            servidor.registerMBean(GLOBAL, new ObjectName(NOMBRE_JMX));
+            registradaJMX = true;
+        } catch (JMException ex) {
+            System.err.println("No se pudieron registrar las métricas en JMX: " + ex.getMessage());
+        }
+    }
+
+    /**
+     * Contadores de un método de búsqueda
+     */
+    private static final class Contadores {
+        final LongAdder consultas = new LongAdder();
+        final LongAdder completas = new LongAdder();
+        final LongAdder probadas = new LongAdder();
+        final LongAdder encontradas = new LongAdder();
+        final LongAdder descartadasPorIndice = new LongAdder();
+        final LongAdder nodosExpandidos = new LongAdder();
+        final LongAdder ramasPodadas = new LongAdder();
+        final LongAccumulator fronteraMaxima = new LongAccumulator(Math::max, 0);
+        final LongAccumulator profundidadMaxima = new LongAccumulator(Math::max, 0);
+        final Histograma latenciaConsulta = new Histograma();
+        final Histograma latenciaCompleta = new Histograma();
+
+        void reiniciar() {
+            consultas.reset();
+            completas.reset();
+            probadas.reset();
+            encontradas.reset();
+            descartadasPorIndice.reset();
+            nodosExpandidos.reset();
+            ramasPodadas.reset();
+            fronteraMaxima.reset();
+            profundidadMaxima.reset();
+            latenciaConsulta.reiniciar();
+            latenciaCompleta.reiniciar();
+        }
+    }
+
+    /**
+     * Histograma de latencias con cubetas logarítmicas: cada potencia de 2 se divide en
+     * 8 cubetas iguales, así que el error de un percentil es menor al 12.5%
+     */
+    static final class Histograma {
+        private static final int SUBCUBETAS = 8;
+        private final AtomicLongArray cubetas = new AtomicLongArray(64 * SUBCUBETAS);
+        private final LongAccumulator maximo = new LongAccumulator(Math::max, 0);
+
+        void registrar(long nanos) {
+            cubetas.incrementAndGet(cubeta(Math.max(0, nanos)));
+            maximo.accumulate(nanos);
+        }
+
+        static int cubeta(long nanos) {
+            if (nanos < SUBCUBETAS)
+                return (int) nanos;
+            int exponente = 63 - Long.numberOfLeadingZeros(nanos);
+            int fraccion = (int) (nanos >>> (exponente - 3)) & (SUBCUBETAS - 1);
+            return ((exponente - 2) * SUBCUBETAS) | fraccion;
+        }
+
+        static long inicioCubeta(int cubeta) {
+            if (cubeta < SUBCUBETAS)
+                return cubeta;
+            int exponente = cubeta / SUBCUBETAS + 2;
+            return (long) (SUBCUBETAS + (cubeta & (SUBCUBETAS - 1))) << (exponente - 3);
+        }
+
+        long cantidad() {
+            long total = 0;
+            for (int i = 0; i < cubetas.length(); i++) {
+                total += cubetas.get(i);
+            }
+            return total;
+        }
+
+        /**
+         * @param percentil: percentil entre 0 y 100
+         * @return latencia aproximada en nanosegundos (punto medio de la cubeta), 0 si está vacío
+         */
+        long percentil(double percentil) {
+            long total = cantidad();
+            if (total == 0)
+                return 0;
+            long objetivo = Math.max(1, (long) Math.ceil(percentil / 100.0 * total));
+            long acumulado = 0;
+            for (int i = 0; i < cubetas.length(); i++) {
+                acumulado += cubetas.get(i);
+                if (acumulado >= objetivo)
+                    return Math.min(maximo.get(), (inicioCubeta(i) + inicioCubeta(i + 1) - 1) / 2);
+            }
+            return maximo.get();
+        }
+
+        long maximo() {
+            return maximo.get();
+        }
+
+        void reiniciar() {
+            for (int i = 0; i < cubetas.length(); i++) {
+                cubetas.set(i, 0);
+            }
+            maximo.reset();
+        }
+    }
+
+    private Contadores de(MetodoBusqueda metodo) {
+        return contadores[metodo.ordinal()];
+    }
+
+    /**
+     * Registrar una consulta de una palabra
+     * @param metodo: método de búsqueda
+     * @param nanos: duración de la consulta
+     */
+    public void registrarConsulta(MetodoBusqueda metodo, long nanos) {
+        Contadores c = de(metodo);
+        c.consultas.increment();
+        c.latenciaConsulta.registrar(nanos);
+    }
+
+    /**
+     * Registrar una búsqueda de todo un diccionario
+     * @param metodo: método de búsqueda
+     * @param nanos: duración de la búsqueda
+     */
+    public void registrarCompleta(MetodoBusqueda metodo, long nanos) {
+        Contadores c = de(metodo);
+        c.completas.increment();
+        c.latenciaCompleta.registrar(nanos);
+    }
+
+    /**
+     * Registrar el trabajo hecho por una o varias búsquedas. Las búsquedas de todo un
+     * diccionario lo acumulan y lo registran una sola vez, no palabra por palabra.
+     * @param metodo: método de búsqueda
+     * @param probadas: palabras probadas
+     * @param encontradas: palabras encontradas
+     * @param descartadas: palabras descartadas por el índice del tablero sin recorrerlo
+     * @param nodos: celdas expandidas
+     * @param podadas: ramas sin salida o vecinos cuyo prefijo no está en el trie
+     * @param profundidad: profundidad máxima del recorrido
+     * @param frontera: tamaño máximo de la frontera BFS
+     */
+    public void registrarTrabajo(MetodoBusqueda metodo, long probadas, long encontradas, long descartadas,
+                                 long nodos, long podadas, int profundidad, int frontera) {
+        Contadores c = de(metodo);
+        c.probadas.add(probadas);
+        c.encontradas.add(encontradas);
+        c.descartadasPorIndice.add(descartadas);
+        c.nodosExpandidos.add(nodos);
+        c.ramasPodadas.add(podadas);
+        c.profundidadMaxima.accumulate(profundidad);
+        c.fronteraMaxima.accumulate(frontera);
+    }
+
+    @Override
+    public boolean isActivas() {
+        return activas;
+    }
+
+    /**
+     * Activar o desactivar el registro de métricas; desactivado, las búsquedas no
+     * miden el tiempo ni cuentan nada
+     * @param activas: bool
+     */
+    @Override
+    public void setActivas(boolean activas) {
+        this.activas = activas;
+    }
+
+    @Override
+    public long getConsultas() {
+        long total = 0;
+        for (Contadores c : contadores) total += c.consultas.sum();
+        return total;
+    }
+
+    @Override
+    public long getBusquedasCompletas() {
+        long total = 0;
+        for (Contadores c : contadores) total += c.completas.sum();
+        return total;
+    }
+
+    @Override
+    public long getPalabrasProbadas() {
+        long total = 0;
+        for (Contadores c : contadores) total += c.probadas.sum();
+        return total;
+    }
+
+    @Override
+    public long getPalabrasEncontradas() {
+        long total = 0;
+        for (Contadores c : contadores) total += c.encontradas.sum();
+        return total;
+    }
+
+    @Override
+    public long getNodosExpandidos() {
+        long total = 0;
+        for (Contadores c : contadores) total += c.nodosExpandidos.sum();
+        return total;
+    }
+
+    @Override
+    public String getReporte() {
+        return reporte();
+    }
+
+    @Override
+    public long consultas(String metodo) {
+        return de(metodo(metodo)).consultas.sum();
+    }
+
+    @Override
+    public double latenciaConsultaMicros(String metodo, double percentil) {
+        return de(metodo(metodo)).latenciaConsulta.percentil(percentil) / 1000.0;
+    }
+
+    @Override
+    public double latenciaCompletaMicros(String metodo, double percentil) {
+        return de(metodo(metodo)).latenciaCompleta.percentil(percentil) / 1000.0;
+    }
+
+    private static MetodoBusqueda metodo(String nombre) {
+        return MetodoBusqueda.valueOf(nombre.trim().toUpperCase(Locale.ROOT));
+    }
+
+    @Override
+    public void reiniciar() {
+        for (Contadores c : contadores) {
+            c.reiniciar();
+        }
+    }
+
+    /**
+     * Armar un reporte de texto con todas las métricas, una sección por método
+     * @return reporte
+     */
+    public String reporte() {
+        StringBuilder sb = new StringBuilder("Métricas de búsqueda\n");
+        for (MetodoBusqueda metodo : MetodoBusqueda.values()) {
+            Contadores c = de(metodo);
+            if (c.consultas.sum() == 0 && c.completas.sum() == 0)
+                continue;
+            sb.append(String.format(Locale.ROOT,
+                "%s: %d consultas, %d búsquedas completas, %d palabras probadas, %d encontradas, %d descartadas por el índice%n",
+                metodo, c.consultas.sum(), c.completas.sum(), c.probadas.sum(), c.encontradas.sum(),
+                c.descartadasPorIndice.sum()));
+            sb.append(String.format(Locale.ROOT,
+                "  %d nodos expandidos, %d ramas podadas, profundidad máxima %d, frontera BFS máxima %d%n",
+                c.nodosExpandidos.sum(), c.ramasPodadas.sum(), c.profundidadMaxima.get(), c.fronteraMaxima.get()));
+            agregarLatencias(sb, "consulta", c.latenciaConsulta);
+            agregarLatencias(sb, "completa", c.latenciaCompleta);
+        }
+        return sb.toString();
+    }
+
+    private static void agregarLatencias(StringBuilder sb, String nombre, Histograma histograma) {
+        if (histograma.cantidad() == 0)
+            return;
+        sb.append(String.format(Locale.ROOT,
+            "  latencia %s (µs): p50 %.3f, p90 %.3f, p99 %.3f, máx %.3f%n", nombre,
+            histograma.percentil(50) / 1000.0, histograma.percentil(90) / 1000.0,
+            histograma.percentil(99) / 1000.0, histograma.maximo() / 1000.0));
+    }
+}
@@ -0,0 +1,46 @@
+package sopaletras;
+
+/**
+ * Interfaz JMX de MetricasBusqueda, visible como sopaletras:type=MetricasBusqueda
+ * en JConsole o VisualVM. Los atributos suman todos los métodos de búsqueda; las
+ * operaciones reciben el nombre del método (DFS, BFS, TRIE, LINEAL o LINEAL_TOROIDAL).
+ */
+public interface MetricasBusquedaMBean {
+    boolean isActivas();
+
+    void setActivas(boolean activas);
+
+    long getConsultas();
+
+    long getBusquedasCompletas();
+
+    long getPalabrasProbadas();
+
+    long getPalabrasEncontradas();
+
+    long getNodosExpandidos();
+
+    String getReporte();
+
+    /**
+     * @param metodo: nombre de un MetodoBusqueda
+     * @return cantidad de consultas de una palabra con ese método
+     */
+    long consultas(String metodo);
+
+    /**
+     * @param metodo: nombre de un MetodoBusqueda
+     * @param percentil: percentil entre 0 y 100
+     * @return latencia aproximada en microsegundos de las consultas de una palabra
+     */
+    double latenciaConsultaMicros(String metodo, double percentil);
+
+    /**
+     * @param metodo: nombre de un MetodoBusqueda
+     * @param percentil: percentil entre 0 y 100
+     * @return latencia aproximada en microsegundos de las búsquedas de todo el diccionario
+     */
+    double latenciaCompletaMicros(String metodo, double percentil);
+
+    void reiniciar();
+}
@@ -2,15 +2,20 @@ package sopaletras;
 
 
 /**
- * Clase auxiliar para representar nodos en la búsqueda BFS
+ * Clase auxiliar para representar los nodos del árbol BFS que se muestran en la
+ * visualización. Apunta a un nodo registrado en un ArbolBFS.
  */
 public class NodoBFS {
     public int fila, col;
     public int indice;
+    public int nodo;
+    public NodoBFS padre;
     
-    public NodoBFS(int fila, int col, int indice, NodoBFS padre) {
+    public NodoBFS(int nodo, int fila, int col, int indice, NodoBFS padre) {
+        this.nodo = nodo;
         this.fila = fila;
         this.col = col;
         this.indice = indice;
+        this.padre = padre;
     }
 }
@@ -0,0 +1,515 @@
+package sopaletras;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Oráculo de corrección: resuelve una sopa con todos los motores de búsqueda y compara
+ * sus resultados con una búsqueda de referencia escrita de la forma más simple posible,
+ * sin índices, podas ni mapas de bits. Para caminos entre celdas vecinas compara DFS,
+ * BFS (también con la frontera acotada, que termina con DFS), TRIE, el tablero compacto,
+ * la búsqueda paralela, el trie de DiccionarioInmutable y SolucionadorIncremental, y
+ * revisa que cada camino devuelto sea válido. Para palabras en línea recta compara el
+ * autómata de Aho-Corasick, la búsqueda palabra por palabra, la paralela y
+ * buscarCoincidencias, con y sin vuelta por los bordes. Para buscarPatron y
+ * buscarAproximadas arma patrones con comodines a partir del diccionario y compara las
+ * secuencias y sus distancias con todas las secuencias del tablero de hasta el largo del
+ * patrón más la distancia, con caminos y en línea recta.
+ *
+ * Como programa genera casos al azar con GeneradorSopas (tableros de tamaños y
+ * distribuciones variados, incluidos los repetitivos) y revisa además los archivos que
+ * se le pasen, o los .txt de las carpetas. Ante una diferencia imprime la semilla del
+ * caso para reproducirlo y termina con código 1.
+ *
+ * Uso: java sopaletras.OraculoSopas [--casos 200] [--lado 8] [--palabras 100]
+ *      [--largos 1-6] [--paralelismo 4] [--semilla 42] [archivo|carpeta...]
+ */
+public class OraculoSopas {
+    // Direcciones de las palabras en línea recta, en el orden de la referencia
+    private static final int[][] PASOS = {
+        {-1, -1}, {-1, 0}, {-1, 1}, {0, -1}, {0, 1}, {1, -1}, {1, 0}, {1, 1}
+    };
+    // Patrones por sopa para buscarAproximadas; el largo más la distancia no pasa de
+    // LARGO_APROXIMADAS, para que la referencia pueda recorrer todos los caminos
+    private static final int PATRONES_POR_SOPA = 2;
+    private static final int LARGO_APROXIMADAS = 5;
+
+    /**
+     * Diferencia entre un motor y la referencia
+     * @param motor: nombre del motor
+     * @param faltantes: palabras que la referencia encuentra y el motor no
+     * @param sobrantes: palabras que el motor encuentra y la referencia no, o con camino inválido
+     */
+    public record Discrepancia(String motor, Set<String> faltantes, Set<String> sobrantes) {
+        @Override
+        public String toString() {
+            return motor + ": faltan " + faltantes + ", sobran " + sobrantes;
+        }
+    }
+
+    // Compartido por todas las búsquedas paralelas; un BusquedaParalela con pool propio sirve una sola vez
+    private final ForkJoinPool pool;
+
+    /**
+     * @param paralelismo: hilos de la búsqueda paralela
+     */
+    public OraculoSopas(int paralelismo) {
+        this.pool = new ForkJoinPool(paralelismo);
+    }
+
+    /**
+     * Resolver una sopa con todos los motores y compararlos con la referencia
+     * @param tablero: tablero de N×M letras
+     * @param diccionario: palabras a buscar
+     * @return discrepancias encontradas, vacía si todos los motores coinciden
+     */
+    public List<Discrepancia> verificar(char[][] tablero, Set<String> diccionario) {
+        List<Discrepancia> discrepancias = new ArrayList<>();
+        verificarCaminos(tablero, diccionario, discrepancias);
+        verificarLineas(tablero, diccionario, false, discrepancias);
+        verificarLineas(tablero, diccionario, true, discrepancias);
+        verificarAproximadas(tablero, diccionario, discrepancias);
+        return discrepancias;
+    }
+
+    private void verificarCaminos(char[][] tablero, Set<String> diccionario, List<Discrepancia> discrepancias) {
+        Set<String> referencia = new HashSet<>();
+        for (String palabra : diccionario) {
+            if (estaEnCamino(tablero, palabra))
+                referencia.add(palabra);
+        }
+        IndiceDiccionario inmutable = DiccionarioInmutable.de(diccionario).indice();
+        for (boolean compacto : new boolean[] {false, true}) {
+            BuscadorPalabras buscador = new BuscadorPalabras(tablero);
+            buscador.setTableroCompacto(compacto);
+            String sufijo = compacto ? " compacto" : "";
+            for (MetodoBusqueda metodo : new MetodoBusqueda[] {MetodoBusqueda.DFS, MetodoBusqueda.BFS, MetodoBusqueda.TRIE}) {
+                comparar(metodo + sufijo, referencia, buscador.buscarTodasLasPalabras(diccionario, metodo), discrepancias);
+            }
+            comparar("TRIE inmutable" + sufijo, referencia, buscador.buscarTodasLasPalabras(inmutable), discrepancias);
+            BusquedaParalela paralela = new BusquedaParalela(buscador, pool);
+            comparar("DFS paralelo" + sufijo, referencia, paralela.buscar(diccionario, MetodoBusqueda.DFS), discrepancias);
+            comparar("TRIE paralelo" + sufijo, referencia, paralela.buscar(inmutable), discrepancias);
+            Map<String, int[]> caminos = buscador.buscarTodosLosCaminos(diccionario);
+            compararCaminos("buscarTodosLosCaminos" + sufijo, tablero, referencia, caminos, discrepancias);
+            // Con la frontera mínima BFS termina casi siempre con DFS
+            buscador.setCapacidadMaximaBFS(1);
+            comparar("BFS acotado" + sufijo, referencia, buscador.buscarTodasLasPalabras(diccionario, MetodoBusqueda.BFS),
+                discrepancias);
+        }
+        SolucionadorIncremental incremental = new SolucionadorIncremental(tablero, diccionario);
+        Map<String, int[]> caminos = new HashMap<>();
+        for (String palabra : incremental.encontradas()) {
+            caminos.put(palabra, incremental.camino(palabra));
+        }
+        compararCaminos("SolucionadorIncremental", tablero, referencia, caminos, discrepancias);
+    }
+
+    private void verificarLineas(char[][] tablero, Set<String> diccionario, boolean toroidal,
+                                 List<Discrepancia> discrepancias) {
+        MetodoBusqueda metodo = toroidal ? MetodoBusqueda.LINEAL_TOROIDAL : MetodoBusqueda.LINEAL;
+        Set<String> referencia = new HashSet<>();
+        for (String palabra : diccionario) {
+            if (estaEnLinea(tablero, palabra, toroidal))
+                referencia.add(palabra);
+        }
+        BuscadorPalabras buscador = new BuscadorPalabras(tablero);
+        comparar(metodo.toString(), referencia, buscador.buscarTodasLasPalabras(diccionario, metodo), discrepancias);
+        Set<String> porPalabra = new HashSet<>();
+        for (String palabra : diccionario) {
+            if (buscador.buscarPalabra(palabra, metodo))
+                porPalabra.add(palabra);
+        }
+        comparar(metodo + " por palabra", referencia, porPalabra, discrepancias);
+        IndiceDiccionario inmutable = DiccionarioInmutable.de(diccionario).indice();
+        comparar(metodo + " paralelo", referencia,
+            new BusquedaParalela(buscador, pool).buscarEnLineas(inmutable, toroidal), discrepancias);
+        Set<String> coincidencias = new HashSet<>();
+        Set<String> invalidas = new TreeSet<>();
+        int filas = tablero.length, columnas = tablero[0].length;
+        for (Coincidencia coincidencia : buscador.buscarCoincidencias(diccionario, toroidal)) {
+            coincidencias.add(coincidencia.palabra());
+            int[] celdas = coincidencia.celdas(filas, columnas);
+            for (int i = 0; i < celdas.length; i++) {
+                if (tablero[celdas[i] / columnas][celdas[i] % columnas] != coincidencia.palabra().charAt(i))
+                    invalidas.add(coincidencia.palabra());
+            }
+        }
+        comparar("buscarCoincidencias " + metodo, referencia, coincidencias, discrepancias);
+        if (!invalidas.isEmpty())
+            discrepancias.add(new Discrepancia("buscarCoincidencias " + metodo + " (celdas inválidas)", Set.of(), invalidas));
+    }
+
+    private void verificarAproximadas(char[][] tablero, Set<String> diccionario, List<Discrepancia> discrepancias) {
+        // Los patrones dependen solo de la sopa, así que un caso se reproduce con su semilla
+        Random rnd = new Random(31L * diccionario.hashCode() + Arrays.deepHashCode(tablero));
+        List<String> palabras = new ArrayList<>(new TreeSet<>(diccionario));
+        BuscadorPalabras buscador = new BuscadorPalabras(tablero);
+        for (int p = 0; p < PATRONES_POR_SOPA && !palabras.isEmpty(); p++) {
+            String palabra = palabras.get(rnd.nextInt(palabras.size()));
+            StringBuilder letras = new StringBuilder(palabra.substring(0, Math.min(palabra.length(), LARGO_APROXIMADAS - 1)));
+            for (int i = 0; i < letras.length(); i++) {
+                if (rnd.nextInt(4) == 0)
+                    letras.setCharAt(i, AutomataLevenshtein.COMODIN);
+            }
+            String patron = letras.toString();
+            int distancia = rnd.nextInt(Math.min(patron.length() - 1, LARGO_APROXIMADAS - patron.length()) + 1);
+            for (MetodoBusqueda metodo : new MetodoBusqueda[] {
+                    MetodoBusqueda.DFS, MetodoBusqueda.LINEAL, MetodoBusqueda.LINEAL_TOROIDAL}) {
+                String motor = (distancia == 0 ? "buscarPatron " : "buscarAproximadas ") + metodo + " \"" + patron
+                    + "\" distancia " + distancia;
+                Set<String> referencia = new HashSet<>();
+                aproximadasReferencia(tablero, patron, distancia, metodo).forEach(
+                    (secuencia, d) -> referencia.add(secuencia + "/" + d));
+                List<CoincidenciaAproximada> halladas = distancia == 0 ? buscador.buscarPatron(patron, metodo)
+                    : buscador.buscarAproximadas(patron, distancia, metodo);
+                Set<String> encontradas = new HashSet<>();
+                Set<String> invalidas = new TreeSet<>();
+                for (CoincidenciaAproximada coincidencia : halladas) {
+                    if (!encontradas.add(coincidencia.palabra() + "/" + coincidencia.distancia()))
+                        invalidas.add(coincidencia.palabra());
+                    boolean valida = metodo.esLineal()
+                        ? lineaValida(tablero, coincidencia.palabra(), coincidencia.camino(),
+                            metodo == MetodoBusqueda.LINEAL_TOROIDAL)
+                        : caminoValido(tablero, coincidencia.palabra(), coincidencia.camino());
+                    if (!valida)
+                        invalidas.add(coincidencia.palabra());
+                }
+                // Una distancia distinta aparece como faltante y sobrante, con la distancia tras la barra
+                comparar(motor, referencia, encontradas, discrepancias);
+                if (!invalidas.isEmpty())
+                    discrepancias.add(new Discrepancia(motor + " (caminos inválidos o repetidos)", Set.of(), invalidas));
+            }
+        }
+    }
+
+    private static void comparar(String motor, Set<String> referencia, Set<String> encontradas,
+                                 List<Discrepancia> discrepancias) {
+        Set<String> faltantes = new TreeSet<>(referencia);
+        faltantes.removeAll(encontradas);
+        Set<String> sobrantes = new TreeSet<>(encontradas);
+        sobrantes.removeAll(referencia);
+        if (!faltantes.isEmpty() || !sobrantes.isEmpty())
+            discrepancias.add(new Discrepancia(motor, faltantes, sobrantes));
+    }
+
+    /**
+     * Comparar las palabras de un motor que devuelve caminos y revisar que cada camino
+     * lea la palabra por celdas vecinas sin repetir ninguna
+     */
+    private static void compararCaminos(String motor, char[][] tablero, Set<String> referencia,
+                                        Map<String, int[]> caminos, List<Discrepancia> discrepancias) {
+        comparar(motor, referencia, caminos.keySet(), discrepancias);
+        Set<String> invalidos = new TreeSet<>();
+        caminos.forEach((palabra, camino) -> {
+            if (!caminoValido(tablero, palabra, camino))
+                invalidos.add(palabra);
+        });
+        if (!invalidos.isEmpty())
+            discrepancias.add(new Discrepancia(motor + " (caminos inválidos)", Set.of(), invalidos));
+    }
+
+    private static boolean caminoValido(char[][] tablero, String palabra, int[] camino) {
+        int filas = tablero.length, columnas = tablero[0].length;
+        if (camino == null || camino.length != palabra.length())
+            return false;
+        Set<Integer> usadas = new HashSet<>();
+        for (int i = 0; i < camino.length; i++) {
+            int fila = camino[i] / columnas, col = camino[i] % columnas;
+            if (camino[i] < 0 || fila >= filas || tablero[fila][col] != palabra.charAt(i) || !usadas.add(camino[i]))
+                return false;
+            if (i > 0) {
+                int filaAnterior = camino[i - 1] / columnas, colAnterior = camino[i - 1] % columnas;
+                if (Math.abs(fila - filaAnterior) > 1 || Math.abs(col - colAnterior) > 1)
+                    return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Revisar que las celdas de una coincidencia en línea recta lean la palabra y sigan una
+     * de las 8 direcciones, sin repetir celdas
+     */
+    private static boolean lineaValida(char[][] tablero, String palabra, int[] camino, boolean toroidal) {
+        int filas = tablero.length, columnas = tablero[0].length;
+        if (camino == null || camino.length != palabra.length())
+            return false;
+        Set<Integer> usadas = new HashSet<>();
+        for (int i = 0; i < camino.length; i++) {
+            if (camino[i] < 0 || camino[i] >= filas * columnas
+                || tablero[camino[i] / columnas][camino[i] % columnas] != palabra.charAt(i) || !usadas.add(camino[i]))
+                return false;
+        }
+        for (int[] paso : PASOS) {
+            boolean sigue = true;
+            for (int i = 1; i < camino.length && sigue; i++) {
+                int fila = camino[i - 1] / columnas + paso[0], col = camino[i - 1] % columnas + paso[1];
+                if (toroidal) {
+                    fila = Math.floorMod(fila, filas);
+                    col = Math.floorMod(col, columnas);
+                }
+                sigue = fila >= 0 && col >= 0 && fila < filas && col < columnas && fila * columnas + col == camino[i];
+            }
+            if (sigue)
+                return true;
+        }
+        return false;
+    }
+
+    /**
+     * Referencia para buscarPatron y buscarAproximadas: recorrer todas las secuencias del
+     * tablero de hasta patron.length() + distancia letras, por caminos o en línea recta, y
+     * calcular la distancia de cada una con la tabla completa de Levenshtein
+     * @return distancia de cada secuencia que queda dentro de la distancia máxima
+     */
+    static Map<String, Integer> aproximadasReferencia(char[][] tablero, String patron, int distancia,
+                                                      MetodoBusqueda metodo) {
+        int filas = tablero.length, columnas = tablero[0].length;
+        int largo = Math.min(patron.length() + distancia, filas * columnas);
+        Map<String, Integer> resultado = new HashMap<>();
+        for (int fila = 0; fila < filas; fila++) {
+            for (int col = 0; col < columnas; col++) {
+                if (!metodo.esLineal()) {
+                    secuenciasDesde(tablero, fila, col, new StringBuilder(), new boolean[filas][columnas], largo, patron,
+                        distancia, resultado);
+                    continue;
+                }
+                boolean toroidal = metodo == MetodoBusqueda.LINEAL_TOROIDAL;
+                for (int[] paso : PASOS) {
+                    int largoLinea = toroidal ? Math.min(largo, largoLinea(filas, columnas, paso)) : largo;
+                    StringBuilder secuencia = new StringBuilder();
+                    for (int r = fila, c = col; secuencia.length() < largoLinea; r += paso[0], c += paso[1]) {
+                        if (toroidal) {
+                            r = Math.floorMod(r, filas);
+                            c = Math.floorMod(c, columnas);
+                        } else if (r < 0 || c < 0 || r >= filas || c >= columnas) {
+                            break;
+                        }
+                        secuencia.append(tablero[r][c]);
+                        guardarSiCoincide(secuencia.toString(), patron, distancia, resultado);
+                    }
+                }
+            }
+        }
+        return resultado;
+    }
+
+    private static void secuenciasDesde(char[][] tablero, int fila, int col, StringBuilder secuencia,
+                                        boolean[][] visitadas, int largo, String patron, int distancia,
+                                        Map<String, Integer> resultado) {
+        if (fila < 0 || col < 0 || fila >= tablero.length || col >= tablero[0].length || visitadas[fila][col])
+            return;
+        secuencia.append(tablero[fila][col]);
+        guardarSiCoincide(secuencia.toString(), patron, distancia, resultado);
+        if (secuencia.length() < largo) {
+            visitadas[fila][col] = true;
+            for (int df = -1; df <= 1; df++) {
+                for (int dc = -1; dc <= 1; dc++) {
+                    if (df != 0 || dc != 0)
+                        secuenciasDesde(tablero, fila + df, col + dc, secuencia, visitadas, largo, patron, distancia,
+                            resultado);
+                }
+            }
+            visitadas[fila][col] = false;
+        }
+        secuencia.setLength(secuencia.length() - 1);
+    }
+
+    private static void guardarSiCoincide(String secuencia, String patron, int distancia, Map<String, Integer> resultado) {
+        int d = levenshtein(secuencia, patron);
+        if (d <= distancia)
+            resultado.put(secuencia, d);
+    }
+
+    /**
+     * Distancia de edición entre una secuencia y un patrón donde '?' coincide con cualquier letra
+     */
+    static int levenshtein(String secuencia, String patron) {
+        int[][] tabla = new int[secuencia.length() + 1][patron.length() + 1];
+        for (int i = 0; i <= secuencia.length(); i++) {
+            tabla[i][0] = i;
+        }
+        for (int j = 0; j <= patron.length(); j++) {
+            tabla[0][j] = j;
+        }
+        for (int i = 1; i <= secuencia.length(); i++) {
+            for (int j = 1; j <= patron.length(); j++) {
+                char letra = patron.charAt(j - 1);
+                int cambio = letra == AutomataLevenshtein.COMODIN || letra == secuencia.charAt(i - 1) ? 0 : 1;
+                tabla[i][j] = Math.min(tabla[i - 1][j - 1] + cambio, Math.min(tabla[i - 1][j], tabla[i][j - 1]) + 1);
+            }
+        }
+        return tabla[secuencia.length()][patron.length()];
+    }
+
+    /**
+     * Referencia para DFS, BFS y TRIE: probar todos los caminos desde todas las celdas
+     */
+    static boolean estaEnCamino(char[][] tablero, String palabra) {
+        if (palabra.isEmpty())
+            return false;
+        boolean[][] visitadas = new boolean[tablero.length][tablero[0].length];
+        for (int fila = 0; fila < tablero.length; fila++) {
+            for (int col = 0; col < tablero[0].length; col++) {
+                if (caminoDesde(tablero, palabra, 0, fila, col, visitadas))
+                    return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean caminoDesde(char[][] tablero, String palabra, int posicion, int fila, int col,
+                                       boolean[][] visitadas) {
+        if (fila < 0 || col < 0 || fila >= tablero.length || col >= tablero[0].length || visitadas[fila][col]
+            || tablero[fila][col] != palabra.charAt(posicion))
+            return false;
+        if (posicion == palabra.length() - 1)
+            return true;
+        visitadas[fila][col] = true;
+        boolean encontrada = false;
+        for (int df = -1; df <= 1 && !encontrada; df++) {
+            for (int dc = -1; dc <= 1 && !encontrada; dc++) {
+                encontrada = (df != 0 || dc != 0) && caminoDesde(tablero, palabra, posicion + 1, fila + df, col + dc, visitadas);
+            }
+        }
+        visitadas[fila][col] = false;
+        return encontrada;
+    }
+
+    /**
+     * Referencia para LINEAL y LINEAL_TOROIDAL: probar las 8 direcciones desde todas las
+     * celdas. Con vuelta por los bordes la palabra no puede ser más larga que la línea,
+     * para no pasar dos veces por la misma celda.
+     */
+    static boolean estaEnLinea(char[][] tablero, String palabra, boolean toroidal) {
+        int filas = tablero.length, columnas = tablero[0].length;
+        if (palabra.isEmpty())
+            return false;
+        for (int[] paso : PASOS) {
+            if (toroidal && palabra.length() > largoLinea(filas, columnas, paso))
+                continue;
+            for (int fila = 0; fila < filas; fila++) {
+                for (int col = 0; col < columnas; col++) {
+                    int i = 0;
+                    for (int r = fila, c = col; i < palabra.length(); i++, r += paso[0], c += paso[1]) {
+                        if (toroidal) {
+                            r = Math.floorMod(r, filas);
+                            c = Math.floorMod(c, columnas);
+                        } else if (r < 0 || c < 0 || r >= filas || c >= columnas) {
+                            break;
+                        }
+                        if (tablero[r][c] != palabra.charAt(i))
+                            break;
+                    }
+                    if (i == palabra.length())
+                        return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    // Cantidad de celdas distintas que recorre una línea con vuelta por los bordes
+    private static int largoLinea(int filas, int columnas, int[] paso) {
+        if (paso[0] == 0)
+            return columnas;
+        if (paso[1] == 0)
+            return filas;
+        int a = filas, b = columnas;
+        while (b != 0) {
+            int resto = a % b;
+            a = b;
+            b = resto;
+        }
+        return (int) Math.min(Integer.MAX_VALUE, (long) filas / a * columnas);
+    }
+
+    private static boolean informar(String caso, List<Discrepancia> discrepancias) {
+        if (discrepancias.isEmpty())
+            return true;
+        System.out.println("Diferencias en " + caso + ":");
+        discrepancias.forEach(discrepancia -> System.out.println("  " + discrepancia));
+        return false;
+    }
+
+    public static void main(String[] args) throws IOException {
+        int casos = 200, lado = 8, palabras = 100, paralelismo = 4, largoMinimo = 1, largoMaximo = 6;
+        long semilla = 42;
+        List<File> archivos = new ArrayList<>();
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--casos":
+                    casos = Integer.parseInt(args[++i]);
+                    break;
+                case "--lado":
+                    lado = Integer.parseInt(args[++i]);
+                    break;
+                case "--palabras":
+                    palabras = Integer.parseInt(args[++i]);
+                    break;
+                case "--largos":
+                    String[] largos = args[++i].split("-");
+                    largoMinimo = Integer.parseInt(largos[0].trim());
+                    largoMaximo = Integer.parseInt(largos[largos.length - 1].trim());
+                    break;
+                case "--paralelismo":
+                    paralelismo = Integer.parseInt(args[++i]);
+                    break;
+                case "--semilla":
+                    semilla = Long.parseLong(args[++i]);
+                    break;
+                default:
+                    if (args[i].startsWith("--"))
+                        throw new IllegalArgumentException("Opción desconocida: " + args[i]);
+                    File archivo = new File(args[i]);
+                    File[] contenido = archivo.listFiles((carpeta, nombre) -> nombre.endsWith(".txt"));
+                    if (contenido != null) {
+                        Arrays.sort(contenido);
+                        archivos.addAll(Arrays.asList(contenido));
+                    } else {
+                        archivos.add(archivo);
+                    }
+            }
+        }
+
+        OraculoSopas oraculo = new OraculoSopas(paralelismo);
+        GeneradorSopas.Distribucion[] distribuciones = GeneradorSopas.Distribucion.values();
+        Random rnd = new Random(semilla);
+        int fallidos = 0;
+        for (int caso = 0; caso < casos; caso++) {
+            int filas = 1 + rnd.nextInt(lado), columnas = 1 + rnd.nextInt(lado);
+            GeneradorSopas.Distribucion distribucion = distribuciones[caso % distribuciones.length];
+            double aciertos = rnd.nextDouble();
+            long semillaCaso = GeneradorSopas.semillaDe(semilla, filas, columnas, distribucion, caso);
+            GeneradorSopas generador = new GeneradorSopas(semillaCaso);
+            generador.setLargos(largoMinimo, largoMaximo);
+            GeneradorSopas.SopaGenerada sopa = generador.sopa(filas, columnas, distribucion, palabras, aciertos);
+            String descripcion = String.format("caso %d (%dx%d %s, %d palabras, semilla del generador %d)",
+                caso, filas, columnas, distribucion, sopa.diccionario().size(), semillaCaso);
+            if (!informar(descripcion, oraculo.verificar(sopa.tablero(), sopa.diccionario())))
+                fallidos++;
+        }
+        for (File archivo : archivos) {
+            Set<String> diccionario = new LinkedHashSet<>();
+            char[][] tablero = LectorSopa.leer(archivo, (letras, largo) -> diccionario.add(new String(letras, 0, largo)));
+            if (!informar(archivo.getPath(), oraculo.verificar(tablero, diccionario)))
+                fallidos++;
+        }
+        int total = casos + archivos.size();
+        System.out.println((total - fallidos) + " de " + total + " sopas sin diferencias");
+        if (fallidos > 0)
+            System.exit(1);
+    }
+}
@@ -0,0 +1,20 @@
+package sopaletras;
+
+/**
+ * Recibe los avances de una búsqueda de todas las palabras mientras se ejecuta
+ */
+public interface OyenteBusqueda {
+    /**
+     * Se llama una vez por cada palabra encontrada, apenas se encuentra
+     * @param palabra: palabra encontrada
+     */
+    void encontrada(String palabra);
+
+    /**
+     * Se llama cada cierto tiempo con el trabajo hecho hasta el momento
+     * @param hechas: unidades de trabajo terminadas (palabras, celdas iniciales o direcciones)
+     * @param total: total de unidades de trabajo
+     */
+    default void progreso(int hechas, int total) {
+    }
+}
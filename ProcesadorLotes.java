@@ -0,0 +1,220 @@
+package sopaletras;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Procesamiento de muchos archivos de sopa de letras en una tubería de tres etapas:
+ * lectura, búsqueda y escritura de resultados. Cada etapa tiene su propia cantidad de
+ * hilos y se conecta con la siguiente por una cola acotada, así la lectura de archivos
+ * se superpone con las búsquedas y, si una etapa se atrasa, las anteriores esperan en
+ * lugar de acumular sopas en memoria. Los archivos se toman de un iterador a medida que
+ * hay lugar en la primera cola, de modo que la memoria no depende de cuántos haya.
+ * Con más de un hilo en alguna etapa los resultados se escriben en el orden en que terminan.
+ *
+ * @param <S> sopa leída
+ * @param <R> resultado de la búsqueda
+ */
+public class ProcesadorLotes<S, R> {
+    // Marca de fin en las colas; cada hilo de una etapa consume una
+    private static final Object FIN = new Object();
+
+    public interface Lector<S> {
+        S leer(Path archivo) throws IOException;
+    }
+
+    public interface Buscador<S, R> {
+        R buscar(S sopa);
+    }
+
+    public interface Escritor<R> {
+        /**
+         * Escribir un resultado; si hay varios hilos de escritura se llama desde todos ellos
+         */
+        void escribir(R resultado) throws IOException;
+    }
+
+    /**
+     * Resumen de un procesamiento
+     * @param sopas: cantidad de archivos procesados
+     * @param nanos: duración total
+     * @param nanosLectura: tiempo sumado de todos los hilos de lectura
+     * @param nanosBusqueda: tiempo sumado de todos los hilos de búsqueda
+     * @param nanosEscritura: tiempo sumado de todos los hilos de escritura
+     */
+    public record Resumen(long sopas, long nanos, long nanosLectura, long nanosBusqueda, long nanosEscritura) {
+        public double sopasPorSegundo() {
+            return nanos == 0 ? 0 : sopas * 1e9 / nanos;
+        }
+
+        @Override
+        public String toString() {
+            return String.format(Locale.ROOT,
+                "%d sopas en %.3f s (%.1f sopas/s); tiempo de hilos: lectura %.3f s, búsqueda %.3f s, escritura %.3f s",
+                sopas, nanos / 1e9, sopasPorSegundo(), nanosLectura / 1e9, nanosBusqueda / 1e9, nanosEscritura / 1e9);
+        }
+    }
+
+    private interface Paso {
+        Object aplicar(Object entrada) throws Exception;
+    }
+
+    private final Lector<S> lector;
+    private final Buscador<S, R> buscador;
+    private final Escritor<R> escritor;
+    private final int hilosLectura;
+    private final int hilosBusqueda;
+    private final int hilosEscritura;
+    private final int capacidadColas;
+
+    /**
+     * @param lector: lee y analiza un archivo
+     * @param buscador: resuelve una sopa leída
+     * @param escritor: escribe un resultado
+     * @param hilosLectura: hilos de la etapa de lectura
+     * @param hilosBusqueda: hilos de la etapa de búsqueda
+     * @param hilosEscritura: hilos de la etapa de escritura
+     * @param capacidadColas: cantidad máxima de elementos en cada cola entre etapas
+     */
+    public ProcesadorLotes(Lector<S> lector, Buscador<S, R> buscador, Escritor<R> escritor,
+                           int hilosLectura, int hilosBusqueda, int hilosEscritura, int capacidadColas) {
+        if (hilosLectura < 1 || hilosBusqueda < 1 || hilosEscritura < 1 || capacidadColas < 1)
+            throw new IllegalArgumentException("Los hilos y la capacidad de las colas deben ser al menos 1");
+        this.lector = lector;
+        this.buscador = buscador;
+        this.escritor = escritor;
+        this.hilosLectura = hilosLectura;
+        this.hilosBusqueda = hilosBusqueda;
+        this.hilosEscritura = hilosEscritura;
+        this.capacidadColas = capacidadColas;
+    }
+
+    /**
+     * Procesar todos los archivos y esperar a que se escriban sus resultados.
+     * Si una etapa falla se detiene toda la tubería.
+     * @param archivos: archivos a procesar, se recorren a medida que hay lugar en la cola
+     * @return resumen con el rendimiento
+     * @throws IOException si falla la lectura de un archivo o la escritura de un resultado
+     * @throws InterruptedException si se interrumpe el hilo que espera
+     */
+    @SuppressWarnings("unchecked")
+    public Resumen procesar(Iterator<Path> archivos) throws IOException, InterruptedException {
+        BlockingQueue<Object> colaArchivos = new ArrayBlockingQueue<>(capacidadColas);
+        BlockingQueue<Object> colaSopas = new ArrayBlockingQueue<>(capacidadColas);
+        BlockingQueue<Object> colaResultados = new ArrayBlockingQueue<>(capacidadColas);
+        LongAdder nanosLectura = new LongAdder();
+        LongAdder nanosBusqueda = new LongAdder();
+        LongAdder nanosEscritura = new LongAdder();
+        LongAdder sopas = new LongAdder();
+        AtomicReference<Throwable> error = new AtomicReference<>();
+        List<Thread> hilos = new ArrayList<>();
+
+        long inicio = System.nanoTime();
+        crearEtapa("lector", hilosLectura, colaArchivos, colaSopas, hilosBusqueda, nanosLectura,
+            e -> lector.leer((Path) e), error, hilos);
+        crearEtapa("buscador", hilosBusqueda, colaSopas, colaResultados, hilosEscritura, nanosBusqueda,
+            e -> buscador.buscar((S) e), error, hilos);
+        crearEtapa("escritor", hilosEscritura, colaResultados, null, 0, nanosEscritura, e -> {
+            escritor.escribir((R) e);
+            sopas.increment();
+            return null;
+        }, error, hilos);
+        // Se inician después de crearlos todos, para que un hilo que falla pueda detener a los demás
+        for (Thread hilo : hilos) {
+            hilo.start();
+        }
+
+        try {
+            boolean seguir = true;
+            while (seguir && archivos.hasNext()) {
+                seguir = poner(colaArchivos, archivos.next(), error);
+            }
+            for (int i = 0; i < hilosLectura && seguir; i++) {
+                seguir = poner(colaArchivos, FIN, error);
+            }
+            for (Thread hilo : hilos) {
+                hilo.join();
+            }
+        } catch (InterruptedException | RuntimeException ex) {
+            detener(hilos);
+            throw ex;
+        }
+
+        Throwable falla = error.get();
+        if (falla instanceof IOException)
+            throw (IOException) falla;
+        if (falla instanceof RuntimeException)
+            throw (RuntimeException) falla;
+        if (falla instanceof Error)
+            throw (Error) falla;
+        if (falla != null)
+            throw new IOException(falla);
+        return new Resumen(sopas.sum(), System.nanoTime() - inicio, nanosLectura.sum(),
+            nanosBusqueda.sum(), nanosEscritura.sum());
+    }
+
+    /**
+     * Poner un elemento en la primera cola, esperando lugar mientras la tubería siga funcionando
+     * @return false si la tubería se detuvo por un error
+     */
+    private static boolean poner(BlockingQueue<Object> cola, Object elemento, AtomicReference<Throwable> error)
+            throws InterruptedException {
+        while (!cola.offer(elemento, 100, TimeUnit.MILLISECONDS)) {
+            if (error.get() != null)
+                return false;
+        }
+        return true;
+    }
+
+    /**
+     * Crear los hilos de una etapa. Cada hilo toma elementos de la cola de entrada
+     * hasta recibir FIN; el último hilo en terminar deja un FIN por cada hilo de la
+     * etapa siguiente. Si un paso falla se guarda el error y se detienen todos los hilos.
+     */
+    private void crearEtapa(String nombre, int cantidad, BlockingQueue<Object> entrada, BlockingQueue<Object> salida,
+                              int hilosSiguiente, LongAdder nanos, Paso paso, AtomicReference<Throwable> error,
+                              List<Thread> hilos) {
+        AtomicInteger activos = new AtomicInteger(cantidad);
+        for (int i = 0; i < cantidad; i++) {
+            Thread hilo = new Thread(() -> {
+                try {
+                    for (Object elemento = entrada.take(); elemento != FIN; elemento = entrada.take()) {
+                        long inicio = System.nanoTime();
+                        Object resultado = paso.aplicar(elemento);
+                        nanos.add(System.nanoTime() - inicio);
+                        if (salida != null)
+                            salida.put(resultado);
+                    }
+                    if (activos.decrementAndGet() == 0 && salida != null) {
+                        for (int j = 0; j < hilosSiguiente; j++) {
+                            salida.put(FIN);
+                        }
+                    }
+                } catch (InterruptedException ex) {
+                    // La tubería se está deteniendo por un error en otra etapa
+                } catch (Throwable ex) {
+                    if (error.compareAndSet(null, ex))
+                        detener(hilos);
+                }
+            }, nombre + "-" + (i + 1));
+            hilo.setDaemon(true);
+            hilos.add(hilo);
+        }
+    }
+
+    private static void detener(List<Thread> hilos) {
+        for (Thread hilo : hilos) {
+            hilo.interrupt();
+        }
+    }
+}
@@ -0,0 +1,536 @@
+package sopaletras;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Collectors;
+
+/**
+ * Servicio HTTP local para resolver sopas de letras desde otros programas, con el
+ * servidor que trae el JDK (com.sun.net.httpserver), sin dependencias nuevas.
+ *
+ *   POST /resolver[?metodo=TRIE&diccionario=nombre]  cuerpo: sopa con el formato de los archivos
+ *   GET  /diccionarios                               diccionarios precargados y su cantidad de palabras
+ *   GET  /metricas                                   reporte de MetricasBusqueda
+ *
+ * El cuerpo de /resolver tiene las secciones tab, dic y mod de un archivo de sopa. Con
+ * el parámetro diccionario se usa un diccionario precargado al iniciar y la sección dic
+ * se ignora. La respuesta es un objeto JSON como los de SopaLetrasCLI. Los diccionarios
+ * precargados (DiccionarioInmutable o DiccionarioCompilado) no cambian después de
+ * cargarse, así que todas las peticiones los recorren a la vez sin sincronizar. Cada
+ * petición corre en su propio hilo virtual si la JVM los tiene (Java 21 o posterior); si
+ * no, en un grupo fijo de hilos.
+ *
+ * La búsqueda de cada petición tiene un tiempo límite: al pasarlo se corta al terminar el
+ * bloque en curso y se responde 503. Los métodos en línea recta recorren cada línea una
+ * vez, así que no lo necesitan.
+ *
+ * Conviene lanzar la JVM con -Dsun.net.httpserver.nodelay=true: sin TCP_NODELAY cada
+ * respuesta espera el ACK retrasado del cliente (unos 40 ms por petición). La propiedad
+ * vale para todo el proceso, así que la elige quien lanza la JVM y no esta clase.
+ */
+public class ServidorSopas {
+    private static final String USO =
+        "Uso: java -Djava.awt.headless=true -Dsun.net.httpserver.nodelay=true sopaletras.ServidorSopas [opciones]\n"
+        + "  --puerto N                 puerto donde escuchar (8080 por defecto, 0 para uno libre)\n"
+        + "  --direccion host           dirección donde escuchar (localhost por defecto)\n"
+        + "  --diccionario nombre=ruta  precargar un diccionario (.sdic compilado o archivo con sección dic); se puede repetir\n"
+        + "  --hilos N                  hilos por petición si la JVM no tiene hilos virtuales (2 por procesador por defecto)\n"
+        + "  --hilos-busqueda N         hilos que reparten la búsqueda de cada petición, compartidos (1 por defecto)\n"
+        + "  --max-bytes N              tamaño máximo del cuerpo de una petición (16 MB por defecto)\n"
+        + "  --limite-ms N              tiempo máximo de búsqueda por petición, 0 para no limitarlo (10000 por defecto)\n"
+        + "Sin -Dsun.net.httpserver.nodelay=true cada respuesta se demora unos 40 ms esperando el ACK del cliente.\n";
+    public static final int PUERTO_POR_DEFECTO = 8080;
+    public static final int MAX_BYTES_POR_DEFECTO = 16 << 20;
+    public static final long LIMITE_BUSQUEDA_POR_DEFECTO_MS = 10_000;
+
+    private final Map<String, IndiceDiccionario> diccionarios;
+    private final int maxBytes;
+    private final int hilos;
+    private int paralelismoBusqueda = 1;
+    private volatile long limiteBusquedaMs = LIMITE_BUSQUEDA_POR_DEFECTO_MS;
+    private HttpServer servidor;
+    private ExecutorService ejecutor;
+    // Pool compartido por las búsquedas de todas las peticiones, o null si cada una busca en su hilo
+    private volatile ForkJoinPool poolBusqueda;
+
+    /**
+     * @param diccionarios: diccionarios precargados por nombre; no se deben modificar después
+     * @param maxBytes: tamaño máximo del cuerpo de una petición
+     * @param hilos: hilos del grupo fijo que se usa si la JVM no tiene hilos virtuales
+     */
+    public ServidorSopas(Map<String, IndiceDiccionario> diccionarios, int maxBytes, int hilos) {
+        this.diccionarios = Map.copyOf(diccionarios);
+        this.maxBytes = maxBytes;
+        this.hilos = hilos;
+    }
+
+    /**
+     * Elegir cuántos hilos reparten la búsqueda de cada petición. Los hilos se crean una vez
+     * al iniciar y los comparten todas las peticiones; con 1 cada petición busca en su
+     * propio hilo, que ya corre a la vez con las demás.
+     * @param paralelismoBusqueda: cantidad de hilos, al menos 1
+     */
+    public synchronized void setParalelismoBusqueda(int paralelismoBusqueda) {
+        if (paralelismoBusqueda < 1)
+            throw new IllegalArgumentException("El paralelismo de búsqueda debe ser al menos 1");
+        if (servidor != null)
+            throw new IllegalStateException("El servidor ya está iniciado");
+        this.paralelismoBusqueda = paralelismoBusqueda;
+    }
+
+    /**
+     * Elegir el tiempo máximo de búsqueda de cada petición. Al pasarlo la búsqueda se corta
+     * al terminar el bloque de palabras, celdas o hilos que está recorriendo y la petición
+     * se responde con 503.
+     * @param limiteBusquedaMs: milisegundos, o 0 para no limitar
+     */
+    public synchronized void setLimiteBusqueda(long limiteBusquedaMs) {
+        if (limiteBusquedaMs < 0)
+            throw new IllegalArgumentException("El límite de búsqueda no puede ser negativo");
+        this.limiteBusquedaMs = limiteBusquedaMs;
+    }
+
+    /**
+     * Corta la búsqueda de una petición cuando pasa su tiempo límite. Las búsquedas avisan
+     * el progreso al terminar cada bloque; si el tiempo ya pasó se interrumpe el hilo de la
+     * petición, y las búsquedas no empiezan más bloques cuando ese hilo está interrumpido.
+     */
+    private static final class LimiteTiempo implements OyenteBusqueda {
+        private final Thread peticion = Thread.currentThread();
+        private final long vence;
+        private volatile boolean agotado;
+
+        LimiteTiempo(long milisegundos) {
+            this.vence = System.nanoTime() + milisegundos * 1_000_000;
+        }
+
+        @Override
+        public void encontrada(String palabra) {
+        }
+
+        @Override
+        public void progreso(int hechas, int total) {
+            if (!agotado && hechas < total && System.nanoTime() - vence > 0) {
+                agotado = true;
+                peticion.interrupt();
+            }
+        }
+
+        /**
+         * Se llama desde el hilo de la petición al terminar la búsqueda
+         * @return true si la búsqueda se cortó; el hilo queda sin interrumpir
+         */
+        boolean agotado() {
+            if (!agotado)
+                return false;
+            Thread.interrupted();
+            return true;
+        }
+    }
+
+    /**
+     * Respuesta a una petición
+     * @param codigo: código de estado HTTP
+     * @param tipo: tipo de contenido
+     * @param cuerpo: texto de la respuesta
+     */
+    record Respuesta(int codigo, String tipo, String cuerpo) {
+        static Respuesta json(int codigo, String cuerpo) {
+            return new Respuesta(codigo, "application/json; charset=utf-8", cuerpo);
+        }
+
+        static Respuesta error(int codigo, String mensaje) {
+            return json(codigo, "{\"error\":" + SopaLetrasCLI.json(mensaje) + "}\n");
+        }
+    }
+
+    /**
+     * Empezar a atender peticiones
+     * @param direccion: dirección y puerto donde escuchar; con puerto 0 se elige uno libre
+     * @throws IOException si no se puede abrir el puerto
+     */
+    public synchronized void iniciar(InetSocketAddress direccion) throws IOException {
+        if (servidor != null)
+            throw new IllegalStateException("El servidor ya está iniciado");
+        servidor = HttpServer.create(direccion, 0);
+        ejecutor = crearEjecutor(hilos);
+        poolBusqueda = paralelismoBusqueda > 1 ? new ForkJoinPool(paralelismoBusqueda) : null;
+        servidor.setExecutor(ejecutor);
+        servidor.createContext("/resolver", intercambio -> atender(intercambio, "POST", this::resolver));
+        servidor.createContext("/diccionarios", intercambio -> atender(intercambio, "GET", this::listarDiccionarios));
+        servidor.createContext("/metricas", intercambio -> atender(intercambio, "GET", this::metricas));
+        servidor.start();
+    }
+
+    /**
+     * Dejar de atender peticiones, esperando hasta un segundo a las que están en curso
+     */
+    public synchronized void detener() {
+        if (servidor == null)
+            return;
+        servidor.stop(1);
+        ejecutor.shutdown();
+        if (poolBusqueda != null)
+            poolBusqueda.shutdown();
+        servidor = null;
+        ejecutor = null;
+        poolBusqueda = null;
+    }
+
+    /**
+     * @return puerto donde escucha el servidor iniciado
+     */
+    public synchronized int getPuerto() {
+        if (servidor == null)
+            throw new IllegalStateException("El servidor no está iniciado");
+        return servidor.getAddress().getPort();
+    }
+
+    /**
+     * Crear el ejecutor de las peticiones: un hilo virtual por petición si la JVM los tiene.
+     * Se busca por reflexión para que el código compile y corra también en Java 17.
+     * @param hilos: hilos del grupo fijo que se usa si no hay hilos virtuales
+     * @return ExecutorService
+     */
+    static ExecutorService crearEjecutor(int hilos) {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException ex) {
+            // Sin hilos virtuales queda un grupo fijo de hilos de plataforma
+            return Executors.newFixedThreadPool(hilos);
+        }
+    }
+
+    /**
+     * @return true si la JVM tiene hilos virtuales y el servidor los usa
+     */
+    public static boolean usaHilosVirtuales() {
+        try {
+            Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return true;
+        } catch (NoSuchMethodException ex) {
+            return false;
+        }
+    }
+
+    /**
+     * Atiende una petición ya validada
+     */
+    private interface Manejador {
+        Respuesta atender(HttpExchange intercambio) throws IOException;
+    }
+
+    /**
+     * Revisar el método HTTP, atender la petición y enviar la respuesta. Los errores de
+     * la petición se responden con 400 y los inesperados con 500, también los Error como
+     * StackOverflowError u OutOfMemoryError, sin cortar el servidor. El intercambio se
+     * cierra siempre, aunque falle el envío.
+     * @param intercambio: petición y respuesta
+     * @param metodoHttp: método HTTP aceptado
+     * @param manejador: arma la respuesta
+     */
+    private void atender(HttpExchange intercambio, String metodoHttp, Manejador manejador) throws IOException {
+        Respuesta respuesta;
+        try {
+            if (!intercambio.getRequestMethod().equalsIgnoreCase(metodoHttp)) {
+                intercambio.getResponseHeaders().set("Allow", metodoHttp);
+                respuesta = Respuesta.error(405, "Método HTTP no permitido, use " + metodoHttp);
+            } else {
+                respuesta = manejador.atender(intercambio);
+            }
+        } catch (IllegalArgumentException ex) {
+            respuesta = Respuesta.error(400, String.valueOf(ex.getMessage()));
+        } catch (RuntimeException | Error ex) {
+            respuesta = Respuesta.error(500, "Error interno: " + ex);
+        }
+        try {
+            byte[] cuerpo = respuesta.cuerpo().getBytes(StandardCharsets.UTF_8);
+            intercambio.getResponseHeaders().set("Content-Type", respuesta.tipo());
+            intercambio.sendResponseHeaders(respuesta.codigo(), cuerpo.length);
+            try (OutputStream salida = intercambio.getResponseBody()) {
+                salida.write(cuerpo);
+            }
+        } finally {
+            intercambio.close();
+        }
+    }
+
+    private Respuesta resolver(HttpExchange intercambio) throws IOException {
+        Map<String, String> parametros = leerParametros(intercambio.getRequestURI().getRawQuery());
+        byte[] cuerpo;
+        try (InputStream entrada = intercambio.getRequestBody()) {
+            // Un byte más que el máximo para saber si lo supera, sin desbordar con Integer.MAX_VALUE
+            cuerpo = entrada.readNBytes((int) Math.min(maxBytes + 1L, Integer.MAX_VALUE));
+        }
+        if (cuerpo.length > maxBytes)
+            return Respuesta.error(413, "La sopa supera el máximo de " + maxBytes + " bytes");
+        return resolver(cuerpo, parametros);
+    }
+
+    /**
+     * Resolver una sopa recibida. El método se elige como en SopaLetrasCLI: el del parámetro
+     * metodo, si no el de la sección mod si es en línea recta, y si no TRIE. Con un
+     * diccionario precargado DFS y BFS también se resuelven con TRIE, que da la misma respuesta.
+     * @param cuerpo: sopa con el formato de los archivos, en UTF-8
+     * @param parametros: parámetros de la petición (metodo, diccionario)
+     * @return respuesta JSON
+     */
+    Respuesta resolver(byte[] cuerpo, Map<String, String> parametros) {
+        MetodoBusqueda metodoPedido = null;
+        if (parametros.containsKey("metodo")) {
+            try {
+                metodoPedido = MetodoBusqueda.valueOf(parametros.get("metodo").toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException ex) {
+                return Respuesta.error(400, "Método de búsqueda desconocido: " + parametros.get("metodo"));
+            }
+        }
+        String nombre = parametros.get("diccionario");
+        IndiceDiccionario precargado = null;
+        if (nombre != null) {
+            precargado = diccionarios.get(nombre);
+            if (precargado == null)
+                return Respuesta.error(404, "No hay un diccionario precargado con el nombre " + nombre);
+        }
+        LectorSopa.Sopa sopa;
+        IndiceDiccionario trie = precargado;
+        Set<String> diccionario = null;
+        try {
+            if (precargado != null) {
+                sopa = LectorSopa.leerSopa(cuerpo, (letras, largo) -> { });
+            } else if (metodoPedido == MetodoBusqueda.DFS || metodoPedido == MetodoBusqueda.BFS) {
+                Set<String> palabras = new HashSet<>();
+                sopa = LectorSopa.leerSopa(cuerpo, (letras, largo) -> palabras.add(new String(letras, 0, largo)));
+                diccionario = palabras;
+            } else {
+                TrieDiccionario nuevo = new TrieDiccionario();
+                sopa = LectorSopa.leerSopa(cuerpo, (letras, largo) -> nuevo.insertar(letras, 0, largo));
+                trie = nuevo;
+            }
+        } catch (IOException ex) {
+            return Respuesta.error(400, String.valueOf(ex.getMessage()));
+        }
+        MetodoBusqueda metodo = metodoPedido;
+        if (metodo == null)
+            metodo = sopa.metodo() != null && sopa.metodo().esLineal() ? sopa.metodo() : MetodoBusqueda.TRIE;
+        if (precargado != null && !metodo.esLineal())
+            metodo = MetodoBusqueda.TRIE;
+
+        BuscadorPalabras buscador = new BuscadorPalabras(sopa.tablero());
+        ForkJoinPool pool = poolBusqueda;
+        long limiteMs = limiteBusquedaMs;
+        LimiteTiempo limite = limiteMs > 0 ? new LimiteTiempo(limiteMs) : null;
+        long inicio = System.nanoTime();
+        List<Coincidencia> coincidencias = null;
+        Set<String> encontradas;
+        if (metodo.esLineal()) {
+            coincidencias = buscador.buscarCoincidencias(trie, metodo == MetodoBusqueda.LINEAL_TOROIDAL);
+            encontradas = coincidencias.stream().map(Coincidencia::palabra).collect(Collectors.toSet());
+        } else if (trie != null) {
+            if (pool != null)
+                encontradas = buscador.buscarTodasLasPalabras(trie, pool, limite);
+            else
+                encontradas = limite != null ? buscador.buscarTodasLasPalabras(trie, limite)
+                        : buscador.buscarTodasLasPalabras(trie);
+        } else {
+            if (pool != null)
+                encontradas = buscador.buscarTodasLasPalabras(diccionario, metodo, pool, limite);
+            else
+                encontradas = limite != null ? buscador.buscarTodasLasPalabras(diccionario, metodo, limite)
+                        : buscador.buscarTodasLasPalabras(diccionario, metodo);
+        }
+        if (limite != null && limite.agotado())
+            return Respuesta.error(503, "La búsqueda superó el límite de " + limiteMs + " ms");
+        long nanos = System.nanoTime() - inicio;
+        int palabras = trie != null ? trie.cantidadPalabras() : diccionario.size();
+        return Respuesta.json(200, escribirResultado(metodo, buscador, palabras, nanos, encontradas, coincidencias));
+    }
+
+    /**
+     * Escribir el resultado de una sopa como un objeto JSON, con los mismos campos que
+     * la salida jsonl de SopaLetrasCLI salvo el archivo
+     */
+    private static String escribirResultado(MetodoBusqueda metodo, BuscadorPalabras buscador, int palabras,
+                                            long nanos, Set<String> encontradas, List<Coincidencia> coincidencias) {
+        List<String> ordenadas = new ArrayList<>(encontradas);
+        ordenadas.sort(null);
+        StringBuilder texto = new StringBuilder(64 + 16 * ordenadas.size());
+        texto.append("{\"metodo\":\"").append(metodo).append('"')
+             .append(",\"filas\":").append(buscador.getFilas())
+             .append(",\"columnas\":").append(buscador.getColumnas())
+             .append(",\"palabras\":").append(palabras)
+             .append(",\"nanos\":").append(nanos)
+             .append(",\"encontradas\":[");
+        for (int i = 0; i < ordenadas.size(); i++) {
+            if (i > 0)
+                texto.append(',');
+            texto.append(SopaLetrasCLI.json(ordenadas.get(i)));
+        }
+        texto.append(']');
+        if (coincidencias != null) {
+            texto.append(",\"coincidencias\":[");
+            for (int i = 0; i < coincidencias.size(); i++) {
+                Coincidencia coincidencia = coincidencias.get(i);
+                if (i > 0)
+                    texto.append(',');
+                texto.append("{\"palabra\":").append(SopaLetrasCLI.json(coincidencia.palabra()))
+                     .append(",\"fila\":").append(coincidencia.fila())
+                     .append(",\"columna\":").append(coincidencia.columna())
+                     .append(",\"direccion\":\"").append(coincidencia.direccion()).append("\"}");
+            }
+            texto.append(']');
+        }
+        return texto.append("}\n").toString();
+    }
+
+    private Respuesta listarDiccionarios(HttpExchange intercambio) {
+        StringBuilder texto = new StringBuilder("{");
+        Map<String, IndiceDiccionario> ordenados = new TreeMap<>(diccionarios);
+        for (Map.Entry<String, IndiceDiccionario> entrada : ordenados.entrySet()) {
+            if (texto.length() > 1)
+                texto.append(',');
+            texto.append(SopaLetrasCLI.json(entrada.getKey())).append(':')
+                 .append(entrada.getValue().cantidadPalabras());
+        }
+        return Respuesta.json(200, texto.append("}\n").toString());
+    }
+
+    private Respuesta metricas(HttpExchange intercambio) {
+        return new Respuesta(200, "text/plain; charset=utf-8", MetricasBusqueda.global().reporte());
+    }
+
+    /**
+     * Separar los parámetros de una consulta (a=1&b=2), decodificados en UTF-8
+     * @param consulta: parte de la URI después de '?', sin decodificar, o null
+     * @return parámetros por nombre; si uno se repite queda el último
+     */
+    static Map<String, String> leerParametros(String consulta) {
+        Map<String, String> parametros = new HashMap<>();
+        if (consulta == null || consulta.isEmpty())
+            return parametros;
+        for (String par : consulta.split("&")) {
+            if (par.isEmpty())
+                continue;
+            int igual = par.indexOf('=');
+            String nombre = igual < 0 ? par : par.substring(0, igual);
+            String valor = igual < 0 ? "" : par.substring(igual + 1);
+            parametros.put(URLDecoder.decode(nombre, StandardCharsets.UTF_8),
+                URLDecoder.decode(valor, StandardCharsets.UTF_8));
+        }
+        return parametros;
+    }
+
+    /**
+     * Cargar un diccionario para precargar: compilado si termina en .sdic, si no la sección
+     * dic de un archivo de sopa (que puede no tener tablero)
+     * @param ruta: archivo del diccionario
+     * @return diccionario listo para recorrer
+     * @throws IOException si no se puede leer
+     */
+    static IndiceDiccionario cargarDiccionario(Path ruta) throws IOException {
+        if (ruta.toString().endsWith(".sdic"))
+            return DiccionarioCompilado.abrir(ruta);
+        TrieDiccionario trie = new TrieDiccionario();
+        LectorSopa.leerDiccionario(ruta.toFile(), (letras, largo) -> trie.insertar(letras, 0, largo));
+        return DiccionarioInmutable.desde(trie).indice();
+    }
+
+    public static void main(String[] args) {
+        int puerto = PUERTO_POR_DEFECTO;
+        String host = null;
+        int hilos = 2 * Runtime.getRuntime().availableProcessors();
+        int paralelismoBusqueda = 1;
+        int maxBytes = MAX_BYTES_POR_DEFECTO;
+        long limiteMs = LIMITE_BUSQUEDA_POR_DEFECTO_MS;
+        Map<String, IndiceDiccionario> diccionarios = new HashMap<>();
+        try {
+            for (int i = 0; i < args.length; i++) {
+                String arg = args[i];
+                if (i + 1 >= args.length)
+                    throw new IllegalArgumentException("Falta el valor de la opción " + arg);
+                String valor = args[++i];
+                switch (arg) {
+                    case "--puerto":
+                        puerto = Integer.parseInt(valor);
+                        break;
+                    case "--direccion":
+                        host = valor;
+                        break;
+                    case "--hilos":
+                        hilos = Integer.parseInt(valor);
+                        if (hilos < 1)
+                            throw new IllegalArgumentException("--hilos debe ser al menos 1");
+                        break;
+                    case "--hilos-busqueda":
+                        paralelismoBusqueda = Integer.parseInt(valor);
+                        if (paralelismoBusqueda < 1)
+                            throw new IllegalArgumentException("--hilos-busqueda debe ser al menos 1");
+                        break;
+                    case "--max-bytes":
+                        maxBytes = Integer.parseInt(valor);
+                        if (maxBytes < 1)
+                            throw new IllegalArgumentException("--max-bytes debe ser al menos 1");
+                        break;
+                    case "--limite-ms":
+                        limiteMs = Long.parseLong(valor);
+                        if (limiteMs < 0)
+                            throw new IllegalArgumentException("--limite-ms no puede ser negativo");
+                        break;
+                    case "--diccionario":
+                        int igual = valor.indexOf('=');
+                        if (igual <= 0)
+                            throw new IllegalArgumentException("Use --diccionario nombre=ruta");
+                        try {
+                            diccionarios.put(valor.substring(0, igual),
+                                cargarDiccionario(new File(valor.substring(igual + 1)).toPath()));
+                        } catch (IOException ex) {
+                            throw new IllegalArgumentException("No se pudo cargar el diccionario "
+                                + valor.substring(igual + 1) + ": " + ex.getMessage());
+                        }
+                        break;
+                    default:
+                        throw new IllegalArgumentException("Opción desconocida: " + arg);
+                }
+            }
+        } catch (IllegalArgumentException ex) {
+            System.err.println(ex.getMessage());
+            System.err.print(USO);
+            System.exit(2);
+        }
+        MetricasBusqueda.registrarJMX();
+        ServidorSopas servidor = new ServidorSopas(diccionarios, maxBytes, hilos);
+        try {
+            servidor.setParalelismoBusqueda(paralelismoBusqueda);
+            servidor.setLimiteBusqueda(limiteMs);
+            InetSocketAddress direccion = host != null ? new InetSocketAddress(host, puerto)
+                    : new InetSocketAddress(InetAddress.getLoopbackAddress(), puerto);
+            servidor.iniciar(direccion);
+        } catch (IOException ex) {
+            System.err.println("No se pudo iniciar el servidor: " + ex.getMessage());
+            System.exit(1);
+        }
+        Runtime.getRuntime().addShutdownHook(new Thread(servidor::detener));
+        System.err.println("Escuchando en el puerto " + servidor.getPuerto()
+            + (usaHilosVirtuales() ? " con hilos virtuales" : " con " + hilos + " hilos")
+            + ", diccionarios precargados: " + new TreeMap<>(diccionarios).keySet());
+    }
+}
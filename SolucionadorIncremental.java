@@ -0,0 +1,338 @@
+package sopaletras;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Solución de un tablero que se mantiene al día mientras se edita, sin volver a buscar
+ * todo el diccionario. Guarda las palabras encontradas con el camino de celdas de una
+ * aparición de cada una, y para cada celda las palabras cuyo camino la usa.
+ *
+ * Al cambiar una celda solo se revisan las palabras que la usaban (se buscan de nuevo,
+ * por si aparecen en otro lado) y los caminos que pasan por ella, recorriendo el trie
+ * desde las celdas a las que les alcanza el largo de la palabra más larga para llegar a
+ * la celda cambiada. Al agregar o quitar palabras del diccionario solo se buscan esas.
+ * Los recorridos no entran en los prefijos cuyas palabras ya están todas encontradas.
+ *
+ * Las palabras se buscan como en BuscadorPalabras con DFS, BFS o TRIE: caminos entre
+ * celdas vecinas sin repetir celdas, con la misma TablaVecinos y recorridos iterativos.
+ * No es seguro usarlo desde varios hilos a la vez.
+ */
+public class SolucionadorIncremental {
+    private final int filas;
+    private final int columnas;
+    private final char[] celdas;
+    private final TablaVecinos tabla;
+    // Diccionario; al quitar una palabra sus nodos quedan en el trie sin marcar
+    private final TrieDiccionario trie = new TrieDiccionario();
+    private int largoMaximo;
+    // Camino de una aparición de cada palabra encontrada (celda = fila * columnas + col)
+    private final Map<String, int[]> caminos = new HashMap<>();
+    // Palabras encontradas que empiezan con el prefijo de cada nodo del trie
+    private int[] halladas = new int[16];
+    // Palabras cuyo camino usa cada celda, o null si ninguna la usa
+    private final Set<String>[] palabrasPorCelda;
+    // Estado del recorrido actual
+    private final boolean[] visitados;
+    private int[] pilaCeldas = new int[16];
+    private int[] pilaNodos = new int[16];
+    private int[] pilaVecinos = new int[16];
+    private char[] prefijo = new char[16];
+    private final List<int[]> hallados = new ArrayList<>(1);
+
+    /**
+     * Crear el solucionador y resolver el tablero completo una vez
+     * @param tablero: letras del tablero, se copian
+     * @param palabras: palabras del diccionario
+     */
+    public SolucionadorIncremental(char[][] tablero, Collection<String> palabras) {
+        this.filas = tablero.length;
+        this.columnas = filas == 0 ? 0 : tablero[0].length;
+        this.celdas = new char[filas * columnas];
+        for (int row = 0; row < filas; row++) {
+            if (tablero[row].length != columnas)
+                throw new IllegalArgumentException("Todas las filas del tablero deben tener el mismo tamaño");
+            System.arraycopy(tablero[row], 0, celdas, row * columnas, columnas);
+        }
+        this.tabla = new TablaVecinos(filas, columnas);
+        this.visitados = new boolean[celdas.length];
+        @SuppressWarnings("unchecked")
+        Set<String>[] porCelda = (Set<String>[]) new Set<?>[celdas.length];
+        this.palabrasPorCelda = porCelda;
+        for (String palabra : palabras) {
+            if (palabra != null && !palabra.isEmpty()) {
+                trie.insertar(palabra);
+                largoMaximo = Math.max(largoMaximo, palabra.length());
+            }
+        }
+        prepararPilas(largoMaximo);
+        prepararHalladas();
+        Set<String> nuevas = new HashSet<>();
+        for (int celda = 0; celda < celdas.length; celda++) {
+            recorrerDesde(celda, -1, nuevas);
+        }
+    }
+
+    /**
+     * Palabras halladas o perdidas por un cambio
+     * @param nuevas: palabras que no estaban y ahora están en el tablero
+     * @param perdidas: palabras que estaban y ya no están
+     */
+    public record Cambios(Set<String> nuevas, Set<String> perdidas) {
+    }
+
+    public int getFilas() {
+        return filas;
+    }
+
+    public int getColumnas() {
+        return columnas;
+    }
+
+    public char letra(int fila, int col) {
+        return celdas[celda(fila, col)];
+    }
+
+    /**
+     * @return palabras del diccionario que están en el tablero; la vista no se puede modificar
+     *         y cambia con el solucionador
+     */
+    public Set<String> encontradas() {
+        return Collections.unmodifiableSet(caminos.keySet());
+    }
+
+    /**
+     * @param palabra: palabra encontrada
+     * @return celdas de una aparición de la palabra (celda = fila * columnas + col), en orden,
+     *         o null si la palabra no está en el tablero
+     */
+    public int[] camino(String palabra) {
+        int[] guardado = caminos.get(palabra);
+        return guardado == null ? null : guardado.clone();
+    }
+
+    /**
+     * Cambiar la letra de una celda y actualizar la solución. Las palabras que usaban la
+     * celda se buscan de nuevo en todo el tablero; las palabras nuevas solo pueden pasar
+     * por la celda cambiada, así que se buscan solo los caminos que pasan por ella.
+     * @param fila: fila de la celda
+     * @param col: columna de la celda
+     * @param letra: letra nueva
+     * @return palabras halladas y perdidas por el cambio
+     */
+    public Cambios cambiarCelda(int fila, int col, char letra) {
+        int cambiada = celda(fila, col);
+        Set<String> nuevas = new HashSet<>();
+        Set<String> perdidas = new HashSet<>();
+        if (celdas[cambiada] == letra)
+            return new Cambios(nuevas, perdidas);
+        celdas[cambiada] = letra;
+        Set<String> afectadas = palabrasPorCelda[cambiada];
+        if (afectadas != null) {
+            for (String palabra : afectadas.toArray(new String[0])) {
+                olvidar(palabra);
+                int[] otro = buscarCamino(palabra);
+                if (otro != null) {
+                    registrar(palabra, otro);
+                } else {
+                    perdidas.add(palabra);
+                }
+            }
+        }
+        // Un camino de hasta largoMaximo celdas que pasa por la celda empieza a menos de largoMaximo de ella
+        int radio = largoMaximo - 1;
+        for (int r = Math.max(0, fila - radio); r <= Math.min(filas - 1, fila + radio); r++) {
+            for (int c = Math.max(0, col - radio); c <= Math.min(columnas - 1, col + radio); c++) {
+                recorrerDesde(r * columnas + c, cambiada, nuevas);
+            }
+        }
+        return new Cambios(nuevas, perdidas);
+    }
+
+    /**
+     * Agregar una palabra al diccionario y buscarla solo a ella
+     * @param palabra: palabra a agregar
+     * @return true si la palabra está en el tablero
+     */
+    public boolean agregarPalabra(String palabra) {
+        if (palabra == null || palabra.isEmpty())
+            return false;
+        if (!trie.insertar(palabra))
+            return caminos.containsKey(palabra);
+        prepararHalladas();
+        if (palabra.length() > largoMaximo) {
+            largoMaximo = palabra.length();
+            prepararPilas(largoMaximo);
+        }
+        int[] encontrado = buscarCamino(palabra);
+        if (encontrado == null)
+            return false;
+        registrar(palabra, encontrado);
+        return true;
+    }
+
+    /**
+     * Quitar una palabra del diccionario y de las encontradas
+     * @param palabra: palabra a quitar
+     * @return true si la palabra estaba en el diccionario
+     */
+    public boolean quitarPalabra(String palabra) {
+        if (palabra == null || !trie.quitar(palabra))
+            return false;
+        olvidar(palabra);
+        return true;
+    }
+
+    private int celda(int fila, int col) {
+        if (fila < 0 || fila >= filas || col < 0 || col >= columnas)
+            throw new IllegalArgumentException("La celda (" + fila + "," + col + ") está fuera del tablero");
+        return fila * columnas + col;
+    }
+
+    private void prepararPilas(int largo) {
+        if (pilaCeldas.length < largo) {
+            pilaCeldas = new int[largo];
+            pilaNodos = new int[largo];
+            pilaVecinos = new int[largo];
+            prefijo = new char[largo];
+        }
+    }
+
+    private void prepararHalladas() {
+        if (halladas.length < trie.cantidadNodos())
+            halladas = Arrays.copyOf(halladas, Math.max(trie.cantidadNodos(), 2 * halladas.length));
+    }
+
+    /**
+     * Sumar a la cuenta de halladas de cada nodo del camino de una palabra en el trie
+     * @param palabra: palabra registrada u olvidada
+     * @param cantidad: 1 al registrarla, -1 al olvidarla
+     */
+    private void contarHallada(String palabra, int cantidad) {
+        int nodo = TrieDiccionario.RAIZ;
+        halladas[nodo] += cantidad;
+        for (int i = 0; i < palabra.length(); i++) {
+            nodo = trie.hijo(nodo, palabra.charAt(i));
+            halladas[nodo] += cantidad;
+        }
+    }
+
+    /**
+     * @return true si ya están encontradas todas las palabras que empiezan con el prefijo del nodo
+     */
+    private boolean agotado(int nodo) {
+        return halladas[nodo] >= trie.palabrasDesde(nodo);
+    }
+
+    private void registrar(String palabra, int[] celdasCamino) {
+        caminos.put(palabra, celdasCamino);
+        contarHallada(palabra, 1);
+        for (int celda : celdasCamino) {
+            if (palabrasPorCelda[celda] == null)
+                palabrasPorCelda[celda] = new HashSet<>();
+            palabrasPorCelda[celda].add(palabra);
+        }
+    }
+
+    private void olvidar(String palabra) {
+        int[] celdasCamino = caminos.remove(palabra);
+        if (celdasCamino == null)
+            return;
+        contarHallada(palabra, -1);
+        for (int celda : celdasCamino) {
+            Set<String> usan = palabrasPorCelda[celda];
+            if (usan != null && usan.remove(palabra) && usan.isEmpty())
+                palabrasPorCelda[celda] = null;
+        }
+    }
+
+    /**
+     * Buscar una aparición de una palabra en todo el tablero con el DFS iterativo de TablaVecinos
+     * @param palabra: palabra a buscar
+     * @return celdas del camino, o null si no está
+     */
+    private int[] buscarCamino(String palabra) {
+        char primera = palabra.charAt(0);
+        prepararPilas(palabra.length());
+        for (int celda = 0; celda < celdas.length; celda++) {
+            if (celdas[celda] == primera
+                    && tabla.caminosDesde(celdas, palabra, celda, 1, hallados, pilaCeldas, pilaVecinos, visitados) > 0)
+                return hallados.remove(0);
+        }
+        return null;
+    }
+
+    /**
+     * Recorrer el tablero siguiendo las aristas del trie desde una celda inicial, como
+     * BuscadorPalabras.recorrerTrie pero iterativo y guardando el camino, y registrar las
+     * palabras que todavía no estaban encontradas. No entra en los prefijos agotados.
+     * @param inicial: celda inicial
+     * @param obligatoria: celda por la que debe pasar el camino, o -1 para cualquiera
+     * @param nuevas: Set donde se agregan las palabras registradas
+     */
+    private void recorrerDesde(int inicial, int obligatoria, Set<String> nuevas) {
+        int nodo = trie.hijo(TrieDiccionario.RAIZ, celdas[inicial]);
+        if (nodo == IndiceDiccionario.NINGUNO || agotado(nodo) || !entrar(0, inicial, nodo, obligatoria, nuevas))
+            return;
+        int nivel = 0;
+        while (nivel >= 0) {
+            int celda = pilaCeldas[nivel];
+            int fin = tabla.inicio[celda + 1];
+            int v = pilaVecinos[nivel];
+            boolean avanza = false;
+            while (v < fin && !avanza && !agotado(pilaNodos[nivel])) {
+                int vecino = tabla.vecinos[v++];
+                if (visitados[vecino])
+                    continue;
+                int hijo = trie.hijo(pilaNodos[nivel], celdas[vecino]);
+                avanza = hijo != IndiceDiccionario.NINGUNO && !agotado(hijo)
+                    && entrar(nivel + 1, vecino, hijo, obligatoria, nuevas);
+            }
+            pilaVecinos[nivel] = v;
+            if (avanza) {
+                nivel++;
+            } else {
+                // No quedan vecinos: retroceder
+                visitados[celda] = false;
+                nivel--;
+            }
+        }
+    }
+
+    /**
+     * Agregar una celda al camino actual y registrar la palabra que forma, si es del
+     * diccionario y no estaba encontrada
+     * @param nivel: posición de la celda en el camino
+     * @param celda: celda a agregar
+     * @param nodo: nodo del trie que corresponde a la celda
+     * @param obligatoria: celda por la que debe pasar el camino, o -1
+     * @param nuevas: Set donde se agregan las palabras registradas
+     * @return false si el camino ya no alcanza a pasar por la celda obligatoria; la celda no se agrega
+     */
+    private boolean entrar(int nivel, int celda, int nodo, int obligatoria, Set<String> nuevas) {
+        boolean paso = obligatoria < 0 || celda == obligatoria || visitados[obligatoria];
+        // Si al camino no le alcanzan las letras para llegar a la celda obligatoria, no sirve
+        if (!paso && tabla.distancia(celda, obligatoria) > largoMaximo - 1 - nivel)
+            return false;
+        pilaCeldas[nivel] = celda;
+        pilaNodos[nivel] = nodo;
+        pilaVecinos[nivel] = tabla.inicio[celda];
+        prefijo[nivel] = celdas[celda];
+        visitados[celda] = true;
+        if (paso && trie.esTerminal(nodo)) {
+            String palabra = new String(prefijo, 0, nivel + 1);
+            if (!caminos.containsKey(palabra)) {
+                registrar(palabra, Arrays.copyOf(pilaCeldas, nivel + 1));
+                nuevas.add(palabra);
+            }
+        }
+        return true;
+    }
+}
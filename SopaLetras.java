@@ -7,6 +7,8 @@ import javax.swing.SwingUtilities;
  */
 public class SopaLetras {
     public static void main(String[] args) {
+        // Publicar las métricas de búsqueda por JMX (JConsole, VisualVM)
+        MetricasBusqueda.registrarJMX();
         SwingUtilities.invokeLater(() -> {
             // Llamar la interfaz gráfica
             ManejadorGUI app = new ManejadorGUI();
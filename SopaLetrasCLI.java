@@ -0,0 +1,503 @@
+package sopaletras;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Punto de entrada por línea de comandos para resolver sopas de letras sin la GUI.
+ * Recibe archivos o directorios (se recorren buscando archivos .txt), los resuelve
+ * con el método indicado y escribe los resultados en JSON lines o CSV a medida que
+ * termina cada archivo. Con los métodos en línea recta también se escribe cada aparición
+ * de las palabras, con su celda inicial y su dirección. La lectura, la búsqueda y la
+ * escritura corren en etapas con sus propios hilos (ProcesadorLotes); con un hilo por
+ * etapa el orden de salida es el de los archivos. No usa ninguna clase de AWT ni Swing,
+ * así que se puede correr con -Djava.awt.headless=true en servidores sin pantalla.
+ */
+public class SopaLetrasCLI {
+    private static final String USO =
+        "Uso: java -Djava.awt.headless=true sopaletras.SopaLetrasCLI [opciones] archivo|directorio...\n"
+        + "  --metodo DFS|BFS|TRIE|LINEAL|LINEAL_TOROIDAL\n"
+        + "                          método de búsqueda (por defecto el de la sección mod si es en línea recta,\n"
+        + "                          si no TRIE)\n"
+        + "  --formato jsonl|csv     formato de salida (jsonl por defecto)\n"
+        + "  --salida archivo        archivo donde escribir los resultados (salida estándar por defecto)\n"
+        + "  --hilos N               hilos por búsqueda (1 por defecto)\n"
+        + "  --lectores N            hilos que leen archivos (1 por defecto)\n"
+        + "  --buscadores N          hilos que resuelven sopas a la vez (1 por defecto)\n"
+        + "  --escritores N          hilos que escriben resultados (1 por defecto)\n"
+        + "  --cola N                sopas en espera entre etapas (64 por defecto)\n"
+        + "  --diccionario dic.sdic  diccionario compilado para todos los tableros (ignora las secciones dic)\n"
+        + "  --cache archivo         caché de resultados en disco, se carga al empezar y se guarda al terminar\n"
+        + "  --metricas              escribir el reporte de métricas de búsqueda en la salida de errores al terminar\n";
+
+    // Límites de la caché de resultados con --cache
+    private static final int MAX_ENTRADAS_CACHE = 10_000;
+    private static final long MAX_BYTES_CACHE = 256L << 20;
+
+    private MetodoBusqueda metodo = MetodoBusqueda.TRIE;
+    // Si se indicó --metodo, tiene prioridad sobre la sección mod de los archivos
+    private boolean metodoExplicito = false;
+    private boolean formatoCSV = false;
+    private String salida = null;
+    private int hilos = 1;
+    // Pool de las búsquedas en paralelo, compartido por todas las sopas; null con un hilo
+    private ForkJoinPool pool = null;
+    private int lectores = 1;
+    private int buscadores = 1;
+    private int escritores = 1;
+    private int capacidadCola = 64;
+    private Path archivoDiccionario = null;
+    private IndiceDiccionario diccionarioCompartido = null;
+    private long huellaCompartida;
+    private Path archivoCache = null;
+    private CacheResultados cache = null;
+    private boolean mostrarMetricas = false;
+    private final List<Path> entradas = new ArrayList<>();
+
+    public static void main(String[] args) {
+        SopaLetrasCLI cli = new SopaLetrasCLI();
+        MetricasBusqueda.registrarJMX();
+        try {
+            cli.leerOpciones(args);
+        } catch (IllegalArgumentException ex) {
+            System.err.println(ex.getMessage());
+            System.err.print(USO);
+            System.exit(2);
+        }
+        try {
+            int errores = cli.ejecutar();
+            System.exit(errores == 0 ? 0 : 1);
+        } catch (IOException ex) {
+            System.err.println("Error de escritura: " + ex.getMessage());
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Interpretar los argumentos de la línea de comandos
+     * @param args: argumentos
+     */
+    private void leerOpciones(String[] args) {
+        for (int i = 0; i < args.length; i++) {
+            String arg = args[i];
+            if (!arg.startsWith("--")) {
+                entradas.add(Path.of(arg));
+                continue;
+            }
+            if (arg.equals("--metricas")) {
+                mostrarMetricas = true;
+                continue;
+            }
+            if (i + 1 >= args.length)
+                throw new IllegalArgumentException("Falta el valor de la opción " + arg);
+            String valor = args[++i];
+            switch (arg) {
+                case "--metodo":
+                    metodo = MetodoBusqueda.valueOf(valor.toUpperCase(Locale.ROOT));
+                    metodoExplicito = true;
+                    break;
+                case "--formato":
+                    if (!valor.equals("jsonl") && !valor.equals("csv"))
+                        throw new IllegalArgumentException("Formato desconocido: " + valor);
+                    formatoCSV = valor.equals("csv");
+                    break;
+                case "--salida":
+                    salida = valor;
+                    break;
+                case "--hilos":
+                    hilos = leerPositivo(arg, valor);
+                    break;
+                case "--lectores":
+                    lectores = leerPositivo(arg, valor);
+                    break;
+                case "--buscadores":
+                    buscadores = leerPositivo(arg, valor);
+                    break;
+                case "--escritores":
+                    escritores = leerPositivo(arg, valor);
+                    break;
+                case "--cola":
+                    capacidadCola = leerPositivo(arg, valor);
+                    break;
+                case "--diccionario":
+                    archivoDiccionario = Path.of(valor);
+                    break;
+                case "--cache":
+                    archivoCache = Path.of(valor);
+                    break;
+                default:
+                    throw new IllegalArgumentException("Opción desconocida: " + arg);
+            }
+        }
+        if (entradas.isEmpty())
+            throw new IllegalArgumentException("No se indicó ningún archivo o directorio");
+        // El diccionario compilado se recorre como trie, que también sirve para los métodos en línea recta
+        if (archivoDiccionario != null && !metodo.esLineal())
+            metodo = MetodoBusqueda.TRIE;
+    }
+
+    /**
+     * Leer el valor de una opción que cuenta hilos o lugares; se valida aquí para que un 0
+     * muestre el uso antes de abrir la salida
+     * @param opcion: nombre de la opción, para el mensaje de error
+     * @param valor: valor de la opción
+     * @return valor, al menos 1
+     */
+    private static int leerPositivo(String opcion, String valor) {
+        int numero = Integer.parseInt(valor);
+        if (numero < 1)
+            throw new IllegalArgumentException(opcion + " debe ser al menos 1");
+        return numero;
+    }
+
+    /**
+     * Sopa leída de un archivo, lista para resolver
+     * @param archivo: archivo leído
+     * @param metodo: método de búsqueda para esta sopa
+     * @param tablero: tablero, null si hubo un error
+     * @param diccionario: palabras del diccionario con DFS y BFS, null con los demás métodos
+     * @param trie: diccionario como trie con TRIE y los métodos en línea recta, null con DFS y BFS
+     * @param huellaDiccionario: huella del diccionario para la caché
+     * @param error: mensaje de error al leer, null si se pudo leer
+     */
+    private record SopaLeida(Path archivo, MetodoBusqueda metodo, char[][] tablero, Set<String> diccionario,
+                             IndiceDiccionario trie, long huellaDiccionario, String error) {}
+
+    /**
+     * Resultado de resolver una sopa
+     * @param archivo: archivo resuelto
+     * @param metodo: método de búsqueda usado
+     * @param filas: filas del tablero
+     * @param columnas: columnas del tablero
+     * @param palabras: cantidad de palabras del diccionario
+     * @param nanos: duración de la búsqueda
+     * @param encontradas: palabras encontradas, ordenadas
+     * @param coincidencias: apariciones de las palabras con los métodos en línea recta, null con los demás
+     * @param error: mensaje de error al leer, null si se pudo resolver
+     */
+    private record Resultado(Path archivo, MetodoBusqueda metodo, int filas, int columnas, int palabras, long nanos,
+                             List<String> encontradas, List<Coincidencia> coincidencias, String error) {}
+
+    /**
+     * Resolver todas las entradas y escribir sus resultados.
+     * La lectura, la búsqueda y la escritura corren en etapas separadas de un ProcesadorLotes.
+     * @return cantidad de archivos que no se pudieron resolver
+     * @throws IOException si no se puede escribir la salida
+     */
+    private int ejecutar() throws IOException {
+        if (archivoDiccionario != null) {
+            DiccionarioCompilado compilado = DiccionarioCompilado.abrir(archivoDiccionario);
+            diccionarioCompartido = compilado;
+            huellaCompartida = compilado.huella();
+        }
+        if (archivoCache != null) {
+            cache = new CacheResultados(MAX_ENTRADAS_CACHE, MAX_BYTES_CACHE);
+            if (Files.exists(archivoCache)) {
+                try {
+                    cache.cargarDeDisco(archivoCache);
+                } catch (IOException ex) {
+                    System.err.println("No se pudo cargar la caché " + archivoCache + ": " + ex.getMessage());
+                }
+            }
+        }
+        AtomicInteger errores = new AtomicInteger();
+        ProcesadorLotes.Resumen resumen;
+        if (hilos > 1)
+            pool = new ForkJoinPool(hilos);
+        try (Writer writer = abrirSalida()) {
+            if (formatoCSV) {
+                writer.write("archivo,metodo,palabra,fila,columna,direccion\n");
+            }
+            ProcesadorLotes<SopaLeida, Resultado> procesador = new ProcesadorLotes<>(
+                this::leer, this::buscar, resultado -> escribir(resultado, writer, errores),
+                lectores, buscadores, escritores, capacidadCola);
+            resumen = procesador.procesar(new RecorridoArchivos(entradas));
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Procesamiento interrumpido");
+        } catch (UncheckedIOException ex) {
+            throw ex.getCause();
+        } finally {
+            if (pool != null)
+                pool.shutdown();
+        }
+        System.err.println("Procesadas " + resumen);
+        if (cache != null) {
+            cache.guardarEnDisco(archivoCache);
+            System.err.println(cache.estadisticas());
+        }
+        if (mostrarMetricas) {
+            System.err.print(MetricasBusqueda.global().reporte());
+        }
+        return errores.get();
+    }
+
+    private Writer abrirSalida() throws IOException {
+        if (salida == null)
+            return new BufferedWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8));
+        return Files.newBufferedWriter(Path.of(salida), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Recorre las entradas sin listar todo de antemano: los archivos dados se entregan tal
+     * cual y de los directorios se entregan los .txt, ordenados dentro de cada directorio
+     */
+    private static class RecorridoArchivos implements Iterator<Path> {
+        private final Deque<Iterator<Path>> pendientes = new ArrayDeque<>();
+        private Path siguiente;
+
+        RecorridoArchivos(List<Path> entradas) {
+            pendientes.push(entradas.iterator());
+        }
+
+        @Override
+        public boolean hasNext() {
+            while (siguiente == null && !pendientes.isEmpty()) {
+                Iterator<Path> actual = pendientes.peek();
+                if (!actual.hasNext()) {
+                    pendientes.pop();
+                    continue;
+                }
+                boolean esEntrada = pendientes.size() == 1;
+                Path ruta = actual.next();
+                if (Files.isDirectory(ruta)) {
+                    pendientes.push(listar(ruta).iterator());
+                } else if (esEntrada || (Files.isRegularFile(ruta) && ruta.toString().endsWith(".txt"))) {
+                    siguiente = ruta;
+                }
+            }
+            return siguiente != null;
+        }
+
+        @Override
+        public Path next() {
+            if (!hasNext())
+                throw new NoSuchElementException();
+            Path ruta = siguiente;
+            siguiente = null;
+            return ruta;
+        }
+
+        private static List<Path> listar(Path directorio) {
+            try (Stream<Path> contenido = Files.list(directorio)) {
+                return contenido.sorted().collect(Collectors.toList());
+            } catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+        }
+    }
+
+    /**
+     * Etapa de lectura: leer un archivo y prepararlo para la búsqueda
+     * @param archivo: archivo de sopa de letras
+     * @return sopa leída, o con el mensaje de error si no se pudo leer
+     */
+    private SopaLeida leer(Path archivo) {
+        try {
+            // Con TRIE y en línea recta las palabras van directo del archivo al trie, sin crear un String por palabra
+            if (diccionarioCompartido != null) {
+                LectorSopa.Sopa sopa = LectorSopa.leerSopa(archivo.toFile(), (letras, largo) -> { });
+                return new SopaLeida(archivo, metodoPara(sopa.metodo()), sopa.tablero(), null, diccionarioCompartido,
+                    huellaCompartida, null);
+            } else if (metodo == MetodoBusqueda.TRIE || metodo.esLineal()) {
+                TrieDiccionario trie = new TrieDiccionario();
+                // La huella se acumula con las palabras nuevas, igual que CacheResultados.huellaDiccionario(Set)
+                long[] suma = new long[1];
+                LectorSopa.Sopa sopa = LectorSopa.leerSopa(archivo.toFile(), (letras, largo) -> {
+                    if (trie.insertar(letras, 0, largo))
+                        suma[0] += CacheResultados.huellaPalabra(letras, largo);
+                });
+                return new SopaLeida(archivo, metodoPara(sopa.metodo()), sopa.tablero(), null, trie,
+                    CacheResultados.huellaDiccionario(suma[0], trie.cantidadPalabras()), null);
+            } else {
+                ManejadorArchivos.FileData datos = LectorSopa.leer(archivo.toFile());
+                long huella = cache != null ? CacheResultados.huellaDiccionario(datos.diccionario()) : 0;
+                return new SopaLeida(archivo, metodo, datos.tablero(), datos.diccionario(), null, huella, null);
+            }
+        } catch (IOException | RuntimeException ex) {
+            return new SopaLeida(archivo, metodo, null, null, null, 0, String.valueOf(ex.getMessage()));
+        }
+    }
+
+    /**
+     * Elegir el método de una sopa. Sin --metodo se usa el de la sección mod si es en línea
+     * recta; DFS, BFS y TRIE dan la misma respuesta, así que para ellos queda TRIE.
+     * @param metodoArchivo: método de la sección mod, o null
+     * @return método de búsqueda
+     */
+    private MetodoBusqueda metodoPara(MetodoBusqueda metodoArchivo) {
+        if (metodoExplicito || metodoArchivo == null || !metodoArchivo.esLineal())
+            return metodo;
+        return metodoArchivo;
+    }
+
+    /**
+     * Etapa de búsqueda: resolver una sopa leída, usando la caché si hay. En línea recta no
+     * se usa la caché, porque guarda solo las palabras y no dónde aparecen, y recorrer las
+     * líneas cuesta poco; la búsqueda tampoco se reparte entre hilos.
+     * @param sopa: sopa leída
+     * @return resultado con las palabras encontradas ordenadas
+     */
+    private Resultado buscar(SopaLeida sopa) {
+        if (sopa.error() != null)
+            return new Resultado(sopa.archivo(), sopa.metodo(), 0, 0, 0, 0, List.of(), null, sopa.error());
+        BuscadorPalabras buscador = new BuscadorPalabras(sopa.tablero());
+        long inicio = System.nanoTime();
+        List<Coincidencia> coincidencias = null;
+        Set<String> encontradas;
+        if (sopa.metodo().esLineal()) {
+            coincidencias = buscador.buscarCoincidencias(sopa.trie(), sopa.metodo() == MetodoBusqueda.LINEAL_TOROIDAL);
+            encontradas = coincidencias.stream().map(Coincidencia::palabra).collect(Collectors.toSet());
+        } else {
+            encontradas = cache != null ? cache.obtener(buscador.huella(), sopa.huellaDiccionario()) : null;
+            if (encontradas == null) {
+                if (pool == null) {
+                    encontradas = sopa.trie() != null ? buscador.buscarTodasLasPalabras(sopa.trie())
+                            : buscador.buscarTodasLasPalabras(sopa.diccionario(), sopa.metodo());
+                } else {
+                    encontradas = sopa.trie() != null ? buscador.buscarTodasLasPalabras(sopa.trie(), pool)
+                            : buscador.buscarTodasLasPalabras(sopa.diccionario(), sopa.metodo(), pool);
+                }
+                if (cache != null)
+                    cache.guardar(buscador.huella(), sopa.huellaDiccionario(), encontradas);
+            }
+        }
+        long nanos = System.nanoTime() - inicio;
+        int palabras = sopa.trie() != null ? sopa.trie().cantidadPalabras() : sopa.diccionario().size();
+        return new Resultado(sopa.archivo(), sopa.metodo(), buscador.getFilas(), buscador.getColumnas(), palabras,
+            nanos, encontradas.stream().sorted().collect(Collectors.toList()), coincidencias, null);
+    }
+
+    /**
+     * Etapa de escritura: escribir el resultado de un archivo
+     * @param resultado: resultado de la búsqueda
+     * @param writer: salida de los resultados, compartida por los hilos de escritura
+     * @param errores: cantidad de archivos que no se pudieron resolver
+     */
+    private void escribir(Resultado resultado, Writer writer, AtomicInteger errores) throws IOException {
+        String archivo = resultado.archivo().toString();
+        StringBuilder texto = new StringBuilder();
+        if (resultado.error() != null) {
+            errores.incrementAndGet();
+            System.err.println("Error al leer " + archivo + ": " + resultado.error());
+            if (!formatoCSV) {
+                texto.append("{\"archivo\":").append(json(archivo))
+                     .append(",\"error\":").append(json(resultado.error())).append("}\n");
+            }
+        } else if (formatoCSV) {
+            // En línea recta una fila por aparición; con los demás métodos una por palabra, sin posición
+            if (resultado.coincidencias() != null) {
+                for (Coincidencia coincidencia : resultado.coincidencias()) {
+                    texto.append(csv(archivo)).append(',').append(resultado.metodo()).append(',')
+                         .append(csv(coincidencia.palabra())).append(',').append(coincidencia.fila())
+                         .append(',').append(coincidencia.columna()).append(',')
+                         .append(coincidencia.direccion()).append('\n');
+                }
+            } else {
+                for (String palabra : resultado.encontradas()) {
+                    texto.append(csv(archivo)).append(',').append(resultado.metodo()).append(',')
+                         .append(csv(palabra)).append(",,,\n");
+                }
+            }
+        } else {
+            List<String> ordenadas = resultado.encontradas();
+            texto.append("{\"archivo\":").append(json(archivo))
+                 .append(",\"metodo\":\"").append(resultado.metodo()).append('"')
+                 .append(",\"filas\":").append(resultado.filas())
+                 .append(",\"columnas\":").append(resultado.columnas())
+                 .append(",\"palabras\":").append(resultado.palabras())
+                 .append(",\"nanos\":").append(resultado.nanos())
+                 .append(",\"encontradas\":[");
+            for (int i = 0; i < ordenadas.size(); i++) {
+                if (i > 0)
+                    texto.append(',');
+                texto.append(json(ordenadas.get(i)));
+            }
+            texto.append(']');
+            if (resultado.coincidencias() != null) {
+                texto.append(",\"coincidencias\":[");
+                List<Coincidencia> coincidencias = resultado.coincidencias();
+                for (int i = 0; i < coincidencias.size(); i++) {
+                    Coincidencia coincidencia = coincidencias.get(i);
+                    if (i > 0)
+                        texto.append(',');
+                    texto.append("{\"palabra\":").append(json(coincidencia.palabra()))
+                         .append(",\"fila\":").append(coincidencia.fila())
+                         .append(",\"columna\":").append(coincidencia.columna())
+                         .append(",\"direccion\":\"").append(coincidencia.direccion()).append("\"}");
+                }
+                texto.append(']');
+            }
+            texto.append("}\n");
+        }
+        // Cada resultado se escribe entero aunque haya varios hilos de escritura
+        synchronized (writer) {
+            writer.write(texto.toString());
+        }
+    }
+
+    /**
+     * Escribir un texto como cadena JSON, con comillas y caracteres escapados
+     * @param texto: texto a escribir
+     * @return cadena JSON
+     */
+    static String json(String texto) {
+        StringBuilder sb = new StringBuilder(texto.length() + 2).append('"');
+        for (int i = 0; i < texto.length(); i++) {
+            char c = texto.charAt(i);
+            switch (c) {
+                case '"':
+                    sb.append("\\\"");
+                    break;
+                case '\\':
+                    sb.append("\\\\");
+                    break;
+                case '\n':
+                    sb.append("\\n");
+                    break;
+                case '\r':
+                    sb.append("\\r");
+                    break;
+                case '\t':
+                    sb.append("\\t");
+                    break;
+                default:
+                    if (c < 0x20) {
+                        sb.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        sb.append(c);
+                    }
+            }
+        }
+        return sb.append('"').toString();
+    }
+
+    /**
+     * Escribir un texto como campo CSV, entre comillas solo si hace falta
+     * @param texto: texto a escribir
+     * @return campo CSV
+     */
+    static String csv(String texto) {
+        if (texto.indexOf(',') < 0 && texto.indexOf('"') < 0 && texto.indexOf('\n') < 0)
+            return texto;
+        return '"' + texto.replace("\"", "\"\"") + '"';
+    }
+}
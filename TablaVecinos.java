@@ -0,0 +1,113 @@
+package sopaletras;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Tabla precalculada de vecinos de un tablero N×M guardado en un arreglo plano por filas
+ * (celda = fila * columnas + col). Los vecinos de la celda i, hasta 8, son
+ * vecinos[inicio[i]] .. vecinos[inicio[i + 1] - 1], así los recorridos no revisan bordes.
+ * Solo depende de la forma del tablero, no de sus letras: la usan BuscadorPalabras y
+ * SolucionadorIncremental, que cambia letras sin cambiar la forma.
+ */
+final class TablaVecinos {
+    final int filas;
+    final int columnas;
+    final int[] inicio;
+    final int[] vecinos;
+
+    TablaVecinos(int filas, int columnas) {
+        this.filas = filas;
+        this.columnas = columnas;
+        this.inicio = new int[filas * columnas + 1];
+        int total = 0;
+        for (int row = 0; row < filas; row++) {
+            int altura = Math.min(filas - 1, row + 1) - Math.max(0, row - 1) + 1;
+            for (int col = 0; col < columnas; col++) {
+                int ancho = Math.min(columnas - 1, col + 1) - Math.max(0, col - 1) + 1;
+                total += altura * ancho - 1;
+            }
+        }
+        this.vecinos = new int[total];
+        int pos = 0;
+        for (int row = 0; row < filas; row++) {
+            for (int col = 0; col < columnas; col++) {
+                inicio[row * columnas + col] = pos;
+                for (int r = Math.max(0, row - 1); r <= Math.min(filas - 1, row + 1); r++) {
+                    for (int c = Math.max(0, col - 1); c <= Math.min(columnas - 1, col + 1); c++) {
+                        if (r == row && c == col) continue;
+                        vecinos[pos++] = r * columnas + c;
+                    }
+                }
+            }
+        }
+        inicio[filas * columnas] = pos;
+    }
+
+    /**
+     * @return cantidad mínima de pasos entre dos celdas moviéndose entre vecinas
+     */
+    int distancia(int a, int b) {
+        return Math.max(Math.abs(a / columnas - b / columnas), Math.abs(a % columnas - b % columnas));
+    }
+
+    /**
+     * Buscar con DFS iterativo los caminos de una palabra que empiezan en una celda,
+     * entre celdas vecinas sin repetir celdas
+     * @param celdas: letras del tablero
+     * @param palabra: palabra a buscar, su primera letra es la de la celda inicial
+     * @param inicial: celda inicial
+     * @param maximo: cantidad máxima de caminos a agregar
+     * @param caminos: lista donde se agregan los caminos encontrados
+     * @param pilaCeldas: pila del recorrido, de al menos el largo de la palabra
+     * @param pilaVecinos: pila del recorrido, de al menos el largo de la palabra
+     * @param usadas: celdas del camino actual; todas en false al llamar y al volver
+     * @return cantidad de caminos agregados
+     */
+    int caminosDesde(char[] celdas, String palabra, int inicial, int maximo, List<int[]> caminos,
+                     int[] pilaCeldas, int[] pilaVecinos, boolean[] usadas) {
+        int largo = palabra.length();
+        if (largo == 1) {
+            caminos.add(new int[] {inicial});
+            return 1;
+        }
+        int agregados = 0;
+        int nivel = 0;
+        pilaCeldas[0] = inicial;
+        pilaVecinos[0] = inicio[inicial];
+        usadas[inicial] = true;
+        while (nivel >= 0) {
+            int celda = pilaCeldas[nivel];
+            int fin = inicio[celda + 1];
+            char siguiente = palabra.charAt(nivel + 1);
+            int v = pilaVecinos[nivel];
+            while (v < fin && (celdas[vecinos[v]] != siguiente || usadas[vecinos[v]])) {
+                v++;
+            }
+            if (v == fin) {
+                usadas[celda] = false;
+                nivel--;
+                continue;
+            }
+            pilaVecinos[nivel] = v + 1;
+            int vecino = vecinos[v];
+            if (nivel + 2 == largo) {
+                int[] camino = Arrays.copyOf(pilaCeldas, largo);
+                camino[largo - 1] = vecino;
+                caminos.add(camino);
+                if (++agregados == maximo) {
+                    for (int i = 0; i <= nivel; i++) {
+                        usadas[pilaCeldas[i]] = false;
+                    }
+                    break;
+                }
+                continue;
+            }
+            nivel++;
+            pilaCeldas[nivel] = vecino;
+            pilaVecinos[nivel] = inicio[vecino];
+            usadas[vecino] = true;
+        }
+        return agregados;
+    }
+}
@@ -0,0 +1,276 @@
+package sopaletras;
+
+/**
+ * Representación compacta del tablero para tableros grandes: un byte por celda con
+ * el código de su letra (el código de IndiceTablero + 1) en un arreglo plano rodeado
+ * por un borde de celdas con código 0. Como el borde nunca coincide con una letra,
+ * los 8 vecinos de cualquier celda están a desplazamientos fijos y no hace falta
+ * revisar límites ni consultar una tabla de vecinos.
+ *
+ * Además guarda un mapa de bits por letra (bit p encendido si la celda p tiene esa
+ * letra). Con ellos, para una palabra se calculan por operaciones de bits las celdas
+ * desde donde cada letra puede continuar hasta el final de la palabra, y el recorrido
+ * solo entra a esas celdas. Los mapas tienen palabras de relleno a ambos lados para
+ * que los desplazamientos tampoco revisen límites. Las operaciones sobre los mapas
+ * usan la Vector API (BusquedaVectorial) si el módulo jdk.incubator.vector está
+ * cargado, y si no, una versión escalar con el mismo resultado.
+ */
+public class TableroCompacto {
+    public static final int BORDE = 0;
+    // Máxima cantidad de letras distintas: los códigos 1..255 caben en un byte
+    public static final int MAX_LETRAS = 255;
+
+    private static final Operaciones OPERACIONES = elegirOperaciones();
+
+    private final int filas;
+    private final int columnas;
+    private final int ancho;
+    private final byte[] codigos;
+    private final int[] desplazamientos;
+    // Palabras de relleno a cada lado de un mapa de bits y largo total del arreglo
+    private final int relleno;
+    private final int longitudMapa;
+    // mapas[c]: celdas con la letra de código c
+    private final long[][] mapas;
+
+    /**
+     * Operaciones sobre los mapas de bits que se pueden vectorizar
+     */
+    interface Operaciones {
+        /**
+         * Encender en mapas[c] el bit de cada celda con código c; el mapa del borde queda en ceros
+         * @param codigos: códigos de las celdas, con el borde
+         * @param mapas: un mapa por código, en ceros
+         * @param relleno: palabras de relleno al inicio de cada mapa
+         */
+        void marcar(byte[] codigos, long[][] mapas, int relleno);
+
+        /**
+         * Calcular las celdas vecinas de alguna celda de origen que además están en filtro
+         * @param origen: mapa de celdas de origen
+         * @param filtro: mapa de celdas permitidas
+         * @param destino: mapa donde dejar el resultado
+         * @param desplazamientos: desplazamientos de los 8 vecinos
+         * @param desde: primera palabra a calcular
+         * @param hasta: fin (excluido) de las palabras a calcular
+         * @return true si el resultado tiene alguna celda
+         */
+        boolean expandir(long[] origen, long[] filtro, long[] destino, int[] desplazamientos, int desde, int hasta);
+    }
+
+    /**
+     * @param celdas: letras del tablero por filas
+     * @param filas: filas del tablero
+     * @param columnas: columnas del tablero
+     * @param indice: índice del mismo tablero, de donde salen los códigos de las letras
+     */
+    public TableroCompacto(char[] celdas, int filas, int columnas, IndiceTablero indice) {
+        if (indice.cantidadLetras() > MAX_LETRAS)
+            throw new IllegalArgumentException("El tablero tiene más de " + MAX_LETRAS + " letras distintas");
+        this.filas = filas;
+        this.columnas = columnas;
+        this.ancho = columnas + 2;
+        this.codigos = new byte[(filas + 2) * ancho];
+        for (int row = 0; row < filas; row++) {
+            for (int col = 0; col < columnas; col++) {
+                codigos[posicion(row, col)] = (byte) (indice.codigo(celdas[row * columnas + col]) + 1);
+            }
+        }
+        this.desplazamientos = new int[] {-ancho - 1, -ancho, -ancho + 1, -1, 1, ancho - 1, ancho, ancho + 1};
+        this.relleno = (ancho + 1 + 63) / 64 + 1;
+        this.longitudMapa = relleno + (codigos.length + 63) / 64 + relleno;
+        this.mapas = new long[indice.cantidadLetras() + 1][longitudMapa];
+        OPERACIONES.marcar(codigos, mapas, relleno);
+    }
+
+    private static Operaciones elegirOperaciones() {
+        boolean usarVector = !"false".equals(System.getProperty("sopaletras.vector"))
+                && ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent();
+        if (usarVector) {
+            try {
+                return (Operaciones) Class.forName("sopaletras.BusquedaVectorial")
+                        .getDeclaredConstructor().newInstance();
+            } catch (ReflectiveOperationException | LinkageError ex) {
+                // Sin la clase o sin el módulo queda la versión escalar
+            }
+        }
+        return new OperacionesEscalares();
+    }
+
+    /**
+     * @return true si las operaciones sobre los mapas de bits usan la Vector API
+     */
+    public static boolean esVectorial() {
+        return !(OPERACIONES instanceof OperacionesEscalares);
+    }
+
+    /**
+     * @return cuántas palabras de un mapa de bits se procesan en lo que cuesta expandir un
+     *         nodo de DFS; sirve para decidir cuándo conviene usar los mapas
+     */
+    public static int palabrasPorNodo() {
+        return esVectorial() ? 4 : 1;
+    }
+
+    /**
+     * Versión escalar de las operaciones, una palabra de 64 celdas por vez
+     */
+    static final class OperacionesEscalares implements Operaciones {
+        @Override
+        public void marcar(byte[] codigos, long[][] mapas, int relleno) {
+            for (int p = 0; p < codigos.length; p++) {
+                int c = codigos[p] & 0xFF;
+                if (c != BORDE)
+                    mapas[c][relleno + (p >>> 6)] |= 1L << p;
+            }
+        }
+
+        @Override
+        public boolean expandir(long[] origen, long[] filtro, long[] destino, int[] desplazamientos,
+                                int desde, int hasta) {
+            long alguno = 0;
+            for (int i = desde; i < hasta; i++) {
+                long vecinos = 0;
+                for (int d : desplazamientos) {
+                    vecinos |= palabraDesplazada(origen, i, d);
+                }
+                destino[i] = vecinos & filtro[i];
+                alguno |= destino[i];
+            }
+            return alguno != 0;
+        }
+    }
+
+    /**
+     * Obtener la palabra i de un mapa desplazado: el bit p del resultado es el bit p + d del mapa
+     * @param mapa: mapa de bits con relleno
+     * @param i: palabra a calcular
+     * @param d: desplazamiento en celdas, menor que el relleno en bits
+     * @return palabra desplazada
+     */
+    static long palabraDesplazada(long[] mapa, int i, int d) {
+        int q = i + (d >> 6);
+        int s = d & 63;
+        return s == 0 ? mapa[q] : (mapa[q] >>> s) | (mapa[q + 1] << (64 - s));
+    }
+
+    public int getFilas() {
+        return filas;
+    }
+
+    public int getColumnas() {
+        return columnas;
+    }
+
+    /**
+     * @return cantidad de celdas del arreglo, contando el borde
+     */
+    public int cantidadCeldas() {
+        return codigos.length;
+    }
+
+    /**
+     * @param fila: fila del tablero
+     * @param col: columna del tablero
+     * @return posición de la celda en el arreglo con borde
+     */
+    public int posicion(int fila, int col) {
+        return (fila + 1) * ancho + col + 1;
+    }
+
+    public int fila(int posicion) {
+        return posicion / ancho - 1;
+    }
+
+    public int columna(int posicion) {
+        return posicion % ancho - 1;
+    }
+
+    /**
+     * @param posicion: posición en el arreglo con borde
+     * @return código de la letra de la celda, BORDE fuera del tablero
+     */
+    public int codigo(int posicion) {
+        return codigos[posicion] & 0xFF;
+    }
+
+    /**
+     * @return desplazamientos de los 8 vecinos de una celda; no se debe modificar
+     */
+    int[] desplazamientos() {
+        return desplazamientos;
+    }
+
+    /**
+     * @return largo de un arreglo de mapa de bits, con el relleno
+     */
+    public int longitudMapa() {
+        return longitudMapa;
+    }
+
+    /**
+     * @param posicion: posición en el arreglo con borde
+     * @param mapa: mapa de bits con relleno
+     * @return true si la celda está en el mapa
+     */
+    public boolean contiene(long[] mapa, int posicion) {
+        return (mapa[relleno + (posicion >>> 6)] & (1L << posicion)) != 0;
+    }
+
+    /**
+     * Copiar el mapa de las celdas con una letra
+     * @param codigo: código de la letra (código de IndiceTablero + 1)
+     * @return mapa de bits con relleno
+     */
+    public long[] mapa(int codigo) {
+        return mapas[codigo].clone();
+    }
+
+    /**
+     * Calcular, para cada letra de una palabra, las celdas desde donde la palabra puede
+     * seguir hasta el final moviéndose entre vecinas. No tiene en cuenta que una celda no
+     * se puede repetir, así que es una cota: fuera de estas celdas la palabra seguro no
+     * sigue, y adentro hay que recorrer.
+     * @param codigos: códigos de las letras de la palabra (código de IndiceTablero + 1)
+     * @param largo: cantidad de letras
+     * @param niveles: al menos largo arreglos de longitudMapa(); en niveles[i] quedan las
+     *                 celdas posibles para la letra i (el relleno no se usa)
+     * @return false si alguna letra se quedó sin celdas, y la palabra no está
+     */
+    boolean celdasPosibles(int[] codigos, int largo, long[][] niveles) {
+        int desde = relleno;
+        int hasta = longitudMapa - relleno;
+        // Hacia adelante: celdas a las que se llega con las primeras i + 1 letras
+        System.arraycopy(mapas[codigos[0]], desde, niveles[0], desde, hasta - desde);
+        for (int i = 1; i < largo; i++) {
+            if (!OPERACIONES.expandir(niveles[i - 1], mapas[codigos[i]], niveles[i], desplazamientos, desde, hasta))
+                return false;
+        }
+        // Hacia atrás: de esas, las que además llegan a la última letra
+        for (int i = largo - 2; i >= 0; i--) {
+            if (!OPERACIONES.expandir(niveles[i + 1], niveles[i], niveles[i], desplazamientos, desde, hasta))
+                return false;
+        }
+        return true;
+    }
+
+    /**
+     * Buscar la siguiente celda encendida de un mapa
+     * @param mapa: mapa de bits con relleno
+     * @param desde: posición desde donde buscar, incluida
+     * @return posición de la celda, o -1 si no hay más
+     */
+    public int siguiente(long[] mapa, int desde) {
+        if (desde >= codigos.length)
+            return -1;
+        int i = relleno + (desde >>> 6);
+        long palabra = mapa[i] & (-1L << desde);
+        int fin = longitudMapa - relleno;
+        while (palabra == 0) {
+            if (++i == fin)
+                return -1;
+            palabra = mapa[i];
+        }
+        return ((i - relleno) << 6) + Long.numberOfTrailingZeros(palabra);
+    }
+}
@@ -0,0 +1,140 @@
+package sopaletras;
+
+import java.util.Arrays;
+
+/**
+ * Trie que no cambia, en arreglos con el esquema de DiccionarioCompilado: los nodos
+ * numerados en orden BFS y los hermanos ordenados por letra, así que los hijos de un nodo
+ * son contiguos y se encuentran con búsqueda binaria. Lo usan DiccionarioInmutable, que
+ * lo guarda en memoria, y DiccionarioCompilado.compilar, que escribe estos mismos arreglos.
+ */
+final class TrieCongelado implements IndiceDiccionario {
+    // Los hijos del nodo i son los nodos primerHijo[i] .. primerHijo[i + 1] - 1
+    private final int[] primerHijo;
+    // Letra de la arista que llega a cada nodo
+    private final char[] letras;
+    // Bit i encendido si en el nodo i termina una palabra
+    private final long[] terminales;
+    // Palabras que empiezan con el prefijo de cada nodo
+    private final int[] palabras;
+    private final int cantidadPalabras;
+
+    /**
+     * Congelar las palabras de un trie; el trie se puede seguir modificando después
+     * @param trie: trie con las palabras
+     */
+    TrieCongelado(TrieDiccionario trie) {
+        // Numerar los nodos en orden BFS, con los hermanos ordenados por letra
+        int n = trie.cantidadNodos();
+        int[] orden = new int[n];
+        primerHijo = new int[n + 1];
+        letras = new char[n];
+        terminales = new long[(n + 63) >>> 6];
+        palabras = new int[n];
+        int cantidad = 1;
+        orden[0] = TrieDiccionario.RAIZ;
+        for (int i = 0; i < n; i++) {
+            int nodo = orden[i];
+            primerHijo[i] = cantidad;
+            letras[i] = trie.letra(nodo);
+            if (trie.esTerminal(nodo))
+                terminales[i >>> 6] |= 1L << i;
+            palabras[i] = trie.palabrasDesde(nodo);
+            // Los hijos quedan a continuación, ordenados por letra con inserción (son pocos)
+            int desde = cantidad;
+            for (int h = trie.primerHijo(nodo); h != NINGUNO; h = trie.siguienteHermano(h)) {
+                int j = cantidad++;
+                char letra = trie.letra(h);
+                while (j > desde && trie.letra(orden[j - 1]) > letra) {
+                    orden[j] = orden[j - 1];
+                    j--;
+                }
+                orden[j] = h;
+            }
+        }
+        primerHijo[n] = cantidad;
+        cantidadPalabras = trie.cantidadPalabras();
+    }
+
+    @Override
+    public int raiz() {
+        return 0;
+    }
+
+    @Override
+    public int hijo(int nodo, char letra) {
+        int bajo = primerHijo[nodo];
+        int alto = primerHijo[nodo + 1] - 1;
+        while (bajo <= alto) {
+            int medio = (bajo + alto) >>> 1;
+            char actual = letras[medio];
+            if (actual < letra) {
+                bajo = medio + 1;
+            } else if (actual > letra) {
+                alto = medio - 1;
+            } else {
+                return medio;
+            }
+        }
+        return NINGUNO;
+    }
+
+    @Override
+    public boolean esTerminal(int nodo) {
+        return (terminales[nodo >>> 6] & (1L << nodo)) != 0;
+    }
+
+    @Override
+    public int cantidadPalabras() {
+        return cantidadPalabras;
+    }
+
+    @Override
+    public int cantidadNodos() {
+        return letras.length;
+    }
+
+    @Override
+    public int palabrasDesde(int nodo) {
+        return palabras[nodo];
+    }
+
+    boolean tieneHijos(int nodo) {
+        return primerHijo[nodo] < primerHijo[nodo + 1];
+    }
+
+    int primerHijo(int nodo) {
+        return primerHijo[nodo];
+    }
+
+    int finHijos(int nodo) {
+        return primerHijo[nodo + 1];
+    }
+
+    char letra(int nodo) {
+        return letras[nodo];
+    }
+
+    /**
+     * @param i: número de byte
+     * @return byte i de los bits terminales, con el bit j del nodo 8 * i + j
+     */
+    int byteTerminales(int i) {
+        return (int) (terminales[i >>> 3] >>> ((i & 7) << 3)) & 0xFF;
+    }
+
+    @Override
+    public boolean equals(Object objeto) {
+        // Con las mismas palabras los arreglos son idénticos
+        if (!(objeto instanceof TrieCongelado))
+            return false;
+        TrieCongelado otro = (TrieCongelado) objeto;
+        return Arrays.equals(letras, otro.letras) && Arrays.equals(primerHijo, otro.primerHijo)
+            && Arrays.equals(terminales, otro.terminales);
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(letras);
+    }
+}
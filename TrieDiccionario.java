@@ -0,0 +1,217 @@
+package sopaletras;
+
+import java.util.Arrays;
+import java.util.Collection;
+
+/**
+ * Árbol de prefijos (trie) con las palabras de un diccionario.
+ * Los nodos se guardan en arreglos paralelos y se identifican por su índice,
+ * de modo que un diccionario grande no crea un objeto por nodo.
+ */
+public class TrieDiccionario implements IndiceDiccionario {
+    public static final int RAIZ = 0;
+    private static final int CAPACIDAD_INICIAL = 256;
+
+    private char[] letras;
+    private int[] primerHijo;
+    private int[] siguienteHermano;
+    private boolean[] terminal;
+    // Palabras que empiezan con el prefijo de cada nodo
+    private int[] palabras;
+    private int cantidadNodos;
+    private int cantidadPalabras;
+
+    public TrieDiccionario() {
+        letras = new char[CAPACIDAD_INICIAL];
+        primerHijo = new int[CAPACIDAD_INICIAL];
+        siguienteHermano = new int[CAPACIDAD_INICIAL];
+        terminal = new boolean[CAPACIDAD_INICIAL];
+        palabras = new int[CAPACIDAD_INICIAL];
+        nuevoNodo('\0');
+    }
+
+    /**
+     * Construir un trie con todas las palabras dadas
+     * @param palabras: palabras del diccionario
+     * @return TrieDiccionario
+     */
+    public static TrieDiccionario desde(Collection<String> palabras) {
+        TrieDiccionario trie = new TrieDiccionario();
+        for (String palabra : palabras) {
+            trie.insertar(palabra);
+        }
+        return trie;
+    }
+
+    /**
+     * Insertar una palabra en el trie
+     * @param palabra: palabra a insertar
+     * @return true si la palabra no estaba en el trie, false de lo contrario
+     */
+    public boolean insertar(CharSequence palabra) {
+        if (palabra == null || palabra.length() == 0)
+            return false;
+        int nodo = RAIZ;
+        for (int i = 0; i < palabra.length(); i++) {
+            nodo = hijoOCrear(nodo, palabra.charAt(i));
+        }
+        if (!marcarTerminal(nodo))
+            return false;
+        sumarPalabra(palabra, 1);
+        return true;
+    }
+
+    /**
+     * Insertar una palabra guardada en un arreglo, sin crear un String
+     * @param letras: arreglo con las letras
+     * @param inicio: posición de la primera letra
+     * @param largo: cantidad de letras
+     * @return true si la palabra no estaba en el trie, false de lo contrario
+     */
+    public boolean insertar(char[] letras, int inicio, int largo) {
+        if (largo == 0)
+            return false;
+        int nodo = RAIZ;
+        for (int i = inicio; i < inicio + largo; i++) {
+            nodo = hijoOCrear(nodo, letras[i]);
+        }
+        if (!marcarTerminal(nodo))
+            return false;
+        nodo = RAIZ;
+        palabras[nodo]++;
+        for (int i = inicio; i < inicio + largo; i++) {
+            nodo = hijo(nodo, letras[i]);
+            palabras[nodo]++;
+        }
+        return true;
+    }
+
+    private int hijoOCrear(int nodo, char letra) {
+        int siguiente = hijo(nodo, letra);
+        if (siguiente == NINGUNO) {
+            siguiente = nuevoNodo(letra);
+            siguienteHermano[siguiente] = primerHijo[nodo];
+            primerHijo[nodo] = siguiente;
+        }
+        return siguiente;
+    }
+
+    /**
+     * Quitar una palabra del trie. Solo se desmarca su último nodo: los nodos quedan y
+     * sirven si la palabra u otra con el mismo prefijo se vuelve a insertar
+     * @param palabra: palabra a quitar
+     * @return true si la palabra estaba en el trie, false de lo contrario
+     */
+    public boolean quitar(CharSequence palabra) {
+        if (palabra == null || palabra.length() == 0)
+            return false;
+        int nodo = RAIZ;
+        for (int i = 0; i < palabra.length() && nodo != NINGUNO; i++) {
+            nodo = hijo(nodo, palabra.charAt(i));
+        }
+        if (nodo == NINGUNO || !terminal[nodo])
+            return false;
+        terminal[nodo] = false;
+        cantidadPalabras--;
+        sumarPalabra(palabra, -1);
+        return true;
+    }
+
+    /**
+     * Sumar a la cuenta de palabras de cada nodo del camino de una palabra que ya está en el trie
+     * @param palabra: palabra insertada o quitada
+     * @param cantidad: 1 al insertar, -1 al quitar
+     */
+    private void sumarPalabra(CharSequence palabra, int cantidad) {
+        int nodo = RAIZ;
+        palabras[nodo] += cantidad;
+        for (int i = 0; i < palabra.length(); i++) {
+            nodo = hijo(nodo, palabra.charAt(i));
+            palabras[nodo] += cantidad;
+        }
+    }
+
+    private boolean marcarTerminal(int nodo) {
+        if (terminal[nodo])
+            return false;
+        terminal[nodo] = true;
+        cantidadPalabras++;
+        return true;
+    }
+
+    @Override
+    public int raiz() {
+        return RAIZ;
+    }
+
+    @Override
+    public int hijo(int nodo, char letra) {
+        for (int h = primerHijo[nodo]; h != NINGUNO; h = siguienteHermano[h]) {
+            if (letras[h] == letra)
+                return h;
+        }
+        return NINGUNO;
+    }
+
+    @Override
+    public boolean esTerminal(int nodo) {
+        return terminal[nodo];
+    }
+
+    /**
+     * Revisar si una palabra está en el trie
+     * @param palabra: palabra a buscar
+     * @return bool
+     */
+    public boolean contiene(CharSequence palabra) {
+        int nodo = RAIZ;
+        for (int i = 0; i < palabra.length() && nodo != NINGUNO; i++) {
+            nodo = hijo(nodo, palabra.charAt(i));
+        }
+        return nodo != NINGUNO && terminal[nodo];
+    }
+
+    @Override
+    public int cantidadPalabras() {
+        return cantidadPalabras;
+    }
+
+    @Override
+    public int cantidadNodos() {
+        return cantidadNodos;
+    }
+
+    @Override
+    public int palabrasDesde(int nodo) {
+        return palabras[nodo];
+    }
+
+    int primerHijo(int nodo) {
+        return primerHijo[nodo];
+    }
+
+    int siguienteHermano(int nodo) {
+        return siguienteHermano[nodo];
+    }
+
+    char letra(int nodo) {
+        return letras[nodo];
+    }
+
+    private int nuevoNodo(char letra) {
+        if (cantidadNodos == letras.length) {
+            int capacidad = letras.length * 2;
+            letras = Arrays.copyOf(letras, capacidad);
+            primerHijo = Arrays.copyOf(primerHijo, capacidad);
+            siguienteHermano = Arrays.copyOf(siguienteHermano, capacidad);
+            terminal = Arrays.copyOf(terminal, capacidad);
+            palabras = Arrays.copyOf(palabras, capacidad);
+        }
+        int nodo = cantidadNodos++;
+        letras[nodo] = letra;
+        primerHijo[nodo] = NINGUNO;
+        siguienteHermano[nodo] = NINGUNO;
+        palabras[nodo] = 0;
+        return nodo;
+    }
+}
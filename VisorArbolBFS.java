@@ -0,0 +1,188 @@
+package sopaletras;
+
+import java.awt.BorderLayout;
+import java.awt.FlowLayout;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import javax.swing.JButton;
+import javax.swing.JDialog;
+import javax.swing.JFrame;
+import javax.swing.JLabel;
+import javax.swing.JPanel;
+import org.graphstream.graph.Graph;
+import org.graphstream.graph.Node;
+import org.graphstream.graph.implementations.MultiGraph;
+import org.graphstream.ui.swing_viewer.ViewPanel;
+import org.graphstream.ui.view.Viewer;
+
+/**
+ * Ventana que muestra el árbol de recorrido BFS registrado por la búsqueda de una
+ * palabra. El grafo empieza con las celdas iniciales y el camino donde se encontró la
+ * palabra, y se expande de a un nivel cuando el usuario lo pide, hasta un máximo de
+ * nodos visibles. Los subárboles idénticos a uno anterior se dibujan como un solo
+ * nodo gris que no se expande.
+ */
+public class VisorArbolBFS extends JDialog {
+    private static final long serialVersionUID = 1L;
+
+    // Máxima cantidad de nodos dibujados a la vez
+    public static final int MAX_NODOS_VISIBLES = 400;
+
+    private final ArbolBFS arbol;
+    private final Graph graph;
+    private final boolean[] visibles;
+    private int cantidadVisibles;
+    // Nodos visibles cuyos hijos todavía no se dibujaron
+    private Deque<NodoBFS> frontera = new ArrayDeque<>();
+    private final JButton expandir;
+    private final JLabel estado;
+
+    /**
+     * @param duenio: ventana principal
+     * @param arbol: árbol registrado por la búsqueda BFS
+     */
+    public VisorArbolBFS(JFrame duenio, ArbolBFS arbol) {
+        super(duenio, "Árbol de Recorrido BFS - Palabra: " + arbol.getPalabra(), true);
+        this.arbol = arbol;
+        this.visibles = new boolean[arbol.cantidad()];
+        // Configuración inicial del sistema GraphStream
+        System.setProperty("org.graphstream.ui", "swing");
+        System.setProperty("org.graphstream.ui.renderer", "org.graphstream.ui.j2dviewer.J2DGraphRenderer");
+        graph = new MultiGraph("BFS Tree");
+        graph.setAttribute("ui.stylesheet",
+            "node {" +
+            "   fill-color: #4682B4;" +
+            "   size: 40px;" +
+            "   text-alignment: center;" +
+            "   text-size: 14px;" +
+            "   text-style: bold;" +
+            "   text-color: white;" +
+            "}" +
+            "node.encontrado { fill-color: #2E8B57; }" +
+            "node.repetido { fill-color: #999999; }" +
+            "node.sinExpandir { fill-color: #B0C4DE; text-color: #333333; }" +
+            "edge {" +
+            "   fill-color: #777;" +
+            "   size: 2px;" +
+            "}");
+        mostrarInicio();
+
+        setSize(800, 800);
+        JPanel panelPrincipal = new JPanel(new BorderLayout());
+        // Usar el método display() del grafo para crear el visualizador
+        Viewer viewer = graph.display();
+        ViewPanel viewPanel = (ViewPanel) viewer.getDefaultView();
+        expandir = new JButton("Expandir un nivel");
+        expandir.addActionListener(e -> expandirNivel());
+        JButton botonCierre = new JButton("Cerrar Visualización");
+        botonCierre.addActionListener(e -> dispose());
+        estado = new JLabel();
+        JPanel panelBotones = new JPanel(new FlowLayout());
+        panelBotones.add(expandir);
+        panelBotones.add(botonCierre);
+        panelBotones.add(estado);
+        panelPrincipal.add(viewPanel, BorderLayout.CENTER);
+        panelPrincipal.add(panelBotones, BorderLayout.SOUTH);
+        add(panelPrincipal);
+        setDefaultCloseOperation(JDialog.DISPOSE_ON_CLOSE);
+        setLocationRelativeTo(duenio);
+        actualizarEstado();
+    }
+
+    /**
+     * Dibujar el camino hasta el nodo donde se completó la palabra y las celdas iniciales
+     */
+    private void mostrarInicio() {
+        // El camino se arma de la hoja a la raíz y se dibuja de la raíz a la hoja
+        List<Integer> camino = new ArrayList<>();
+        for (int nodo = arbol.encontrado(); nodo != ArbolBFS.NINGUNO; nodo = arbol.padre(nodo)) {
+            camino.add(nodo);
+        }
+        NodoBFS anterior = null;
+        for (int i = camino.size() - 1; i >= 0 && cantidadVisibles < MAX_NODOS_VISIBLES; i--) {
+            anterior = agregarNodo(camino.get(i), anterior);
+            graph.getNode(Integer.toString(anterior.nodo)).setAttribute("ui.class", "encontrado");
+        }
+        for (int nodo = 0; nodo < arbol.cantidad() && cantidadVisibles < MAX_NODOS_VISIBLES; nodo++) {
+            if (arbol.padre(nodo) == ArbolBFS.NINGUNO && !visibles[nodo])
+                agregarNodo(nodo, null);
+        }
+    }
+
+    /**
+     * Dibujar un nodo del árbol y la arista desde su padre
+     * @param nodo: nodo registrado
+     * @param padre: nodo visible del padre, o null para una celda inicial
+     * @return nodo visible, o null si ya se llegó al máximo de nodos visibles
+     */
+    private NodoBFS agregarNodo(int nodo, NodoBFS padre) {
+        if (cantidadVisibles >= MAX_NODOS_VISIBLES)
+            return null;
+        NodoBFS visible = new NodoBFS(nodo, arbol.fila(nodo), arbol.columna(nodo), arbol.nivel(nodo), padre);
+        String id = Integer.toString(nodo);
+        Node grafico = graph.addNode(id);
+        String etiqueta = "(" + visible.fila + "," + visible.col + ")\n" + arbol.letra(nodo);
+        if (arbol.representante(nodo) != nodo) {
+            grafico.setAttribute("ui.label", etiqueta + " =" + arbol.representante(nodo));
+            grafico.setAttribute("ui.class", "repetido");
+        } else {
+            grafico.setAttribute("ui.label", etiqueta);
+            if (!arbol.fueExpandido(nodo))
+                grafico.setAttribute("ui.class", "sinExpandir");
+        }
+        if (padre != null) {
+            String idPadre = Integer.toString(padre.nodo);
+            graph.addEdge(idPadre + "-" + id, idPadre, id, true);
+        }
+        visibles[nodo] = true;
+        cantidadVisibles++;
+        frontera.add(visible);
+        return visible;
+    }
+
+    /**
+     * Dibujar los hijos de todos los nodos de la frontera. Los nodos repetidos no se
+     * expanden porque su subárbol es igual al de su representante.
+     */
+    private void expandirNivel() {
+        Deque<NodoBFS> actual = frontera;
+        frontera = new ArrayDeque<>();
+        while (!actual.isEmpty() && cantidadVisibles < MAX_NODOS_VISIBLES) {
+            NodoBFS visible = actual.poll();
+            if (arbol.representante(visible.nodo) != visible.nodo)
+                continue;
+            int hijo = arbol.inicioHijos(visible.nodo);
+            for (; hijo < arbol.finHijos(visible.nodo) && cantidadVisibles < MAX_NODOS_VISIBLES; hijo++) {
+                if (!visibles[hijo])
+                    agregarNodo(hijo, visible);
+            }
+            // Si no entraron todos los hijos, el nodo vuelve a la frontera
+            if (hijo < arbol.finHijos(visible.nodo))
+                frontera.addFirst(visible);
+        }
+        // Lo que no se alcanzó a expandir queda para después
+        frontera.addAll(actual);
+        actualizarEstado();
+    }
+
+    private void actualizarEstado() {
+        String texto = "Nodos visibles: " + cantidadVisibles + " de " + arbol.cantidad();
+        if (arbol.isIncompleto())
+            texto += " (la búsqueda recorrió " + arbol.total() + ", no todos se registraron)";
+        if (cantidadVisibles >= MAX_NODOS_VISIBLES)
+            texto += " - se alcanzó el máximo de nodos visibles";
+        estado.setText(texto);
+        expandir.setEnabled(cantidadVisibles < MAX_NODOS_VISIBLES && hayHijosPendientes());
+    }
+
+    private boolean hayHijosPendientes() {
+        for (NodoBFS visible : frontera) {
+            if (arbol.representante(visible.nodo) == visible.nodo
+                    && arbol.inicioHijos(visible.nodo) < arbol.finHijos(visible.nodo))
+                return true;
+        }
+        return false;
+    }
+}
@@ -0,0 +1,92 @@
+package sopaletras;
+
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Medición de rendimiento de BuscadorPalabras con JMH, sobre sopas de GeneradorSopas.
+ * Para cada combinación de tamaño de tablero, distribución de letras, tamaño de
+ * diccionario y método mide buscarPalabra (una palabra distinta del diccionario en cada
+ * operación) y buscarTodasLasPalabras. JMH se encarga de los procesos separados, el
+ * calentamiento, las iteraciones y de que el JIT no elimine las búsquedas (los
+ * resultados se devuelven). Reporta rendimiento y tiempo promedio, en microsegundos para
+ * buscarPalabra y en milisegundos para buscarTodasLasPalabras; los bytes asignados por
+ * operación se ven con -prof gc.
+ *
+ * Los tableros REPETITIVA y ADVERSARIA no dan para tantas palabras distintas: con 10000
+ * pedidas el diccionario queda en unas 5000 a 6000, casi todas fallos, y en un tablero de
+ * 4×4 pasa lo mismo desde unas 1000. Por eso el lado 4 no está en la grilla por defecto
+ * (se puede medir con -p lado=4 -p palabras=100), y cada prueba escribe en su salida el
+ * tamaño real del diccionario y cuántas palabras están en el tablero.
+ *
+ * Uso: mvn -B -P jmh package
+ *      java -jar target/benchmarks.jar BenchmarkBusquedaJMH [-p lado=15,50] [-p metodo=DFS] [-prof gc]
+ */
+@State(Scope.Thread)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 2, jvmArgsAppend = {"--add-modules", "jdk.incubator.vector"})
+public class BenchmarkBusquedaJMH {
+    @Param({"15", "50"})
+    public int lado;
+
+    @Param({"UNIFORME", "REPETITIVA", "ADVERSARIA"})
+    public GeneradorSopas.Distribucion distribucion;
+
+    @Param({"100", "10000"})
+    public int palabras;
+
+    @Param({"DFS", "BFS", "TRIE", "LINEAL"})
+    public MetodoBusqueda metodo;
+
+    @Param("0.5")
+    public double aciertos;
+
+    @Param("42")
+    public long semilla;
+
+    private BuscadorPalabras buscador;
+    private Set<String> diccionario;
+    private String[] lista;
+    private int siguiente;
+
+    @Setup(Level.Trial)
+    public void preparar() {
+        GeneradorSopas.SopaGenerada sopa = new GeneradorSopas(semilla)
+            .sopa(lado, lado, distribucion, palabras, aciertos);
+        buscador = new BuscadorPalabras(sopa.tablero());
+        diccionario = sopa.diccionario();
+        lista = diccionario.toArray(new String[0]);
+        System.out.printf("%n# Diccionario de %d palabras (%d pedidas), %d en el tablero%n",
+            diccionario.size(), palabras, sopa.aciertos());
+        // Sin métricas, para medir solo la búsqueda
+        MetricasBusqueda.global().setActivas(false);
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public boolean buscarPalabra() {
+        String palabra = lista[siguiente];
+        siguiente = siguiente + 1 == lista.length ? 0 : siguiente + 1;
+        return buscador.buscarPalabra(palabra, metodo);
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public Set<String> buscarTodasLasPalabras() {
+        return buscador.buscarTodasLasPalabras(diccionario, metodo);
+    }
+}